@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread request handling under the same load.
+# Requires `hey` (https://github.com/rakyll/hey) and the database settings of BASE_PROFILE.
+#
+#   BASE_PROFILE=local CONCURRENCY=500 DURATION=30s ./scripts/loadtest.sh
+set -euo pipefail
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+BASE_PROFILE="${BASE_PROFILE:-local}"
+CONCURRENCY="${CONCURRENCY:-500}"
+DURATION="${DURATION:-30s}"
+PORT="${PORT:-8080}"
+TARGET_PATH="${TARGET_PATH:-/products?size=20}"
+REPORTS_DIR="$ROOT_DIR/reports"
+
+command -v hey >/dev/null || { echo "hey is required on PATH" >&2; exit 1; }
+mkdir -p "$REPORTS_DIR"
+./gradlew -q bootJar
+JAR="$(ls build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)"
+
+run() {
+    local label="$1" profiles="$2"
+    java -jar "$JAR" --spring.profiles.active="$profiles" --server.port="$PORT" \
+        > "$REPORTS_DIR/loadtest-$label.app.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    until curl -fs "http://localhost:$PORT/actuator/health" >/dev/null; do
+        kill -0 "$pid" 2>/dev/null || { echo "$label: app exited, see loadtest-$label.app.log" >&2; exit 1; }
+        sleep 1
+    done
+    # Warm-up so JIT and caches do not count against the first profile.
+    hey -z 10s -c 50 "http://localhost:$PORT$TARGET_PATH" >/dev/null
+    hey -z "$DURATION" -c "$CONCURRENCY" "http://localhost:$PORT$TARGET_PATH" \
+        | tee "$REPORTS_DIR/loadtest-$label.txt"
+    curl -fs "http://localhost:$PORT/actuator/metrics/app.virtual.threads.pinned" \
+        >> "$REPORTS_DIR/loadtest-$label.txt" 2>/dev/null || true
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run platform "$BASE_PROFILE"
+run virtual "$BASE_PROFILE,virtual"
+
+echo
+for label in platform virtual; do
+    echo "== $label"
+    grep -E "Requests/sec|Average|Slowest|99%|\[[0-9]{3}\]" "$REPORTS_DIR/loadtest-$label.txt" || true
+done
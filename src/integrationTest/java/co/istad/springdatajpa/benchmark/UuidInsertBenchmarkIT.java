@@ -0,0 +1,139 @@
+package co.istad.springdatajpa.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import co.istad.springdatajpa.entity.UuidV7Generator;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Inserts the same rows keyed by random v4 and by time-ordered v7 UUIDs into tables shaped
+ * like {@code products} (uuid primary key plus a {@code (created_at, id)} index), then
+ * reports insert throughput, index sizes and leaf density for each. Run with
+ * {@code ./gradlew -Dit.tc=true -Dbench=true integrationTest --tests '*UuidInsertBenchmarkIT'};
+ * {@code -Dbench.rows} changes the row count.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class UuidInsertBenchmarkIT {
+
+    private static final Logger log = LoggerFactory.getLogger(UuidInsertBenchmarkIT.class);
+    private static final int ROWS = Integer.getInteger("bench.rows", 500_000);
+    private static final int BATCH_SIZE = 1000;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void timeOrderedIds_insertIntoSmallerDenserIndexes() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl() + "&reWriteBatchedInserts=true", postgres.getUsername(), postgres.getPassword())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create extension if not exists pgstattuple");
+            }
+            Result random = run(connection, "uuid_v4", UUID::randomUUID);
+            Result timeOrdered = run(connection, "uuid_v7", UuidV7Generator::next);
+
+            log.info("{} rows, batches of {}", ROWS, BATCH_SIZE);
+            log.info("{}", random);
+            log.info("{}", timeOrdered);
+
+            assertThat(timeOrdered.primaryKeyBytes()).isLessThanOrEqualTo(random.primaryKeyBytes());
+            assertThat(timeOrdered.primaryKeyLeafDensity()).isGreaterThan(random.primaryKeyLeafDensity());
+        }
+    }
+
+    private static Result run(Connection connection, String table, Supplier<UUID> ids) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " ("
+                    + "id uuid primary key, "
+                    + "created_at timestamptz not null, "
+                    + "pro_name varchar(255) not null)");
+            statement.execute("create index " + table + "_created_id on " + table + " (created_at, id)");
+        }
+
+        connection.setAutoCommit(false);
+        long started = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into " + table + " (id, created_at, pro_name) values (?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.setObject(1, ids.get());
+                insert.setTimestamp(2, Timestamp.from(Instant.now()));
+                insert.setString(3, "Product " + i);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze " + table);
+        }
+        return new Result(
+                table,
+                ROWS / seconds,
+                relationSize(connection, table + "_pkey"),
+                leafDensity(connection, table + "_pkey"),
+                relationSize(connection, table + "_created_id"),
+                leafDensity(connection, table + "_created_id"));
+    }
+
+    private static long relationSize(Connection connection, String relation) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("select pg_relation_size(?::regclass)")) {
+            query.setString(1, relation);
+            try (ResultSet rows = query.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+
+    private static double leafDensity(Connection connection, String index) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "select avg_leaf_density from pgstatindex(?::regclass)")) {
+            query.setString(1, index);
+            try (ResultSet rows = query.executeQuery()) {
+                rows.next();
+                return rows.getDouble(1);
+            }
+        }
+    }
+
+    private record Result(String table,
+                          double rowsPerSecond,
+                          long primaryKeyBytes,
+                          double primaryKeyLeafDensity,
+                          long createdIndexBytes,
+                          double createdIndexLeafDensity) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %,.0f rows/s, pkey %,d kB (%.1f%% leaf density), (created_at, id) %,d kB (%.1f%%)",
+                    table, rowsPerSecond, primaryKeyBytes / 1024, primaryKeyLeafDensity,
+                    createdIndexBytes / 1024, createdIndexLeafDensity);
+        }
+    }
+}
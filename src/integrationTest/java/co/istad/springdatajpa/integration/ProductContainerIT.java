@@ -2,20 +2,31 @@ package co.istad.springdatajpa.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import co.istad.springdatajpa.entity.Category;
 import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductVariant;
 import co.istad.springdatajpa.repository.CategoryRepository;
 import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.repository.ProductVariantRepository;
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -53,9 +64,16 @@ class ProductContainerIT {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @AfterEach
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void cleanDatabase() {
+        productVariantRepository.deleteAll();
         productRepository.deleteAll();
         categoryRepository.deleteAll();
     }
@@ -87,6 +105,80 @@ class ProductContainerIT {
                 .andExpect(jsonPath("$.content[0].category.name").value("Office"));
     }
 
+    @Test
+    void listProducts_estimatedTotal_comesFromPlannerStatistics() throws Exception {
+        Category category = new Category();
+        category.setName("Estimates");
+        Category savedCategory = categoryRepository.saveAndFlush(category);
+        Product product = newProduct("Folder", "Poly folder", "2.50");
+        product.setCategory(savedCategory);
+        productRepository.saveAndFlush(product);
+
+        // EXPLAIN always yields a row estimate, even before the table is analyzed.
+        mockMvc.perform(get("/products")
+                        .param("categoryId", savedCategory.getId().toString())
+                        .param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.hasNext").value(false))
+                .andExpect(jsonPath("$.page.estimatedTotalElements").isNumber());
+    }
+
+    @Test
+    void updateInventory_usesUpdateFromValues() throws Exception {
+        Product product = productRepository.saveAndFlush(newProduct("Mug", "Ceramic", "8.00"));
+        ProductVariant red = productVariantRepository.saveAndFlush(newVariant(product, "MUG-RED", 1));
+        ProductVariant blue = productVariantRepository.saveAndFlush(newVariant(product, "MUG-BLUE", 2));
+
+        mockMvc.perform(patch("/variants/inventory")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                  {"sku":"MUG-RED","stock":40,"price":7.50},
+                                  {"sku":"MUG-BLUE","stock":0},
+                                  {"sku":"MUG-GREEN","stock":3}
+                                ]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.notFoundSkus[0]").value("MUG-GREEN"));
+
+        entityManager.clear();
+        ProductVariant updatedRed = productVariantRepository.findById(red.getId()).orElseThrow();
+        assertThat(updatedRed.getStock()).isEqualTo(40);
+        assertThat(updatedRed.getPrice()).isEqualByComparingTo("7.50");
+        ProductVariant updatedBlue = productVariantRepository.findById(blue.getId()).orElseThrow();
+        assertThat(updatedBlue.getStock()).isZero();
+        assertThat(updatedBlue.getPrice()).isEqualByComparingTo("8.00");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void reserveStock_concurrentReserversNeverOversell() throws Exception {
+        Product product = productRepository.save(newProduct("Console", "Limited run", "499.00"));
+        ProductVariant variant = productVariantRepository.save(newVariant(product, "CONSOLE-LTD", 50));
+
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                statuses.add(executor.submit(() -> mockMvc.perform(post("/variants/{id}/reservations", variant.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"quantity\":1}"))
+                        .andReturn()
+                        .getResponse()
+                        .getStatus()));
+            }
+        }
+        long reserved = 0;
+        for (Future<Integer> status : statuses) {
+            if (status.get() == 200) {
+                reserved++;
+            }
+        }
+
+        assertThat(reserved).isEqualTo(50);
+        assertThat(productVariantRepository.findStockById(variant.getId())).contains(0);
+    }
+
     @Test
     void repository_saveAndFind() {
         Product product = newProduct("Folder", "Poly folder", "2.50");
@@ -96,6 +188,15 @@ class ProductContainerIT {
                 .isNotEmpty();
     }
 
+    private static ProductVariant newVariant(Product product, String sku, int stock) {
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSku(sku);
+        variant.setPrice(product.getPrice());
+        variant.setStock(stock);
+        return variant;
+    }
+
     private static Product newProduct(String name, String description, String price) {
         Product product = new Product();
         product.setName(name);
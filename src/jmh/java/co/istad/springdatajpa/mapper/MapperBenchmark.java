@@ -0,0 +1,88 @@
+package co.istad.springdatajpa.mapper;
+
+import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.ProductResponse;
+import co.istad.springdatajpa.dto.response.ProductSummary;
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.Product;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The generated MapStruct mappers, called directly without a Spring context.
+ * {@code categoryWithProducts} maps a category page the way {@code CategoryServiceImpl}
+ * does: every product to a summary, then the category with that list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"20", "100", "1000"})
+    public int products;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final CategoryMapper categoryMapper = new CategoryMapperImpl();
+    private Category category;
+    private Product product;
+    private List<Product> categoryProducts;
+
+    @Setup
+    public void setUp() {
+        Instant now = Instant.parse("2025-06-01T12:00:00Z");
+        category = new Category();
+        category.setId(UUID.randomUUID());
+        category.setName("Office");
+        category.setDescription("Office supplies");
+        category.setSortOrder(1);
+        category.setCreatedAt(now);
+        category.setUpdatedAt(now);
+        category.setVersion(0L);
+
+        categoryProducts = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            Product row = new Product();
+            row.setId(UUID.randomUUID());
+            row.setName("Product " + i);
+            row.setDescription("Description of product " + i);
+            row.setPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(i)));
+            row.setCategory(category);
+            row.setCreatedAt(now);
+            row.setUpdatedAt(now);
+            row.setVersion(0L);
+            categoryProducts.add(row);
+        }
+        product = categoryProducts.get(0);
+    }
+
+    @Benchmark
+    public ProductResponse productToResponse() {
+        return productMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public CategoryResponse categoryWithProducts() {
+        List<ProductSummary> summaries = categoryProducts.stream()
+                .map(productMapper::toSummary)
+                .toList();
+        return categoryMapper.toResponse(category, summaries, (long) summaries.size(), null);
+    }
+}
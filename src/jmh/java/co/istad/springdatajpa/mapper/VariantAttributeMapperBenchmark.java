@@ -0,0 +1,71 @@
+package co.istad.springdatajpa.mapper;
+
+import co.istad.springdatajpa.dto.response.AttributeValueResponse;
+import co.istad.springdatajpa.dto.response.ProductVariantResponse;
+import co.istad.springdatajpa.entity.AttributeDataType;
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.AttributeScope;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductVariant;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ProductMapper#toVariantResponse} and {@link ProductMapper#toAttributeResponse},
+ * called once per variant or attribute value in list and detail responses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariantAttributeMapperBenchmark {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private ProductVariant variant;
+    private AttributeDefinition definition;
+
+    @Setup
+    public void setUp() {
+        Instant now = Instant.parse("2025-06-01T12:00:00Z");
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        variant = new ProductVariant();
+        variant.setId(UUID.randomUUID());
+        variant.setProduct(product);
+        variant.setSku("CHAIR-BLK-L");
+        variant.setPrice(new BigDecimal("129.00"));
+        variant.setStock(42);
+        variant.setCreatedAt(now);
+        variant.setUpdatedAt(now);
+
+        definition = new AttributeDefinition();
+        definition.setId(UUID.randomUUID());
+        definition.setName("color");
+        definition.setDataType(AttributeDataType.STRING);
+        definition.setScope(AttributeScope.VARIANT);
+    }
+
+    @Benchmark
+    public ProductVariantResponse variantToResponse() {
+        return productMapper.toVariantResponse(variant);
+    }
+
+    @Benchmark
+    public AttributeValueResponse attributeToResponse() {
+        return productMapper.toAttributeResponse(definition, "Black", null, null);
+    }
+}
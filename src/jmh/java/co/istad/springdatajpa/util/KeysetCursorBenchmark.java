@@ -0,0 +1,125 @@
+package co.istad.springdatajpa.util;
+
+import co.istad.springdatajpa.entity.Product;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cursor encoding runs once per keyset page and decoding once per request that
+ * carries a cursor; both sit on every keyset list call. Positions are read from an entity
+ * with {@link KeysetCursor#boundary}, as the executor does. The {@code text*} benchmarks
+ * keep the former {@code v1|...} string encoder as a baseline for the binary codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeysetCursorBenchmark {
+
+    private KeysetCursorCodec signed;
+    private Product product;
+    private KeysetCursor.Position createdAtPosition;
+    private KeysetCursor.Position namePosition;
+    private String createdAtCursor;
+    private String signedCreatedAtCursor;
+    private String nameCursor;
+    private String textCreatedAtCursor;
+    private String legacyCursor;
+
+    @Setup
+    public void setUp() {
+        signed = new KeysetCursorCodec("benchmark-secret".getBytes(StandardCharsets.UTF_8), true);
+        UUID id = UUID.fromString("0190a4c2-6f1e-7c3a-9b2d-5e8f1a2b3c4d");
+        Instant createdAt = Instant.parse("2025-06-01T12:34:56.789012Z");
+        product = new Product();
+        product.setId(id);
+        product.setCreatedAt(Instant.parse("2025-06-01T12:34:56.789012345Z"));
+        product.setName("Ergonomic office chair | black");
+        // The positions KeysetExecutor builds for a page boundary.
+        createdAtPosition = KeysetCursor.boundary(product, "createdAt", false, false);
+        namePosition = KeysetCursor.boundary(product, "name", true, true);
+        createdAtCursor = KeysetCursor.encode(createdAtPosition);
+        signedCreatedAtCursor = signed.encode(createdAtPosition);
+        nameCursor = KeysetCursor.encode(namePosition);
+        textCreatedAtCursor = textEncode(createdAtPosition);
+        legacyCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String encodeCreatedAt() {
+        return KeysetCursor.encode(createdAtPosition);
+    }
+
+    @Benchmark
+    public String encodeBoundaryCreatedAt() {
+        return KeysetCursor.encode(KeysetCursor.boundary(product, "createdAt", false, false));
+    }
+
+    @Benchmark
+    public String encodeCreatedAtSigned() {
+        return signed.encode(createdAtPosition);
+    }
+
+    @Benchmark
+    public String encodeName() {
+        return KeysetCursor.encode(namePosition);
+    }
+
+    @Benchmark
+    public String textEncodeCreatedAt() {
+        return textEncode(createdAtPosition);
+    }
+
+    @Benchmark
+    public KeysetCursor.Position decodeCreatedAt() {
+        return KeysetCursor.decode(createdAtCursor);
+    }
+
+    @Benchmark
+    public KeysetCursor.Position decodeCreatedAtSigned() {
+        return signed.decode(signedCreatedAtCursor);
+    }
+
+    @Benchmark
+    public KeysetCursor.Position decodeName() {
+        return KeysetCursor.decode(nameCursor);
+    }
+
+    @Benchmark
+    public KeysetCursor.Position textDecodeCreatedAt() {
+        return KeysetCursor.decode(textCreatedAtCursor);
+    }
+
+    @Benchmark
+    public KeysetCursor.Position decodeLegacy() {
+        return KeysetCursor.decode(legacyCursor);
+    }
+
+    // The v1 text encoder as it was before the binary codec.
+    private static String textEncode(KeysetCursor.Position position) {
+        String payload = String.join("|",
+                "v1",
+                position.property(),
+                position.ascending() ? "asc" : "desc",
+                position.backward() ? "prev" : "next",
+                position.id().toString(),
+                position.value() == null ? "-" : "=" + position.value());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
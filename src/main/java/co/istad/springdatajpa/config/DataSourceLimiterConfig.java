@@ -0,0 +1,39 @@
+package co.istad.springdatajpa.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts a {@link ConcurrencyLimitedDataSource} in front of the connection pool when
+ * {@code app.datasource.limiter.enabled=true}. The {@code virtual} profile turns it on
+ * together with virtual-thread request handling.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceLimiterPostProcessor(
+            @Value("${app.datasource.limiter.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}")
+            int maxConcurrent,
+            @Value("${app.datasource.limiter.acquire-timeout:60s}") Duration acquireTimeout
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    log.info("Limiting '{}' to {} concurrent connections", beanName, maxConcurrent);
+                    return new ConcurrencyLimitedDataSource(dataSource, maxConcurrent, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
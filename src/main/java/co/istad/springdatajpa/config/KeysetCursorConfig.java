@@ -0,0 +1,24 @@
+package co.istad.springdatajpa.config;
+
+import co.istad.springdatajpa.util.KeysetCursorCodec;
+import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keyset cursors are signed when {@code app.keyset.cursor-secret} is set, and forged,
+ * unsigned and text cursors are then rejected. Without a secret, text cursors from before
+ * the binary format decode until {@code app.keyset.accept-text-cursors} is turned off.
+ */
+@Configuration
+public class KeysetCursorConfig {
+
+    @Bean
+    KeysetCursorCodec keysetCursorCodec(
+            @Value("${app.keyset.cursor-secret:}") String secret,
+            @Value("${app.keyset.accept-text-cursors:true}") boolean acceptTextCursors
+    ) {
+        return new KeysetCursorCodec(secret.getBytes(StandardCharsets.UTF_8), acceptTextCursors);
+    }
+}
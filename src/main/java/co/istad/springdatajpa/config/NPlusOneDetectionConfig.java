@@ -0,0 +1,108 @@
+package co.istad.springdatajpa.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Installs the {@link NPlusOneDetector} as Hibernate's statement inspector and as a
+ * collection-initialization and load listener, and opens one detection scope per handler
+ * invocation. {@code app.nplusone.mode} is {@code strict} in the test profiles and
+ * {@code log} (sampled by {@code app.nplusone.sample-rate}) otherwise.
+ */
+@Configuration
+public class NPlusOneDetectionConfig implements WebMvcConfigurer {
+
+    private static final String INTEGRATOR_PROVIDER = "hibernate.integrator_provider";
+
+    private final NPlusOneDetector detector;
+
+    public NPlusOneDetectionConfig(
+            @Value("${app.nplusone.mode:log}") String mode,
+            @Value("${app.nplusone.max-repeats:5}") int maxRepeats,
+            @Value("${app.nplusone.sample-rate:0.05}") double sampleRate
+    ) {
+        this.detector = new NPlusOneDetector(NPlusOneDetector.Mode.parse(mode), maxRepeats, sampleRate);
+    }
+
+    @Bean
+    NPlusOneDetector nPlusOneDetector() {
+        return detector;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer nPlusOneHibernateCustomizer() {
+        return properties -> {
+            if (detector.getMode() == NPlusOneDetector.Mode.OFF) {
+                return;
+            }
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, detector);
+            properties.put(INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(new ListenerIntegrator(detector)));
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (detector.getMode() == NPlusOneDetector.Mode.OFF) {
+            return;
+        }
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod handlerMethod) {
+                    detector.begin(handlerMethod.getBeanType().getSimpleName() + "#"
+                            + handlerMethod.getMethod().getName());
+                }
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                detector.end();
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                detector.end();
+            }
+        });
+    }
+
+    private record ListenerIntegrator(NPlusOneDetector detector) implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata,
+                              BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            EventListenerRegistry listeners = sessionFactory.getServiceRegistry()
+                    .requireService(EventListenerRegistry.class);
+            // Ahead of the default listeners, so the association is reported before its SELECT.
+            listeners.prependListeners(EventType.INIT_COLLECTION, detector);
+            listeners.prependListeners(EventType.LOAD, detector);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                 SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
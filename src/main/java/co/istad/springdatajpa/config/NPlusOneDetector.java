@@ -0,0 +1,159 @@
+package co.istad.springdatajpa.config;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Flags N+1 access patterns inside a unit of work, normally one HTTP request opened with
+ * {@link #begin(String)}. Two signals are counted: SELECTs of the same shape (the SQL
+ * Hibernate prepares, with IN lists collapsed), and lazy initializations of the same
+ * association, either a collection role or a to-one proxy. When either passes
+ * {@code maxRepeats}, {@link Mode#STRICT} throws {@link NPlusOneException} at the
+ * offending statement and {@link Mode#LOG} logs one warning per offender. In
+ * {@code LOG} mode only a {@code sampleRate} fraction of units of work is tracked.
+ * Lazy initializations served by the second-level cache are counted too.
+ */
+@Slf4j
+public class NPlusOneDetector implements StatementInspector, InitializeCollectionEventListener, LoadEventListener {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\?(?:\\s*,\\s*\\?)+\\)");
+    private static final int LOGGED_SQL_LENGTH = 300;
+
+    private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+    private final Mode mode;
+    private final int maxRepeats;
+    private final double sampleRate;
+
+    public NPlusOneDetector(Mode mode, int maxRepeats, double sampleRate) {
+        if (maxRepeats < 1) {
+            throw new IllegalArgumentException("maxRepeats must be at least 1");
+        }
+        this.mode = mode;
+        this.maxRepeats = maxRepeats;
+        this.sampleRate = sampleRate;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Starts tracking the current thread under {@code label}, unless the detector is off
+     * or this unit of work was not sampled. Replaces any scope left open on the thread.
+     */
+    public void begin(String label) {
+        if (mode == Mode.OFF
+                || (mode == Mode.LOG && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            scope.remove();
+            return;
+        }
+        scope.set(new Scope(label));
+    }
+
+    public void end() {
+        scope.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Scope current = scope.get();
+        if (current != null && isSelect(sql)) {
+            String shape = IN_LIST.matcher(sql).replaceAll("(?)");
+            current.count(current.statements, shape, this, "statement " + abbreviate(shape));
+        }
+        return sql;
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        Scope current = scope.get();
+        if (current != null && event.getCollection().getRole() != null) {
+            String association = unqualifyRole(event.getCollection().getRole());
+            current.count(current.lazyLoads, association, this, "lazy load of " + association);
+        }
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        // Initializing an uninitialized proxy loads with IMMEDIATE_LOAD.
+        Scope current = scope.get();
+        if (current != null && loadType == IMMEDIATE_LOAD) {
+            String association = unqualify(event.getEntityClassName()) + " (to-one proxy)";
+            current.count(current.lazyLoads, association, this, "lazy load of " + association);
+        }
+    }
+
+    private void report(Scope current, String offender, int repeats) {
+        String message = String.format("Possible N+1 in %s: %s repeated %d times (budget %d)",
+                current.label, offender, repeats, maxRepeats);
+        if (mode == Mode.STRICT) {
+            throw new NPlusOneException(message);
+        }
+        log.warn(message);
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, "select", 0, 6) || trimmed.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    // Role names are "<entity class>.<property>": co.example.Product.categories -> Product.categories
+    private static String unqualifyRole(String role) {
+        int property = role.lastIndexOf('.');
+        return unqualify(role.substring(0, property)) + role.substring(property);
+    }
+
+    private static String unqualify(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String abbreviate(String sql) {
+        String singleLine = sql.replaceAll("\\s+", " ").trim();
+        return singleLine.length() <= LOGGED_SQL_LENGTH
+                ? "'" + singleLine + "'"
+                : "'" + singleLine.substring(0, LOGGED_SQL_LENGTH) + "...'";
+    }
+
+    public enum Mode {
+        OFF, LOG, STRICT;
+
+        public static Mode parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public static class NPlusOneException extends IllegalStateException {
+
+        public NPlusOneException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Scope {
+
+        private final String label;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private final Map<String, Integer> lazyLoads = new HashMap<>();
+
+        private Scope(String label) {
+            this.label = label;
+        }
+
+        // Reports once per offender, when it first goes over budget.
+        private void count(Map<String, Integer> counts, String key, NPlusOneDetector detector, String offender) {
+            int repeats = counts.merge(key, 1, Integer::sum);
+            if (repeats == detector.maxRepeats + 1) {
+                detector.report(this, offender, repeats);
+            }
+        }
+    }
+}
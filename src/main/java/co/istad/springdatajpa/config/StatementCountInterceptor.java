@@ -0,0 +1,69 @@
+package co.istad.springdatajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Records the JDBC statements each request issued in the {@code app.http.jdbc.statements}
+ * distribution, tagged with the handler as {@code Controller#method}. Async requests are
+ * counted on the initial and the async dispatch and recorded once; statements a
+ * {@code StreamingResponseBody} runs on the task executor are not included.
+ */
+public class StatementCountInterceptor implements AsyncHandlerInterceptor {
+
+    static final String METRIC_NAME = "app.http.jdbc.statements";
+    private static final String STARTED_ASYNC_COUNT = StatementCountInterceptor.class.getName() + ".asyncCount";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public StatementCountInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            StatementCountingDataSource.startCounting();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(STARTED_ASYNC_COUNT, StatementCountingDataSource.stopCounting());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            long statements = StatementCountingDataSource.stopCounting();
+            if (request.getAttribute(STARTED_ASYNC_COUNT) instanceof Long asyncCount) {
+                statements += asyncCount;
+            }
+            summary(handlerMethod).record(statements);
+        }
+    }
+
+    private DistributionSummary summary(HandlerMethod handlerMethod) {
+        return summaries.computeIfAbsent(handlerMethod.getMethod(), method -> DistributionSummary.builder(METRIC_NAME)
+                .description("JDBC statements issued per HTTP request")
+                .baseUnit("statements")
+                .tag("handler", handlerMethod.getBeanType().getSimpleName() + "#" + method.getName())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,113 @@
+package co.istad.springdatajpa.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts the JDBC statements prepared on the current thread between
+ * {@link #startCounting()} and {@link #stopCounting()}. Hibernate and
+ * {@code JdbcTemplate} prepare one statement per query (a JDBC batch is one statement),
+ * so the count is the number of round trips a unit of work made. Tests can also keep
+ * the SQL itself with {@link #startRecording()}; counting and recording are independent.
+ * Threads doing neither pay two {@link ThreadLocal} lookups per statement.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    public static void startCounting() {
+        COUNT.set(new long[1]);
+    }
+
+    /**
+     * Returns the statements prepared since {@link #startCounting()} and stops counting;
+     * 0 when the thread was not counting.
+     */
+    public static long stopCounting() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    public static void startRecording() {
+        RECORDING.set(new ArrayList<>());
+    }
+
+    /**
+     * Returns the SQL of the statements prepared since {@link #startRecording()}, in order,
+     * and stops recording; {@code createStatement()} is recorded without SQL.
+     */
+    public static List<String> stopRecording() {
+        List<String> statements = RECORDING.get();
+        RECORDING.remove();
+        return statements == null ? List.of() : statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new CountingHandler(connection));
+    }
+
+    private static final class CountingHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private CountingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "prepareStatement", "prepareCall", "createStatement" -> {
+                    long[] count = COUNT.get();
+                    if (count != null) {
+                        count[0]++;
+                    }
+                    List<String> recording = RECORDING.get();
+                    if (recording != null) {
+                        recording.add(args != null && args[0] instanceof String sql ? sql : method.getName() + "()");
+                    }
+                }
+                default -> {
+                }
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package co.istad.springdatajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Counts JDBC statements per HTTP request: wraps the {@link DataSource} in a
+ * {@link StatementCountingDataSource} and records each handler's count through
+ * {@link StatementCountInterceptor}. On by default; {@code app.metrics.statements.enabled=false}
+ * turns it off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.metrics.statements.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementMetricsConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public StatementMetricsConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingPostProcessor() {
+        return new StatementCountingPostProcessor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Web slice tests run without a registry.
+        meterRegistry.ifAvailable(meters -> registry.addInterceptor(new StatementCountInterceptor(meters)));
+    }
+
+    // Runs before the connection limiter, so the limiter stays the outermost DataSource.
+    private static final class StatementCountingPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource
+                    && !(bean instanceof StatementCountingDataSource)
+                    && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                return new StatementCountingDataSource(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -2,17 +2,25 @@ package co.istad.springdatajpa.controller;
 
 import co.istad.springdatajpa.dto.request.CategoryCreateRequest;
 import co.istad.springdatajpa.dto.request.CategoryPatchRequest;
+import co.istad.springdatajpa.dto.request.CategoryProductsView;
+import co.istad.springdatajpa.dto.request.PageTotalMode;
 import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.CategoryTreeNode;
+import co.istad.springdatajpa.dto.response.KeysetResponse;
 import co.istad.springdatajpa.dto.request.CategoryUpdateRequest;
+import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.repository.SortProperties;
 import co.istad.springdatajpa.service.CategoryService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -24,8 +32,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @Validated
 @RestController
@@ -35,11 +45,7 @@ public class CategoryController {
     private static final int MIN_PAGE = 0;
     private static final int MIN_SIZE = 1;
     private static final int MAX_SIZE = 100;
-    private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
-            "createdAt",
-            "updatedAt",
-            "name"
-    );
+    private static final Set<String> ALLOWED_SORT_FIELDS = SortProperties.CATEGORY;
 
     private final CategoryService categoryService;
 
@@ -48,18 +54,61 @@ public class CategoryController {
     }
 
     @GetMapping
-    public Page<CategoryResponse> listCategories(
+    public ResponseEntity<?> listCategories(
             @RequestParam(defaultValue = "0") @Min(MIN_PAGE) int page,
             @RequestParam(defaultValue = "20") @Min(MIN_SIZE) @Max(MAX_SIZE) int size,
-            @RequestParam(defaultValue = "createdAt,desc") String sort
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String total
     ) {
+        PageTotalMode totalMode = PageTotalMode.parse(total);
+        if (cursor != null) {
+            Sort keysetSort = ControllerUtils.parseSort(sort, ALLOWED_SORT_FIELDS, defaultSort());
+            KeysetResponse<CategoryResponse> response = categoryService.findAllKeyset(keysetSort, cursor, size);
+            return ResponseEntity.ok(response);
+        }
         PageRequest pageable = ControllerUtils.pageRequest(page, size, sort, ALLOWED_SORT_FIELDS, defaultSort());
-        return categoryService.findAll(pageable);
+        if (totalMode != PageTotalMode.EXACT) {
+            return ResponseEntity.ok(categoryService.findSlice(pageable, totalMode == PageTotalMode.ESTIMATE));
+        }
+        return ResponseEntity.ok(categoryService.findAll(pageable));
     }
 
+    @GetMapping("/tree")
+    public List<CategoryTreeNode> getTree() {
+        return categoryService.getTree();
+    }
+
+    @GetMapping("/{id}/path")
+    public List<CategorySummary> getPath(@PathVariable UUID id) {
+        return categoryService.getPath(id);
+    }
+
+    // The default keyset window runs no COUNT; products=page or products=count opt in to
+    // productCount. Only products=none gets an ETag: the other views embed products,
+    // which change without bumping the category's version.
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryResponse> getCategory(@PathVariable UUID id) {
-        return ResponseEntity.ok(categoryService.findById(id));
+    public ResponseEntity<CategoryResponse> getCategory(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "keyset") String products,
+            @RequestParam(defaultValue = "0") @Min(MIN_PAGE) int page,
+            @RequestParam(defaultValue = "20") @Min(MIN_SIZE) @Max(MAX_SIZE) int size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest
+    ) {
+        CategoryProductsView productsView = CategoryProductsView.parse(products);
+        if (page != MIN_PAGE && productsView != CategoryProductsView.PAGE) {
+            throw new BadRequestException("page requires products=page; use cursor for the keyset window");
+        }
+        if (productsView != CategoryProductsView.NONE) {
+            return ResponseEntity.ok(categoryService.findById(id, productsView, page, size, cursor));
+        }
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(ControllerUtils.eTag(categoryService.findVersion(id)))) {
+            return null;
+        }
+        CategoryResponse response = categoryService.findById(id, productsView, page, size, cursor);
+        return ResponseEntity.ok().eTag(ControllerUtils.eTag(response.version())).body(response);
     }
 
     @PostMapping
@@ -71,24 +120,29 @@ public class CategoryController {
     @PutMapping("/{id}")
     public ResponseEntity<CategoryResponse> updateCategory(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody CategoryUpdateRequest request
     ) {
-        CategoryResponse response = categoryService.update(id, request);
-        return ResponseEntity.ok(response);
+        CategoryResponse response = categoryService.update(id, request, ControllerUtils.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ControllerUtils.eTag(response.version())).body(response);
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<CategoryResponse> patchCategory(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody CategoryPatchRequest request
     ) {
-        CategoryResponse response = categoryService.patch(id, request);
-        return ResponseEntity.ok(response);
+        CategoryResponse response = categoryService.patch(id, request, ControllerUtils.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ControllerUtils.eTag(response.version())).body(response);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCategory(@PathVariable UUID id) {
-        categoryService.delete(id);
+    public ResponseEntity<Void> deleteCategory(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        categoryService.delete(id, ControllerUtils.expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
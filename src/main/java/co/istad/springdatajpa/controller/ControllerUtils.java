@@ -1,11 +1,16 @@
 package co.istad.springdatajpa.controller;
 
+import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.exception.PreconditionFailedException;
 import java.util.Set;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 final class ControllerUtils {
 
+    private static final String ANY_ETAG = "*";
+    private static final String WEAK_PREFIX = "W/";
+
     private ControllerUtils() {
     }
 
@@ -13,7 +18,7 @@ final class ControllerUtils {
         return PageRequest.of(page, size, parseSort(sort, allowedFields, defaultSort));
     }
 
-    private static Sort parseSort(String sort, Set<String> allowedFields, Sort defaultSort) {
+    static Sort parseSort(String sort, Set<String> allowedFields, Sort defaultSort) {
         if (sort == null || sort.isBlank()) {
             return defaultSort;
         }
@@ -32,5 +37,46 @@ final class ControllerUtils {
         }
         return Sort.by(Sort.Direction.DESC, property);
     }
+
+    // The entity's @Version is the whole tag: the id is already in the URL.
+    static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // A representation that embeds another entity's fields also carries that entity's
+    // version, so changing either one changes the tag: "<version>.<embeddedVersion>".
+    static String eTag(Long version, Long embeddedVersion) {
+        return embeddedVersion == null ? eTag(version) : "\"" + version + "." + embeddedVersion + "\"";
+    }
+
+    /**
+     * Version an {@code If-Match} header requires, or {@code null} when the header is
+     * absent or {@code *}. Only the strong tags issued by {@link #eTag} can match; any
+     * other tag fails the precondition. Of a composite tag only the leading version is
+     * returned: the write guards the entity's own row, not the one it embeds.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY_ETAG.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.indexOf(',') >= 0) {
+            throw new BadRequestException("If-Match must carry a single entity tag");
+        }
+        if (tag.startsWith(WEAK_PREFIX) || tag.length() < 3 || tag.charAt(0) != '"' || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match does not match the current entity tag");
+        }
+        String versions = tag.substring(1, tag.length() - 1);
+        int embedded = versions.indexOf('.');
+        try {
+            if (embedded >= 0) {
+                Long.parseLong(versions.substring(embedded + 1));
+                return Long.valueOf(versions.substring(0, embedded));
+            }
+            return Long.valueOf(versions);
+        } catch (NumberFormatException ex) {
+            throw new PreconditionFailedException("If-Match does not match the current entity tag");
+        }
+    }
 }
 
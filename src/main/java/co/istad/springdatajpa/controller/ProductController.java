@@ -1,7 +1,13 @@
 package co.istad.springdatajpa.controller;
 
+import co.istad.springdatajpa.dto.request.AttributeFilter;
+import co.istad.springdatajpa.dto.request.PageTotalMode;
 import co.istad.springdatajpa.dto.request.ProductCreateRequest;
+import co.istad.springdatajpa.dto.response.ProductBatchResponse;
+import co.istad.springdatajpa.dto.response.ProductDetailResponse;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse;
 import co.istad.springdatajpa.dto.response.ProductResponse;
+import co.istad.springdatajpa.dto.response.ProductVersions;
 import co.istad.springdatajpa.dto.request.ProductUpdateRequest;
 import co.istad.springdatajpa.dto.request.ProductPatchRequest;
 import co.istad.springdatajpa.dto.request.ProductVariantCreateRequest;
@@ -10,15 +16,32 @@ import co.istad.springdatajpa.dto.request.AttributeValueRequest;
 import co.istad.springdatajpa.dto.response.ProductVariantResponse;
 import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.repository.SortProperties;
+import co.istad.springdatajpa.service.ProductFacetService;
 import co.istad.springdatajpa.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,9 +51,12 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import java.util.List;
 import java.util.UUID;
 
@@ -42,17 +68,24 @@ public class ProductController {
     private static final int MIN_PAGE = 0;
     private static final int MIN_SIZE = 1;
     private static final int MAX_SIZE = 100;
-    private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
-            "createdAt",
-            "updatedAt",
-            "name",
-            "price"
-    );
+    private static final int MAX_BATCH_IDS = 500;
+    private static final String ATTRIBUTE_FILTER_PARAM = "attr";
+    private static final Set<String> ALLOWED_SORT_FIELDS = SortProperties.PRODUCT;
+    private static final Set<String> ALLOWED_VARIANT_SORT_FIELDS = SortProperties.VARIANT;
 
     private final ProductService productService;
+    private final ProductFacetService productFacetService;
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductFacetService productFacetService,
+                             ObjectMapper objectMapper,
+                             @Value("${app.export.request-timeout:30m}") Duration exportTimeout) {
         this.productService = productService;
+        this.productFacetService = productFacetService;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
@@ -61,19 +94,88 @@ public class ProductController {
             @RequestParam(defaultValue = "20") @Min(MIN_SIZE) @Max(MAX_SIZE) int size,
             @RequestParam(defaultValue = "createdAt,desc") String sort,
             @RequestParam(required = false) UUID categoryId,
-            @RequestParam(required = false) String cursor
+            @RequestParam(defaultValue = "false") boolean includeDescendants,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String total,
+            HttpServletRequest request
     ) {
+        List<AttributeFilter> attributeFilters = attributeFilters(request);
+        PageTotalMode totalMode = PageTotalMode.parse(total);
+        boolean criteriaQuery = !attributeFilters.isEmpty() || (includeDescendants && categoryId != null);
         if (cursor != null) {
-            KeysetResponse<ProductResponse> response = productService.listProductsKeyset(categoryId, cursor, size);
+            Sort keysetSort = ControllerUtils.parseSort(sort, ALLOWED_SORT_FIELDS, defaultSort());
+            KeysetResponse<ProductResponse> response = criteriaQuery
+                    ? productService.listProductsKeyset(
+                            categoryId, includeDescendants, attributeFilters, keysetSort, cursor, size)
+                    : productService.listProductsKeyset(categoryId, keysetSort, cursor, size);
             return ResponseEntity.ok(response);
         }
         PageRequest pageable = ControllerUtils.pageRequest(page, size, sort, ALLOWED_SORT_FIELDS, defaultSort());
-        return ResponseEntity.ok(productService.findAll(pageable, categoryId));
+        if (totalMode != PageTotalMode.EXACT) {
+            return ResponseEntity.ok(productService.findSlice(
+                    pageable, categoryId, includeDescendants, attributeFilters, totalMode == PageTotalMode.ESTIMATE));
+        }
+        if (!criteriaQuery) {
+            return ResponseEntity.ok(productService.findAll(pageable, categoryId));
+        }
+        return ResponseEntity.ok(productService.findAll(pageable, categoryId, includeDescendants, attributeFilters));
+    }
+
+    // The category is checked before the response is committed so an unknown one is a
+    // clean 404. The long-running stream gets its own async timeout; other async
+    // requests keep the container default.
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportProducts(
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) Instant updatedSince,
+            HttpServletResponse response
+    ) {
+        productService.checkExportCategory(categoryId);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            OutputStream outputStream = response.getOutputStream();
+            productService.exportProducts(categoryId, updatedSince, product -> writeLine(outputStream, product));
+            outputStream.flush();
+            return null;
+        });
+    }
+
+    // Facets describe a category page, so they cover its subtree unless asked otherwise;
+    // the child-category counts are subtree counts either way.
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetResponse> getFacets(
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(defaultValue = "true") boolean includeDescendants,
+            @RequestParam(required = false) List<BigDecimal> priceBreaks,
+            HttpServletRequest request
+    ) {
+        return ResponseEntity.ok(productFacetService.facets(
+                categoryId, includeDescendants, attributeFilters(request), priceBreaks));
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<ProductBatchResponse> getProducts(
+            @RequestParam @NotEmpty @Size(max = MAX_BATCH_IDS) List<UUID> ids
+    ) {
+        return ResponseEntity.ok(productService.findAllByIds(ids));
     }
 
+    // The ETag is the product's version plus its category's, whose name the body embeds.
+    // A conditional GET compares it with one versions-only query and answers 304
+    // without loading the product.
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProduct(@PathVariable UUID id) {
-        return ResponseEntity.ok(productService.findById(id));
+    public ResponseEntity<ProductResponse> getProduct(@PathVariable UUID id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(eTag(productService.findVersion(id)))) {
+            return null;
+        }
+        ProductResponse response = productService.findById(id);
+        return ResponseEntity.ok().eTag(eTag(response)).body(response);
+    }
+
+    @GetMapping("/{id}/full")
+    public ResponseEntity<ProductDetailResponse> getProductDetail(@PathVariable UUID id) {
+        return ResponseEntity.ok(productService.findDetail(id));
     }
 
     @PostMapping
@@ -85,24 +187,29 @@ public class ProductController {
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductUpdateRequest request
     ) {
-        ProductResponse response = productService.update(id, request);
-        return ResponseEntity.ok(response);
+        ProductResponse response = productService.update(id, request, ControllerUtils.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(response)).body(response);
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<ProductResponse> patchProduct(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductPatchRequest request
     ) {
-        ProductResponse response = productService.patch(id, request);
-        return ResponseEntity.ok(response);
+        ProductResponse response = productService.patch(id, request, ControllerUtils.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(response)).body(response);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable UUID id) {
-        productService.delete(id);
+    public ResponseEntity<Void> deleteProduct(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        productService.delete(id, ControllerUtils.expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -124,10 +231,12 @@ public class ProductController {
             @RequestParam(required = false) String cursor
     ) {
         if (cursor != null) {
-            KeysetResponse<ProductVariantResponse> response = productService.listVariantsKeyset(id, cursor, size);
+            Sort keysetSort = ControllerUtils.parseSort(sort, ALLOWED_VARIANT_SORT_FIELDS, defaultSort());
+            KeysetResponse<ProductVariantResponse> response =
+                    productService.listVariantsKeyset(id, keysetSort, cursor, size);
             return ResponseEntity.ok(response);
         }
-        PageRequest pageable = ControllerUtils.pageRequest(page, size, sort, ALLOWED_SORT_FIELDS, defaultSort());
+        PageRequest pageable = ControllerUtils.pageRequest(page, size, sort, ALLOWED_VARIANT_SORT_FIELDS, defaultSort());
         return ResponseEntity.ok(productService.listVariants(id, pageable));
     }
 
@@ -165,6 +274,34 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    // Read raw values so filter values containing commas are not split by request-param conversion.
+    private List<AttributeFilter> attributeFilters(HttpServletRequest request) {
+        String[] values = request.getParameterValues(ATTRIBUTE_FILTER_PARAM);
+        if (values == null) {
+            return List.of();
+        }
+        return Arrays.stream(values)
+                .map(AttributeFilter::parse)
+                .toList();
+    }
+
+    private void writeLine(OutputStream outputStream, ProductResponse product) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(product));
+            outputStream.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String eTag(ProductResponse response) {
+        return ControllerUtils.eTag(response.version(), response.categoryVersion());
+    }
+
+    private static String eTag(ProductVersions versions) {
+        return ControllerUtils.eTag(versions.version(), versions.categoryVersion());
+    }
+
     private Sort defaultSort() {
         return Sort.by(Sort.Direction.DESC, "createdAt");
     }
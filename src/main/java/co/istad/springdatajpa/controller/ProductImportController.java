@@ -0,0 +1,78 @@
+package co.istad.springdatajpa.controller;
+
+import co.istad.springdatajpa.dto.request.ProductCreateRequest;
+import co.istad.springdatajpa.dto.response.ProductImportResponse;
+import co.istad.springdatajpa.dto.response.ProductImportResult;
+import co.istad.springdatajpa.service.ProductImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+/**
+ * Bulk product creation. Items are validated one by one, so an invalid item is reported
+ * in its result instead of failing the whole request.
+ */
+@Validated
+@RestController
+public class ProductImportController {
+
+    private static final int MAX_BATCH_ITEMS = 10_000;
+
+    private final ProductImportService productImportService;
+    private final ObjectMapper objectMapper;
+    private final Duration importTimeout;
+
+    public ProductImportController(ProductImportService productImportService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.import.request-timeout:30m}") Duration importTimeout) {
+        this.productImportService = productImportService;
+        this.objectMapper = objectMapper;
+        this.importTimeout = importTimeout;
+    }
+
+    @PostMapping(value = "/products:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_ITEMS) List<ProductCreateRequest> requests
+    ) {
+        return ResponseEntity.ok(productImportService.importProducts(requests));
+    }
+
+    // A nightly feed runs for minutes, so the stream carries its own async timeout like the export.
+    @PostMapping(value = "/products:batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> importProductsNdjson(HttpServletRequest request,
+                                                   HttpServletResponse response) throws IOException {
+        InputStream input = request.getInputStream();
+        return new WebAsyncTask<>(importTimeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            OutputStream outputStream = response.getOutputStream();
+            productImportService.importNdjson(input, result -> writeLine(outputStream, result));
+            outputStream.flush();
+            return null;
+        });
+    }
+
+    private void writeLine(OutputStream outputStream, ProductImportResult result) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(result));
+            outputStream.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -1,30 +1,73 @@
 package co.istad.springdatajpa.controller;
 
 import co.istad.springdatajpa.dto.request.AttributeValueRequest;
+import co.istad.springdatajpa.dto.request.StockReservationItemRequest;
+import co.istad.springdatajpa.dto.request.StockReservationRequest;
+import co.istad.springdatajpa.dto.request.VariantInventoryUpdateRequest;
 import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.ProductVariantResponse;
+import co.istad.springdatajpa.dto.response.StockReservationBatchResponse;
+import co.istad.springdatajpa.dto.response.StockReservationResponse;
+import co.istad.springdatajpa.dto.response.VariantInventoryUpdateResponse;
+import co.istad.springdatajpa.service.InventoryService;
 import co.istad.springdatajpa.service.ProductService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import java.util.UUID;
 import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.validation.annotation.Validated;
 
+@Validated
 @RestController
 @RequestMapping("/variants")
 public class VariantController {
 
+    private static final int MAX_INVENTORY_UPDATES = 50_000;
+    private static final int MAX_RESERVATION_ITEMS = 100;
+
     private final ProductService productService;
+    private final InventoryService inventoryService;
 
-    public VariantController(ProductService productService) {
+    public VariantController(ProductService productService, InventoryService inventoryService) {
         this.productService = productService;
+        this.inventoryService = inventoryService;
+    }
+
+    @PatchMapping("/inventory")
+    public ResponseEntity<VariantInventoryUpdateResponse> updateInventory(
+            @RequestBody @NotEmpty @Size(max = MAX_INVENTORY_UPDATES)
+            List<@Valid VariantInventoryUpdateRequest> requests
+    ) {
+        return ResponseEntity.ok(inventoryService.updateInventory(requests));
+    }
+
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<StockReservationResponse> reserveStock(
+            @PathVariable UUID id,
+            @Valid @RequestBody StockReservationRequest request
+    ) {
+        StockReservationResponse response = inventoryService.reserve(id, request.quantity());
+        return ResponseEntity.status(response.reserved() ? HttpStatus.OK : HttpStatus.CONFLICT).body(response);
+    }
+
+    @PostMapping("/reservations")
+    public ResponseEntity<StockReservationBatchResponse> reserveStock(
+            @RequestBody @NotEmpty @Size(max = MAX_RESERVATION_ITEMS)
+            List<@Valid StockReservationItemRequest> requests
+    ) {
+        StockReservationBatchResponse response = inventoryService.reserveAll(requests);
+        return ResponseEntity.status(response.reserved() ? HttpStatus.OK : HttpStatus.CONFLICT).body(response);
     }
 
     @PostMapping("/{id}/attributes")
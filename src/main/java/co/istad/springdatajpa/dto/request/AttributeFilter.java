@@ -0,0 +1,64 @@
+package co.istad.springdatajpa.dto.request;
+
+import co.istad.springdatajpa.exception.BadRequestException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+public record AttributeFilter(
+        UUID attributeId,
+        Operator operator,
+        List<String> values
+) {
+    private static final String RANGE_DELIMITER = "..";
+
+    public enum Operator {
+        EQ,
+        IN,
+        RANGE
+    }
+
+    public static AttributeFilter parse(String raw) {
+        if (raw == null || raw.isBlank()) {
+            throw new BadRequestException("attr must not be blank");
+        }
+        String[] parts = raw.split(":", 3);
+        if (parts.length != 3) {
+            throw new BadRequestException("attr must use the format <attributeId>:<eq|in|range>:<value>");
+        }
+        UUID attributeId;
+        Operator operator;
+        try {
+            attributeId = UUID.fromString(parts[0].trim());
+            operator = Operator.valueOf(parts[1].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("invalid attr filter: " + raw);
+        }
+        String value = parts[2];
+        List<String> values = switch (operator) {
+            case EQ -> List.of(value);
+            case IN -> Arrays.stream(value.split("\\|"))
+                    .filter(item -> !item.isEmpty())
+                    .toList();
+            case RANGE -> parseRange(value, raw);
+        };
+        if (values.isEmpty() || (operator != Operator.RANGE && values.stream().anyMatch(String::isBlank))) {
+            throw new BadRequestException("attr filter requires a value: " + raw);
+        }
+        return new AttributeFilter(attributeId, operator, values);
+    }
+
+    private static List<String> parseRange(String value, String raw) {
+        int index = value.indexOf(RANGE_DELIMITER);
+        if (index < 0) {
+            throw new BadRequestException("range filter must use <min>..<max>: " + raw);
+        }
+        String min = value.substring(0, index).trim();
+        String max = value.substring(index + RANGE_DELIMITER.length()).trim();
+        if (min.isEmpty() && max.isEmpty()) {
+            throw new BadRequestException("range filter requires a bound: " + raw);
+        }
+        return Arrays.asList(min, max);
+    }
+}
@@ -0,0 +1,22 @@
+package co.istad.springdatajpa.dto.request;
+
+import co.istad.springdatajpa.exception.BadRequestException;
+import java.util.Locale;
+
+/**
+ * Selects which slice of a category's products {@code GET /categories/{id}} embeds.
+ */
+public enum CategoryProductsView {
+    NONE,
+    COUNT,
+    PAGE,
+    KEYSET;
+
+    public static CategoryProductsView parse(String raw) {
+        try {
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("products must be one of none, count, page, keyset");
+        }
+    }
+}
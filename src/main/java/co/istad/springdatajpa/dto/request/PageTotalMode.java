@@ -0,0 +1,22 @@
+package co.istad.springdatajpa.dto.request;
+
+import co.istad.springdatajpa.exception.BadRequestException;
+import java.util.Locale;
+
+/**
+ * Selects how an offset listing reports its total: an exact COUNT ({@code Page}),
+ * no total at all, or a planner estimate ({@code Slice} in both cases).
+ */
+public enum PageTotalMode {
+    EXACT,
+    NONE,
+    ESTIMATE;
+
+    public static PageTotalMode parse(String raw) {
+        try {
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("total must be one of exact, none, estimate");
+        }
+    }
+}
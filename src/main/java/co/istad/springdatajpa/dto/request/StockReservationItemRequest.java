@@ -0,0 +1,14 @@
+package co.istad.springdatajpa.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.util.UUID;
+
+public record StockReservationItemRequest(
+        @NotNull
+        UUID variantId,
+        @NotNull
+        @Min(1)
+        Integer quantity
+) {
+}
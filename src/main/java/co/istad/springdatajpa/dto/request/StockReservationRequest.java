@@ -0,0 +1,11 @@
+package co.istad.springdatajpa.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record StockReservationRequest(
+        @NotNull
+        @Min(1)
+        Integer quantity
+) {
+}
@@ -0,0 +1,29 @@
+package co.istad.springdatajpa.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+/**
+ * New stock and/or price for the variant with {@code sku}; a null field is left unchanged.
+ */
+public record VariantInventoryUpdateRequest(
+        @NotBlank
+        @Size(max = 255)
+        String sku,
+        @Min(0)
+        Integer stock,
+        @DecimalMin(value = "0.00", inclusive = false)
+        BigDecimal price
+) {
+
+    @JsonIgnore
+    @AssertTrue(message = "stock or price is required")
+    public boolean isStockOrPricePresent() {
+        return stock != null || price != null;
+    }
+}
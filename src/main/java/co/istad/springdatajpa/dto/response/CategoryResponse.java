@@ -11,8 +11,11 @@ public record CategoryResponse(
         UUID parentId,
         Integer sortOrder,
         List<ProductSummary> products,
+        Long productCount,
+        String productsNextCursor,
         Instant createdAt,
-        Instant updatedAt
+        Instant updatedAt,
+        Long version
 ) {
 }
 
@@ -0,0 +1,13 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record CategoryTreeNode(
+        UUID id,
+        String name,
+        Integer sortOrder,
+        int depth,
+        List<CategoryTreeNode> children
+) {
+}
@@ -5,6 +5,12 @@ import java.util.List;
 public record KeysetResponse<T>(
         List<T> items,
         String nextCursor,
-        boolean hasNext
+        boolean hasNext,
+        String prevCursor,
+        boolean hasPrev
 ) {
+
+    public KeysetResponse(List<T> items, String nextCursor, String prevCursor) {
+        this(items, nextCursor, nextCursor != null, prevCursor, prevCursor != null);
+    }
 }
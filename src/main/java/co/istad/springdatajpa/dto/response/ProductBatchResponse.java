@@ -0,0 +1,10 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record ProductBatchResponse(
+        List<ProductResponse> items,
+        List<UUID> missingIds
+) {
+}
@@ -0,0 +1,34 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record ProductDetailResponse(
+        UUID id,
+        String name,
+        String description,
+        BigDecimal price,
+        BigDecimal effectivePrice,
+        UUID categoryId,
+        CategorySummary category,
+        List<CategorySummary> categories,
+        List<AttributeValueResponse> attributes,
+        List<VariantDetail> variants,
+        Instant createdAt,
+        Instant updatedAt
+) {
+
+    public record VariantDetail(
+            UUID id,
+            String sku,
+            BigDecimal price,
+            BigDecimal effectivePrice,
+            Integer stock,
+            List<AttributeValueResponse> attributes,
+            Instant createdAt,
+            Instant updatedAt
+    ) {
+    }
+}
@@ -0,0 +1,41 @@
+package co.istad.springdatajpa.dto.response;
+
+import co.istad.springdatajpa.entity.AttributeDataType;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public record ProductFacetResponse(
+        List<AttributeFacet> attributes,
+        List<CategoryFacet> categories,
+        List<PriceBucket> priceBuckets
+) {
+
+    public record AttributeFacet(
+            UUID attributeId,
+            String name,
+            AttributeDataType dataType,
+            List<FacetValue> values
+    ) {
+    }
+
+    public record FacetValue(
+            String value,
+            long count
+    ) {
+    }
+
+    public record CategoryFacet(
+            UUID id,
+            String name,
+            long count
+    ) {
+    }
+
+    public record PriceBucket(
+            BigDecimal from,
+            BigDecimal to,
+            long count
+    ) {
+    }
+}
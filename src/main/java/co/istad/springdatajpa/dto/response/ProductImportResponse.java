@@ -0,0 +1,25 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+
+public record ProductImportResponse(
+        int created,
+        int rejected,
+        int failed,
+        List<ProductImportResult> items
+) {
+
+    public static ProductImportResponse of(List<ProductImportResult> items) {
+        int created = 0;
+        int rejected = 0;
+        int failed = 0;
+        for (ProductImportResult item : items) {
+            switch (item.status()) {
+                case CREATED -> created++;
+                case REJECTED -> rejected++;
+                case FAILED -> failed++;
+            }
+        }
+        return new ProductImportResponse(created, rejected, failed, items);
+    }
+}
@@ -0,0 +1,28 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of one item of a product import. {@code index} is the item's zero-based
+ * position in the request: the array element, or the non-blank line of an NDJSON body.
+ */
+public record ProductImportResult(
+        int index,
+        ProductImportStatus status,
+        UUID id,
+        List<String> errors
+) {
+
+    public static ProductImportResult created(int index, UUID id) {
+        return new ProductImportResult(index, ProductImportStatus.CREATED, id, List.of());
+    }
+
+    public static ProductImportResult rejected(int index, List<String> errors) {
+        return new ProductImportResult(index, ProductImportStatus.REJECTED, null, errors);
+    }
+
+    public static ProductImportResult failed(int index, String error) {
+        return new ProductImportResult(index, ProductImportStatus.FAILED, null, List.of(error));
+    }
+}
@@ -0,0 +1,7 @@
+package co.istad.springdatajpa.dto.response;
+
+public enum ProductImportStatus {
+    CREATED,
+    REJECTED,
+    FAILED
+}
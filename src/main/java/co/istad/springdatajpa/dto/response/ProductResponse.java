@@ -1,5 +1,6 @@
 package co.istad.springdatajpa.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
@@ -13,7 +14,11 @@ public record ProductResponse(
         UUID categoryId,
         CategorySummary category,
         Instant createdAt,
-        Instant updatedAt
+        Instant updatedAt,
+        Long version,
+        // Not serialized: only feeds the ETag, because the body embeds the category's name.
+        @JsonIgnore
+        Long categoryVersion
 ) {
 }
 
@@ -0,0 +1,11 @@
+package co.istad.springdatajpa.dto.response;
+
+/**
+ * The versions a product's entity tag is built from: the product row and the category
+ * whose summary {@link ProductResponse} embeds ({@code null} without a category).
+ */
+public record ProductVersions(
+        long version,
+        Long categoryVersion
+) {
+}
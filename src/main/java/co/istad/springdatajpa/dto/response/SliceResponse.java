@@ -0,0 +1,25 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+import org.springframework.data.domain.Slice;
+
+public record SliceResponse<T>(
+        List<T> content,
+        SliceMetadata page
+) {
+
+    public static <T> SliceResponse<T> of(Slice<T> slice, Long estimatedTotalElements) {
+        return new SliceResponse<>(
+                slice.getContent(),
+                new SliceMetadata(slice.getSize(), slice.getNumber(), slice.hasNext(), estimatedTotalElements)
+        );
+    }
+
+    public record SliceMetadata(
+            int size,
+            int number,
+            boolean hasNext,
+            Long estimatedTotalElements
+    ) {
+    }
+}
@@ -0,0 +1,9 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+
+public record StockReservationBatchResponse(
+        boolean reserved,
+        List<StockReservationResponse> items
+) {
+}
@@ -0,0 +1,19 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.UUID;
+
+/**
+ * {@code stock} is the stock left after the reservation, or the stock that was
+ * available when the reservation was refused; null when the variant does not exist.
+ */
+public record StockReservationResponse(
+        UUID variantId,
+        int quantity,
+        StockReservationStatus status,
+        Integer stock
+) {
+
+    public boolean reserved() {
+        return status == StockReservationStatus.RESERVED;
+    }
+}
@@ -0,0 +1,9 @@
+package co.istad.springdatajpa.dto.response;
+
+public enum StockReservationStatus {
+    RESERVED,
+    OUT_OF_STOCK,
+    NOT_FOUND,
+    /** Reservable, but released because another item of the same batch failed. */
+    ROLLED_BACK
+}
@@ -0,0 +1,9 @@
+package co.istad.springdatajpa.dto.response;
+
+import java.util.List;
+
+public record VariantInventoryUpdateResponse(
+        int updated,
+        List<String> notFoundSkus
+) {
+}
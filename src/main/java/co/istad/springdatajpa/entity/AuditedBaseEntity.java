@@ -5,8 +5,10 @@ import java.time.Instant;
 import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -33,5 +35,12 @@ public abstract class AuditedBaseEntity {
 
     @LastModifiedBy
     private String updatedBy;
+
+    // Optimistic lock and ETag source. The column default only helps ddl-auto=update (dev, local);
+    // prod and staging run validate, so existing tables need the ALTER listed in the README first.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
 
@@ -21,24 +21,33 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UuidGenerator;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Category.CACHE_REGION)
 @Table(
         name = "categories",
         indexes = {
                 @Index(name = "idx_categories_parent_id", columnList = "parent_id"),
-                @Index(name = "idx_categories_parent_id_sort_order", columnList = "parent_id, sort_order")
+                @Index(name = "idx_categories_parent_id_sort_order", columnList = "parent_id, sort_order"),
+                @Index(name = "idx_categories_created_id", columnList = "created_at, id"),
+                @Index(name = "idx_categories_updated_id", columnList = "updated_at, id"),
+                @Index(name = "idx_categories_sort_order_id", columnList = "sort_order, id")
         }
 )
 public class Category extends AuditedBaseEntity {
 
+    public static final String CACHE_REGION = "categories";
+    public static final String CHILDREN_CACHE_REGION = "category-children";
+
     @Id
     @GeneratedValue
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @NotBlank
@@ -59,6 +68,7 @@ public class Category extends AuditedBaseEntity {
     private Integer sortOrder;
 
     @OneToMany(mappedBy = "parent", fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CHILDREN_CACHE_REGION)
     @JsonIgnoreProperties({"parent", "children", "products", "hibernateLazyInitializer", "handler"})
     @Setter(AccessLevel.NONE)
     private List<Category> children = new ArrayList<>();
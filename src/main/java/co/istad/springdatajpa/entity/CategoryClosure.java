@@ -0,0 +1,50 @@
+package co.istad.springdatajpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One row per (ancestor, descendant) pair of the category tree, including the
+ * depth-0 self pair. Rows are written with set-based SQL by the category service;
+ * the foreign keys cascade so deleting a category removes its rows.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(
+        name = "category_closure",
+        indexes = {
+                @Index(name = "idx_category_closure_descendant_depth", columnList = "descendant_id, depth")
+        }
+)
+public class CategoryClosure {
+
+    @EmbeddedId
+    private CategoryClosureId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("ancestorId")
+    @JoinColumn(name = "ancestor_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Category ancestor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("descendantId")
+    @JoinColumn(name = "descendant_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Category descendant;
+
+    @Column(nullable = false)
+    private int depth;
+}
@@ -0,0 +1,50 @@
+package co.istad.springdatajpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class CategoryClosureId implements Serializable {
+
+    @Column(name = "ancestor_id")
+    private UUID ancestorId;
+
+    @Column(name = "descendant_id")
+    private UUID descendantId;
+
+    public CategoryClosureId() {
+    }
+
+    public CategoryClosureId(UUID ancestorId, UUID descendantId) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+    }
+
+    public UUID getAncestorId() {
+        return ancestorId;
+    }
+
+    public UUID getDescendantId() {
+        return descendantId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CategoryClosureId that = (CategoryClosureId) o;
+        return Objects.equals(ancestorId, that.ancestorId) && Objects.equals(descendantId, that.descendantId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ancestorId, descendantId);
+    }
+}
@@ -26,6 +26,8 @@ import java.util.UUID;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UuidGenerator;
 
 @Getter
@@ -37,13 +39,18 @@ import org.hibernate.annotations.UuidGenerator;
         indexes = {
                 @Index(name = "idx_products_primary_category_id", columnList = "primary_category_id"),
                 @Index(name = "idx_products_legacy_category_id", columnList = "category_id"),
-                @Index(name = "idx_products_created_id_desc", columnList = "created_at, id")
+                @Index(name = "idx_products_created_id_desc", columnList = "created_at, id"),
+                @Index(name = "idx_products_updated_id", columnList = "updated_at, id"),
+                @Index(name = "idx_products_name_id", columnList = "pro_name, id"),
+                @Index(name = "idx_products_price_id", columnList = "price, id")
         }
 )
 public class Product extends AuditedBaseEntity {
+    public static final String CATEGORIES_CACHE_REGION = "product-categories";
+
     @Id
     @GeneratedValue
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @NotBlank
@@ -69,6 +76,7 @@ public class Product extends AuditedBaseEntity {
     private Category legacyCategory;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CATEGORIES_CACHE_REGION)
     @JoinTable(
             name = "product_categories",
             joinColumns = @JoinColumn(name = "product_id"),
@@ -108,6 +116,22 @@ public class Product extends AuditedBaseEntity {
         }
     }
 
+    /**
+     * Sets the primary and secondary categories on the owning side only, leaving the
+     * categories' {@code products} collections untouched. Meant for bulk inserts, where the
+     * categories are uninitialized references and loading their product lists would cost a
+     * query each.
+     */
+    public void assignCategories(Category primary, Set<Category> secondary) {
+        this.category = primary;
+        this.legacyCategory = primary;
+        categories.clear();
+        if (primary != null) {
+            categories.add(primary);
+        }
+        categories.addAll(secondary);
+    }
+
     public void addCategory(Category category) {
         if (category == null) {
             return;
@@ -117,6 +141,18 @@ public class Product extends AuditedBaseEntity {
         }
     }
 
+    public void syncCategories(Set<Category> desired) {
+        List<Category> removed = categories.stream()
+                .filter(category -> !desired.contains(category))
+                .toList();
+        for (Category category : removed) {
+            removeCategory(category);
+        }
+        for (Category category : desired) {
+            addCategory(category);
+        }
+    }
+
     public void clearCategories() {
         List<Category> existing = new ArrayList<>(categories);
         for (Category category : existing) {
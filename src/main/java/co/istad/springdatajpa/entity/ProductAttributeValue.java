@@ -22,8 +22,10 @@ import lombok.Setter;
 @Table(
         name = "product_attribute_values",
         indexes = {
-                @Index(name = "idx_product_attribute_values_attribute_id", columnList = "attribute_id"),
-                @Index(name = "idx_product_attribute_values_product_id", columnList = "product_id")
+                @Index(name = "idx_product_attribute_values_product_id", columnList = "product_id"),
+                @Index(name = "idx_pav_attribute_string_product", columnList = "attribute_id, value_string, product_id"),
+                @Index(name = "idx_pav_attribute_number_product", columnList = "attribute_id, value_number, product_id"),
+                @Index(name = "idx_pav_attribute_boolean_product", columnList = "attribute_id, value_boolean, product_id")
         }
 )
 public class ProductAttributeValue {
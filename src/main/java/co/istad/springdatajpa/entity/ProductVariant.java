@@ -32,14 +32,17 @@ import org.hibernate.annotations.UuidGenerator;
         indexes = {
                 @Index(name = "idx_product_variants_product_id", columnList = "product_id"),
                 @Index(name = "uq_product_variants_sku", columnList = "sku", unique = true),
-                @Index(name = "idx_product_variants_product_created_id", columnList = "product_id, created_at, id")
+                @Index(name = "idx_product_variants_product_created_id", columnList = "product_id, created_at, id"),
+                @Index(name = "idx_product_variants_product_updated_id", columnList = "product_id, updated_at, id"),
+                @Index(name = "idx_product_variants_product_price_id", columnList = "product_id, price, id"),
+                @Index(name = "idx_product_variants_product_sku_id", columnList = "product_id, sku, id")
         }
 )
 public class ProductVariant extends AuditedBaseEntity {
 
     @Id
     @GeneratedValue
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
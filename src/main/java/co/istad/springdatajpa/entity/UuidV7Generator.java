@@ -0,0 +1,47 @@
+package co.istad.springdatajpa.entity;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+/**
+ * Time-ordered RFC 9562 version 7 UUIDs: 48 bits of Unix epoch milliseconds, a 12-bit
+ * sequence in {@code rand_a}, then 62 random bits. Consecutive ids from one JVM are
+ * strictly increasing, so new rows land on the right-most leaf of a UUID primary key
+ * instead of a random page. Entities opt in with
+ * {@code @UuidGenerator(algorithm = UuidV7Generator.class)}.
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC_9562 = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_62_BITS = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Milliseconds shifted left by SEQUENCE_BITS, plus the sequence within that millisecond.
+    private static final AtomicLong LAST_TICK = new AtomicLong();
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    public static UUID next() {
+        long tick = nextTick(System.currentTimeMillis());
+        long millis = tick >>> SEQUENCE_BITS;
+        long sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+        long mostSignificant = (millis << 16) | VERSION_7 | sequence;
+        long leastSignificant = VARIANT_RFC_9562 | (RANDOM.nextLong() & RANDOM_62_BITS);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    // More than 4096 ids in one millisecond, or a clock that steps back, borrow from the
+    // next millisecond rather than break ordering; the timestamp catches up once the rate drops.
+    private static long nextTick(long nowMillis) {
+        long now = nowMillis << SEQUENCE_BITS;
+        return LAST_TICK.updateAndGet(last -> Math.max(last + 1, now));
+    }
+}
@@ -22,8 +22,10 @@ import lombok.Setter;
 @Table(
         name = "variant_attribute_values",
         indexes = {
-                @Index(name = "idx_variant_attribute_values_attribute_id", columnList = "attribute_id"),
-                @Index(name = "idx_variant_attribute_values_variant_id", columnList = "variant_id")
+                @Index(name = "idx_variant_attribute_values_variant_id", columnList = "variant_id"),
+                @Index(name = "idx_vav_attribute_string_variant", columnList = "attribute_id, value_string, variant_id"),
+                @Index(name = "idx_vav_attribute_number_variant", columnList = "attribute_id, value_number, variant_id"),
+                @Index(name = "idx_vav_attribute_boolean_variant", columnList = "attribute_id, value_boolean, variant_id")
         }
 )
 public class VariantAttributeValue {
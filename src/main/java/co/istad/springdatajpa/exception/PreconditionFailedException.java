@@ -0,0 +1,7 @@
+package co.istad.springdatajpa.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package co.istad.springdatajpa.initialize;
+
+import co.istad.springdatajpa.service.CategoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-shot job that recomputes {@code category_closure} from {@code categories.parent_id}.
+ * Enable it once with {@code app.catalog.closure-rebuild.enabled=true} for data that
+ * existed before the closure table, or after editing the hierarchy outside the API.
+ */
+@Slf4j
+@Component
+public class CategoryClosureRebuild implements ApplicationRunner {
+
+    private final CategoryService categoryService;
+    private final boolean rebuildEnabled;
+
+    public CategoryClosureRebuild(
+            CategoryService categoryService,
+            @Value("${app.catalog.closure-rebuild.enabled:false}") boolean rebuildEnabled
+    ) {
+        this.categoryService = categoryService;
+        this.rebuildEnabled = rebuildEnabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!rebuildEnabled) {
+            return;
+        }
+        int rows = categoryService.rebuildClosure();
+        log.info("Rebuilt category closure with {} rows", rows);
+    }
+}
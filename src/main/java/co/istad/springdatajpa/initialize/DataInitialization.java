@@ -28,6 +28,7 @@ import co.istad.springdatajpa.repository.ProductVariantRepository;
 import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
 import co.istad.springdatajpa.repository.ProductAttributeValueRepository;
 import co.istad.springdatajpa.repository.VariantAttributeValueRepository;
+import co.istad.springdatajpa.service.CategoryService;
 
 @Component
 @Profile({"dev","local"})
@@ -38,6 +39,7 @@ public class DataInitialization implements ApplicationRunner {
     private final AttributeDefinitionRepository attributeDefinitionRepository;
     private final ProductAttributeValueRepository productAttributeValueRepository;
     private final VariantAttributeValueRepository variantAttributeValueRepository;
+    private final CategoryService categoryService;
     private final boolean seedEnabled;
     private final boolean seedAttributesEnabled;
     private final boolean seedVariantsEnabled;
@@ -51,6 +53,7 @@ public class DataInitialization implements ApplicationRunner {
             AttributeDefinitionRepository attributeDefinitionRepository,
             ProductAttributeValueRepository productAttributeValueRepository,
             VariantAttributeValueRepository variantAttributeValueRepository,
+            CategoryService categoryService,
             @Value("${app.seed.enabled:true}") boolean seedEnabled,
             @Value("${app.seed.attributes.enabled:true}") boolean seedAttributesEnabled,
             @Value("${app.seed.variants.enabled:true}") boolean seedVariantsEnabled,
@@ -62,6 +65,7 @@ public class DataInitialization implements ApplicationRunner {
         this.attributeDefinitionRepository = attributeDefinitionRepository;
         this.productAttributeValueRepository = productAttributeValueRepository;
         this.variantAttributeValueRepository = variantAttributeValueRepository;
+        this.categoryService = categoryService;
         this.seedEnabled = seedEnabled;
         this.seedAttributesEnabled = seedAttributesEnabled;
         this.seedVariantsEnabled = seedVariantsEnabled;
@@ -74,6 +78,8 @@ public class DataInitialization implements ApplicationRunner {
             return;
         }
         Map<String, Category> categories = seedCategories();
+        // Seeding writes parent_id directly, so derive the closure rows from it afterwards.
+        categoryService.rebuildClosure();
         seedProducts(categories);
         seedAttributesAndVariants();
     }
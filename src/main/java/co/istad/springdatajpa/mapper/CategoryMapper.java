@@ -3,6 +3,7 @@ package co.istad.springdatajpa.mapper;
 import co.istad.springdatajpa.dto.request.CategoryCreateRequest;
 import co.istad.springdatajpa.dto.request.CategoryPatchRequest;
 import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.ProductSummary;
 import co.istad.springdatajpa.dto.request.CategoryUpdateRequest;
 import co.istad.springdatajpa.entity.Category;
 import org.mapstruct.BeanMapping;
@@ -11,16 +12,33 @@ import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.ReportingPolicy;
+import java.util.List;
 
-@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = ProductMapper.class)
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface CategoryMapper {
 
+    // Never maps Category.products: initializing that collection loads every product in the category.
     @Mapping(target = "parentId", source = "parent.id")
+    @Mapping(target = "products", expression = "java(java.util.List.of())")
+    @Mapping(target = "productCount", ignore = true)
+    @Mapping(target = "productsNextCursor", ignore = true)
     CategoryResponse toResponse(Category category);
 
-    @Mapping(target = "parentId", source = "parent.id")
-    @Mapping(target = "products", expression = "java(java.util.List.of())")
-    CategoryResponse toResponseWithoutProducts(Category category);
+    @Mapping(target = "id", source = "category.id")
+    @Mapping(target = "name", source = "category.name")
+    @Mapping(target = "description", source = "category.description")
+    @Mapping(target = "parentId", source = "category.parent.id")
+    @Mapping(target = "sortOrder", source = "category.sortOrder")
+    @Mapping(target = "createdAt", source = "category.createdAt")
+    @Mapping(target = "updatedAt", source = "category.updatedAt")
+    @Mapping(target = "version", source = "category.version")
+    @Mapping(target = "products", source = "products")
+    @Mapping(target = "productCount", source = "productCount")
+    @Mapping(target = "productsNextCursor", source = "productsNextCursor")
+    CategoryResponse toResponse(Category category,
+                                List<ProductSummary> products,
+                                Long productCount,
+                                String productsNextCursor);
 
     @Mapping(target = "id", ignore = true)
     Category toEntity(CategoryCreateRequest request);
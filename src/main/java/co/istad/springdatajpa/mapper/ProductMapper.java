@@ -1,16 +1,27 @@
 package co.istad.springdatajpa.mapper;
 
+import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.CategorySummary;
 import co.istad.springdatajpa.dto.request.ProductCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductPatchRequest;
+import co.istad.springdatajpa.dto.response.ProductDetailResponse;
+import co.istad.springdatajpa.dto.response.ProductDetailResponse.VariantDetail;
 import co.istad.springdatajpa.dto.response.ProductResponse;
 import co.istad.springdatajpa.dto.response.ProductSummary;
+import co.istad.springdatajpa.dto.response.ProductVariantResponse;
 import co.istad.springdatajpa.dto.request.ProductUpdateRequest;
+import co.istad.springdatajpa.entity.AttributeDefinition;
 import co.istad.springdatajpa.entity.Category;
 import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductVariant;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
@@ -21,6 +32,7 @@ public interface ProductMapper {
     @Mapping(target = "categoryId", source = "category.id")
     @Mapping(target = "category", source = "category")
     @Mapping(target = "effectivePrice", source = "price")
+    @Mapping(target = "categoryVersion", source = "category.version")
     ProductResponse toResponse(Product product);
 
     @Mapping(target = "id", ignore = true)
@@ -45,5 +57,41 @@ public interface ProductMapper {
     CategorySummary toSummary(Category category);
 
     ProductSummary toSummary(Product product);
+
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "effectivePrice", source = "price")
+    ProductVariantResponse toVariantResponse(ProductVariant variant);
+
+    // The attribute values are loaded by separate queries, so the caller passes them in mapped.
+    @Mapping(target = "categoryId", source = "product.category.id")
+    @Mapping(target = "category", source = "product.category")
+    @Mapping(target = "categories", source = "product.categories", qualifiedByName = "sortedByName")
+    @Mapping(target = "effectivePrice", source = "product.price")
+    @Mapping(target = "attributes", source = "attributes")
+    @Mapping(target = "variants", source = "variants")
+    ProductDetailResponse toDetailResponse(Product product,
+                                           List<AttributeValueResponse> attributes,
+                                           List<VariantDetail> variants);
+
+    @Mapping(target = "effectivePrice", source = "variant.price")
+    @Mapping(target = "attributes", source = "attributes")
+    VariantDetail toVariantDetail(ProductVariant variant, List<AttributeValueResponse> attributes);
+
+    @Named("sortedByName")
+    default List<CategorySummary> toSortedSummaries(Collection<Category> categories) {
+        return categories.stream()
+                .sorted(Comparator.comparing(Category::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(this::toSummary)
+                .toList();
+    }
+
+    // Product and variant attribute values share this shape; the caller passes the typed columns.
+    @Mapping(target = "attributeId", source = "definition.id")
+    @Mapping(target = "dataType", source = "definition.dataType")
+    @Mapping(target = "scope", source = "definition.scope")
+    AttributeValueResponse toAttributeResponse(AttributeDefinition definition,
+                                               String valueString,
+                                               BigDecimal valueNumber,
+                                               Boolean valueBoolean);
 }
 
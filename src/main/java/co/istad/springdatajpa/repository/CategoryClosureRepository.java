@@ -0,0 +1,92 @@
+package co.istad.springdatajpa.repository;
+
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.CategoryClosure;
+import co.istad.springdatajpa.entity.CategoryClosureId;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosureId> {
+
+    // Native writes name the one table they touch; without it Hibernate evicts every
+    // second-level cache region after each of them.
+    String CLOSURE_TABLE = "category_closure";
+
+    boolean existsByIdAncestorIdAndIdDescendantId(UUID ancestorId, UUID descendantId);
+
+    @Query("""
+            select cc.ancestor
+            from CategoryClosure cc
+            where cc.id.descendantId = :categoryId
+            order by cc.depth desc
+            """)
+    List<Category> findAncestorsRootFirst(@Param("categoryId") UUID categoryId);
+
+    @Query("""
+            select new co.istad.springdatajpa.repository.CategoryClosureRepository$ParentLink(c.id, p.id)
+            from Category c
+            left join c.parent p
+            """)
+    List<ParentLink> findAllParentLinks();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CLOSURE_TABLE))
+    @Query(value = """
+            insert into category_closure (ancestor_id, descendant_id, depth)
+            values (:categoryId, :categoryId, 0)
+            """, nativeQuery = true)
+    void insertSelf(@Param("categoryId") UUID categoryId);
+
+    // Links every ancestor of the parent (itself included) to every node of the moved subtree.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CLOSURE_TABLE))
+    @Query(value = """
+            insert into category_closure (ancestor_id, descendant_id, depth)
+            select supertree.ancestor_id, subtree.descendant_id, supertree.depth + subtree.depth + 1
+            from category_closure supertree
+            cross join category_closure subtree
+            where supertree.descendant_id = :parentId
+              and subtree.ancestor_id = :categoryId
+            """, nativeQuery = true)
+    int attachSubtree(@Param("categoryId") UUID categoryId, @Param("parentId") UUID parentId);
+
+    // Removes the links between the subtree and its former ancestors, keeping links inside the subtree.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CLOSURE_TABLE))
+    @Query(value = """
+            delete from category_closure
+            where descendant_id in (select descendant_id from category_closure where ancestor_id = :categoryId)
+              and ancestor_id not in (select descendant_id from category_closure where ancestor_id = :categoryId)
+            """, nativeQuery = true)
+    int detachSubtree(@Param("categoryId") UUID categoryId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CLOSURE_TABLE))
+    @Query(value = "delete from category_closure", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CLOSURE_TABLE))
+    @Query(value = """
+            insert into category_closure (ancestor_id, descendant_id, depth)
+            with recursive tree(ancestor_id, descendant_id, depth) as (
+                select id, id, 0 from categories
+                union all
+                select tree.ancestor_id, child.id, tree.depth + 1
+                from tree
+                join categories child on child.parent_id = tree.descendant_id
+            )
+            select ancestor_id, descendant_id, depth from tree
+            """, nativeQuery = true)
+    int insertAllFromParents();
+
+    record ParentLink(UUID id, UUID parentId) {
+    }
+}
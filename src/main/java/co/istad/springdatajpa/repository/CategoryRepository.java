@@ -1,8 +1,14 @@
 package co.istad.springdatajpa.repository;
 
 import co.istad.springdatajpa.entity.Category;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.UUID;
 
@@ -11,5 +17,30 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
 
     Optional<Category> findByName(String name);
 
+    Slice<Category> findAllBy(Pageable pageable);
+
+    @Query("""
+            select new co.istad.springdatajpa.repository.CategoryRepository$TreeRow(c.id, p.id, c.name, c.sortOrder)
+            from Category c
+            left join c.parent p
+            """)
+    List<TreeRow> findAllTreeRows();
+
+    @Query("""
+            select c.id
+            from Category c
+            where c.id in :ids
+            """)
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("""
+            select c.version
+            from Category c
+            where c.id = :id
+            """)
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    record TreeRow(UUID id, UUID parentId, String name, Integer sortOrder) {
+    }
 }
 
@@ -0,0 +1,203 @@
+package co.istad.springdatajpa.repository;
+
+import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.util.KeysetCursor;
+import co.istad.springdatajpa.util.KeysetCursorCodec;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seek pagination over any entity with a UUID {@code id}, ordered by one sort property
+ * with the id as tiebreaker. The sort travels inside the cursor, so a cursor keeps
+ * paging the way it was issued. Nulls compare greater than every value, which matches
+ * PostgreSQL's default ordering and lets plain (key, id) indexes serve both directions.
+ */
+@Component
+public class KeysetExecutor {
+
+    private static final String ID = "id";
+    private static final Sort.Order DEFAULT_ORDER = Sort.Order.desc("createdAt");
+    private static final Set<Class<?>> SORTABLE_TYPES = Set.of(
+            String.class,
+            Instant.class,
+            BigDecimal.class,
+            Integer.class,
+            Long.class
+    );
+
+    private final EntityManager entityManager;
+    private final KeysetCursorCodec cursorCodec;
+
+    public KeysetExecutor(EntityManager entityManager, KeysetCursorCodec cursorCodec) {
+        this.entityManager = entityManager;
+        this.cursorCodec = cursorCodec;
+    }
+
+    /**
+     * Reads the page after (or, for a prev cursor, before) {@code cursor}; a blank cursor
+     * starts at the first row of {@code sort}. The sort a cursor carries must be one of
+     * {@code sortProperties}, like the {@code sort} parameter it was issued for.
+     * {@code fetchAttributes} are loaded with the rows through a fetch graph.
+     */
+    public <T> KeysetSlice<T> fetch(Class<T> type,
+                                    Specification<T> specification,
+                                    Sort sort,
+                                    Set<String> sortProperties,
+                                    String cursor,
+                                    int size,
+                                    String... fetchAttributes) {
+        KeysetCursor.Position position = cursor == null || cursor.isBlank() ? null : cursorCodec.decode(cursor);
+        Sort.Order order = sort == null ? DEFAULT_ORDER : sort.stream().findFirst().orElse(DEFAULT_ORDER);
+        String property = position != null ? position.property() : order.getProperty();
+        boolean ascending = position != null ? position.ascending() : order.isAscending();
+        boolean backward = position != null && position.backward();
+        // A page before the boundary is the page after it in the reversed order.
+        boolean scanAscending = ascending != backward;
+        if (!sortProperties.contains(property)) {
+            throw new BadRequestException("unsupported keyset sort property: " + property);
+        }
+        SingularAttribute<? super T, ?> attribute = sortAttribute(type, property);
+
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Path<Object> key = root.get(property);
+        Path<UUID> id = root.get(ID);
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (position != null) {
+            Object value = parseValue(attribute.getJavaType(), position.value());
+            predicates.add(after(cb, key, id, value, position.id(), scanAscending, attribute.isOptional()));
+        }
+        Order keyOrder = scanAscending ? cb.asc(key) : cb.desc(key);
+        if (attribute.isOptional()) {
+            keyOrder = scanAscending ? cb.asc(key, false) : cb.desc(key, true);
+        }
+        query.select(root)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(keyOrder, scanAscending ? cb.asc(id) : cb.desc(id));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query).setMaxResults(size + 1);
+        if (fetchAttributes.length > 0) {
+            EntityGraph<T> graph = entityManager.createEntityGraph(type);
+            graph.addAttributeNodes(fetchAttributes);
+            typedQuery.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph);
+        }
+        List<T> rows = typedQuery.getResultList();
+        boolean more = rows.size() > size;
+        List<T> items = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(items);
+        }
+
+        boolean hasNext = backward || more;
+        boolean hasPrev = backward ? more : position != null;
+        String nextCursor = hasNext && !items.isEmpty()
+                ? encode(items.get(items.size() - 1), property, ascending, false)
+                : null;
+        String prevCursor = hasPrev && !items.isEmpty()
+                ? encode(items.get(0), property, ascending, true)
+                : null;
+        return new KeysetSlice<>(items, nextCursor, prevCursor);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(HibernateCriteriaBuilder cb,
+                                   Path<Object> key,
+                                   Path<UUID> id,
+                                   Object value,
+                                   UUID boundaryId,
+                                   boolean ascending,
+                                   boolean nullable) {
+        Predicate idAfter = ascending ? cb.greaterThan(id, boundaryId) : cb.lessThan(id, boundaryId);
+        if (value == null) {
+            Predicate nullTie = cb.and(cb.isNull(key), idAfter);
+            return ascending ? nullTie : cb.or(cb.isNotNull(key), nullTie);
+        }
+        Path<Comparable> comparableKey = (Path) key;
+        Comparable comparableValue = (Comparable) value;
+        Predicate keyAfter = ascending
+                ? cb.greaterThan(comparableKey, comparableValue)
+                : cb.lessThan(comparableKey, comparableValue);
+        Predicate tie = cb.and(cb.equal(key, value), idAfter);
+        if (nullable && ascending) {
+            return cb.or(keyAfter, tie, cb.isNull(key));
+        }
+        return cb.or(keyAfter, tie);
+    }
+
+    private <T> SingularAttribute<? super T, ?> sortAttribute(Class<T> type, String property) {
+        try {
+            SingularAttribute<? super T, ?> attribute = entityManager.getMetamodel()
+                    .entity(type)
+                    .getSingularAttribute(property);
+            if (attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC
+                    && SORTABLE_TYPES.contains(attribute.getJavaType())) {
+                return attribute;
+            }
+        } catch (IllegalArgumentException ex) {
+            // Unknown attribute; reported below.
+        }
+        throw new BadRequestException("unsupported keyset sort property: " + property);
+    }
+
+    // Binary cursors carry typed values; text cursors carry strings that are parsed here.
+    private static Object parseValue(Class<?> type, Object cursorValue) {
+        if (cursorValue == null) {
+            return null;
+        }
+        if (!(cursorValue instanceof String value)) {
+            if (!type.isInstance(cursorValue)) {
+                throw new BadRequestException("invalid cursor format");
+            }
+            return cursorValue instanceof Instant instant ? KeysetCursor.normalize(instant) : cursorValue;
+        }
+        try {
+            if (type == Instant.class) {
+                return KeysetCursor.normalize(Instant.parse(value));
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            }
+            if (type == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == Long.class) {
+                return Long.valueOf(value);
+            }
+            return value;
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new BadRequestException("invalid cursor format");
+        }
+    }
+
+    private String encode(Object entity, String property, boolean ascending, boolean backward) {
+        return cursorCodec.encode(KeysetCursor.boundary(entity, property, ascending, backward));
+    }
+}
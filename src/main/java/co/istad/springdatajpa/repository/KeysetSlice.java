@@ -0,0 +1,18 @@
+package co.istad.springdatajpa.repository;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record KeysetSlice<T>(
+        List<T> items,
+        String nextCursor,
+        String prevCursor
+) {
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream()
+                .<R>map(mapper)
+                .toList();
+        return new KeysetSlice<>(mapped, nextCursor, prevCursor);
+    }
+}
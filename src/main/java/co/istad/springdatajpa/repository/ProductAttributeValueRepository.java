@@ -4,8 +4,12 @@ import co.istad.springdatajpa.entity.ProductAttributeValue;
 import co.istad.springdatajpa.entity.ProductAttributeValueId;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface ProductAttributeValueRepository extends JpaRepository<ProductAttributeValue, ProductAttributeValueId> {
     List<ProductAttributeValue> findAllByProductId(UUID productId);
+
+    @EntityGraph(attributePaths = "attribute")
+    List<ProductAttributeValue> findAllWithAttributeByProductId(UUID productId);
 }
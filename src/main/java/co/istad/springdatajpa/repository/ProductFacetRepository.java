@@ -0,0 +1,41 @@
+package co.istad.springdatajpa.repository;
+
+import co.istad.springdatajpa.entity.Product;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ProductFacetRepository {
+
+    List<AttributeValueCount> countProductAttributeValues(Specification<Product> specification,
+                                                          Collection<UUID> attributeIds);
+
+    List<AttributeValueCount> countVariantAttributeValues(Specification<Product> specification,
+                                                          Collection<UUID> attributeIds);
+
+    /**
+     * Products matching {@code specification} per child of {@code parentId} (root categories
+     * when {@code null}). A child counts every product anywhere in its subtree, once.
+     */
+    List<CategoryCount> countChildCategories(Specification<Product> specification, UUID parentId);
+
+    List<Long> countPriceBuckets(Specification<Product> specification, List<BigDecimal> priceBreaks);
+
+    record AttributeValueCount(
+            UUID attributeId,
+            String valueString,
+            BigDecimal valueNumber,
+            Boolean valueBoolean,
+            long count
+    ) {
+    }
+
+    record CategoryCount(
+            UUID categoryId,
+            String name,
+            long count
+    ) {
+    }
+}
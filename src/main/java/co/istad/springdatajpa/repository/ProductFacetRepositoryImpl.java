@@ -0,0 +1,188 @@
+package co.istad.springdatajpa.repository;
+
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.CategoryClosure;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductAttributeValue;
+import co.istad.springdatajpa.entity.ProductVariant;
+import co.istad.springdatajpa.entity.VariantAttributeValue;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.domain.Specification;
+
+class ProductFacetRepositoryImpl implements ProductFacetRepository {
+
+    private final EntityManager entityManager;
+
+    ProductFacetRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<AttributeValueCount> countProductAttributeValues(Specification<Product> specification,
+                                                                 Collection<UUID> attributeIds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, ProductAttributeValue> value = root.join("attributeValues");
+        List<Expression<?>> groupBy = valueColumns(value);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(groupBy.get(0).in(attributeIds));
+        addSpecification(specification, root, query, cb, predicates);
+        query.multiselect(groupBy.get(0), groupBy.get(1), groupBy.get(2), groupBy.get(3), cb.count(root))
+                .where(predicates.toArray(Predicate[]::new))
+                .groupBy(groupBy);
+        return toAttributeValueCounts(entityManager.createQuery(query).getResultList());
+    }
+
+    @Override
+    public List<AttributeValueCount> countVariantAttributeValues(Specification<Product> specification,
+                                                                 Collection<UUID> attributeIds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, ProductVariant> variant = root.join("variants");
+        Join<ProductVariant, VariantAttributeValue> value = variant.join("attributeValues");
+        List<Expression<?>> groupBy = valueColumns(value);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(groupBy.get(0).in(attributeIds));
+        predicates.add(cb.not(cb.exists(sameProductLevelValue(root, value, query, cb))));
+        addSpecification(specification, root, query, cb, predicates);
+        query.multiselect(groupBy.get(0), groupBy.get(1), groupBy.get(2), groupBy.get(3), cb.countDistinct(root))
+                .where(predicates.toArray(Predicate[]::new))
+                .groupBy(groupBy);
+        return toAttributeValueCounts(entityManager.createQuery(query).getResultList());
+    }
+
+    @Override
+    public List<CategoryCount> countChildCategories(Specification<Product> specification, UUID parentId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("categories");
+        // Each membership row reaches every ancestor through category_closure, so a
+        // child facet is matched on ancestor_id and counts its whole subtree.
+        Root<CategoryClosure> closure = query.from(CategoryClosure.class);
+        Root<Category> child = query.from(Category.class);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(closure.get("id").get("descendantId"), category.get("id")));
+        predicates.add(cb.equal(closure.get("id").get("ancestorId"), child.get("id")));
+        predicates.add(parentId == null
+                ? cb.isNull(child.get("parent"))
+                : cb.equal(child.get("parent").get("id"), parentId));
+        addSpecification(specification, root, query, cb, predicates);
+        // A product in two categories of the same subtree still counts once.
+        query.multiselect(child.get("id"), child.get("name"), cb.countDistinct(root))
+                .where(predicates.toArray(Predicate[]::new))
+                .groupBy(child.get("id"), child.get("name"));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> new CategoryCount(row.get(0, UUID.class), row.get(1, String.class), row.get(2, Long.class)))
+                .toList();
+    }
+
+    @Override
+    public List<Long> countPriceBuckets(Specification<Product> specification, List<BigDecimal> priceBreaks) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Path<BigDecimal> price = root.get("price");
+        // Conditional sums keep this a single-row aggregate, so no GROUP BY on a bound CASE expression is needed.
+        List<Selection<?>> buckets = new ArrayList<>(priceBreaks.size() + 1);
+        BigDecimal lower = null;
+        for (BigDecimal upper : priceBreaks) {
+            buckets.add(cb.sum(cb.<Long>selectCase()
+                    .when(bucketPredicate(cb, price, lower, upper), 1L)
+                    .otherwise(0L)));
+            lower = upper;
+        }
+        buckets.add(cb.sum(cb.<Long>selectCase()
+                .when(bucketPredicate(cb, price, lower, null), 1L)
+                .otherwise(0L)));
+        List<Predicate> predicates = new ArrayList<>();
+        addSpecification(specification, root, query, cb, predicates);
+        query.multiselect(buckets).where(predicates.toArray(Predicate[]::new));
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        List<Long> counts = new ArrayList<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            Number count = row.get(i, Number.class);
+            counts.add(count == null ? 0L : count.longValue());
+        }
+        return counts;
+    }
+
+    private Predicate bucketPredicate(CriteriaBuilder cb, Path<BigDecimal> price, BigDecimal lower, BigDecimal upper) {
+        if (lower == null) {
+            return cb.lessThan(price, upper);
+        }
+        if (upper == null) {
+            return cb.greaterThanOrEqualTo(price, lower);
+        }
+        return cb.and(cb.greaterThanOrEqualTo(price, lower), cb.lessThan(price, upper));
+    }
+
+    // Excludes variant rows already counted at product level so BOTH-scoped attributes count each product once.
+    private Subquery<UUID> sameProductLevelValue(Root<Product> root,
+                                                 Join<ProductVariant, VariantAttributeValue> variantValue,
+                                                 CriteriaQuery<Tuple> query,
+                                                 CriteriaBuilder cb) {
+        Subquery<UUID> subquery = query.subquery(UUID.class);
+        Root<ProductAttributeValue> productValue = subquery.from(ProductAttributeValue.class);
+        subquery.select(productValue.get("id").get("productId"))
+                .where(
+                        cb.equal(productValue.get("id").get("productId"), root.get("id")),
+                        cb.equal(productValue.get("id").get("attributeId"), variantValue.get("id").get("attributeId")),
+                        cb.or(
+                                cb.equal(productValue.get("valueString"), variantValue.get("valueString")),
+                                cb.equal(productValue.get("valueNumber"), variantValue.get("valueNumber")),
+                                cb.equal(productValue.get("valueBoolean"), variantValue.get("valueBoolean"))
+                        )
+                );
+        return subquery;
+    }
+
+    private List<Expression<?>> valueColumns(Path<?> value) {
+        return List.of(
+                value.get("id").get("attributeId"),
+                value.get("valueString"),
+                value.get("valueNumber"),
+                value.get("valueBoolean")
+        );
+    }
+
+    private void addSpecification(Specification<Product> specification,
+                                  Root<Product> root,
+                                  CriteriaQuery<Tuple> query,
+                                  CriteriaBuilder cb,
+                                  List<Predicate> predicates) {
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+    }
+
+    private List<AttributeValueCount> toAttributeValueCounts(List<Tuple> rows) {
+        return rows.stream()
+                .map(row -> new AttributeValueCount(
+                        row.get(0, UUID.class),
+                        row.get(1, String.class),
+                        row.get(2, BigDecimal.class),
+                        row.get(3, Boolean.class),
+                        row.get(4, Long.class)
+                ))
+                .toList();
+    }
+}
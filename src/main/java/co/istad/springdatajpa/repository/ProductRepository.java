@@ -1,70 +1,88 @@
 package co.istad.springdatajpa.repository;
 
+import co.istad.springdatajpa.dto.response.ProductVersions;
 import co.istad.springdatajpa.entity.Product;
+import jakarta.persistence.QueryHint;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+public interface ProductRepository extends JpaRepository<Product, UUID>,
+        JpaSpecificationExecutor<Product>,
+        ProductFacetRepository {
+    String EXPORT_FETCH_SIZE = "500";
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
     @EntityGraph(attributePaths = "category")
     Page<Product> findAll(Pageable pageable);
 
     @EntityGraph(attributePaths = "category")
+    List<Product> findAllByIdIn(Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = {"category", "categories"})
+    Optional<Product> findDetailById(UUID id);
+
     @Query("""
-            select distinct p
+            select new co.istad.springdatajpa.dto.response.ProductVersions(p.version, c.version)
             from Product p
-            join p.categories c
-            where c.id = :categoryId
+            left join p.category c
+            where p.id = :id
             """)
-    Page<Product> findAllByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
+    Optional<ProductVersions> findVersionsById(@Param("id") UUID id);
 
     @EntityGraph(attributePaths = "category")
     @Query("""
-            select p
+            select distinct p
             from Product p
-            order by p.createdAt desc, p.id desc
+            join p.categories c
+            where c.id = :categoryId
             """)
-    List<Product> findKeysetFirstPageNoCategory(Pageable pageable);
+    Page<Product> findAllByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
 
-    @EntityGraph(attributePaths = "category")
     @Query("""
-            select p
+            select count(distinct p)
             from Product p
-            where (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
-            order by p.createdAt desc, p.id desc
+            join p.categories c
+            where c.id = :categoryId
             """)
-    List<Product> findKeysetNextPageNoCategory(@Param("createdAt") Instant createdAt,
-                                               @Param("id") UUID id,
-                                               Pageable pageable);
+    long countByCategoryId(@Param("categoryId") UUID categoryId);
 
     @EntityGraph(attributePaths = "category")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
-            select distinct p
+            select p
             from Product p
-            join p.categories c
-            where c.id = :categoryId
-            order by p.createdAt desc, p.id desc
+            where p.updatedAt >= :updatedSince
             """)
-    List<Product> findKeysetFirstPageByCategory(@Param("categoryId") UUID categoryId, Pageable pageable);
+    Stream<Product> streamForExport(@Param("updatedSince") Instant updatedSince);
 
     @EntityGraph(attributePaths = "category")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
-            select distinct p
+            select p
             from Product p
             join p.categories c
             where c.id = :categoryId
-              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
-            order by p.createdAt desc, p.id desc
+              and p.updatedAt >= :updatedSince
             """)
-    List<Product> findKeysetNextPageByCategory(@Param("categoryId") UUID categoryId,
-                                               @Param("createdAt") Instant createdAt,
-                                               @Param("id") UUID id,
-                                               Pageable pageable);
+    Stream<Product> streamForExportByCategory(@Param("categoryId") UUID categoryId,
+                                              @Param("updatedSince") Instant updatedSince);
 }
 
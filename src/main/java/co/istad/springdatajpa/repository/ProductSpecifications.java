@@ -0,0 +1,122 @@
+package co.istad.springdatajpa.repository;
+
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.AttributeScope;
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.CategoryClosure;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductAttributeValue;
+import co.istad.springdatajpa.entity.ProductVariant;
+import co.istad.springdatajpa.entity.VariantAttributeValue;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> inCategory(UUID categoryId) {
+        return (root, query, cb) -> {
+            Subquery<UUID> subquery = query.subquery(UUID.class);
+            Root<Product> product = subquery.correlate(root);
+            Join<Product, Category> category = product.join("categories");
+            subquery.select(category.get("id"))
+                    .where(cb.equal(category.get("id"), categoryId));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<Product> inCategorySubtree(UUID rootCategoryId) {
+        return (root, query, cb) -> {
+            Subquery<UUID> subquery = query.subquery(UUID.class);
+            Root<Product> product = subquery.correlate(root);
+            Join<Product, Category> category = product.join("categories");
+            Root<CategoryClosure> closure = subquery.from(CategoryClosure.class);
+            subquery.select(category.get("id"))
+                    .where(
+                            cb.equal(closure.get("id").get("ancestorId"), rootCategoryId),
+                            cb.equal(closure.get("id").get("descendantId"), category.get("id"))
+                    );
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<Product> attributeEquals(AttributeDefinition attribute, Object value) {
+        String column = valueColumn(attribute);
+        return attributeMatches(attribute, (path, cb) -> cb.equal(path.get(column), value));
+    }
+
+    public static Specification<Product> attributeIn(AttributeDefinition attribute, Collection<?> values) {
+        String column = valueColumn(attribute);
+        return attributeMatches(attribute, (path, cb) -> path.get(column).in(values));
+    }
+
+    public static Specification<Product> attributeBetween(AttributeDefinition attribute, BigDecimal min, BigDecimal max) {
+        return attributeMatches(attribute, (path, cb) -> {
+            Path<BigDecimal> number = path.get("valueNumber");
+            if (min == null) {
+                return cb.lessThanOrEqualTo(number, max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(number, min);
+            }
+            return cb.between(number, min, max);
+        });
+    }
+
+    private static Specification<Product> attributeMatches(AttributeDefinition attribute, ValuePredicate valuePredicate) {
+        return (root, query, cb) -> {
+            List<Predicate> alternatives = new ArrayList<>(2);
+            if (attribute.getScope() != AttributeScope.VARIANT) {
+                Subquery<UUID> subquery = query.subquery(UUID.class);
+                Root<ProductAttributeValue> value = subquery.from(ProductAttributeValue.class);
+                subquery.select(value.get("id").get("productId"))
+                        .where(
+                                cb.equal(value.get("id").get("attributeId"), attribute.getId()),
+                                valuePredicate.toPredicate(value, cb),
+                                cb.equal(value.get("id").get("productId"), root.get("id"))
+                        );
+                alternatives.add(cb.exists(subquery));
+            }
+            if (attribute.getScope() != AttributeScope.PRODUCT) {
+                Subquery<UUID> subquery = query.subquery(UUID.class);
+                Root<VariantAttributeValue> value = subquery.from(VariantAttributeValue.class);
+                Join<VariantAttributeValue, ProductVariant> variant = value.join("variant");
+                subquery.select(variant.get("id"))
+                        .where(
+                                cb.equal(value.get("id").get("attributeId"), attribute.getId()),
+                                valuePredicate.toPredicate(value, cb),
+                                cb.equal(variant.get("product").get("id"), root.get("id"))
+                        );
+                alternatives.add(cb.exists(subquery));
+            }
+            return alternatives.size() == 1
+                    ? alternatives.get(0)
+                    : cb.or(alternatives.toArray(Predicate[]::new));
+        };
+    }
+
+    private static String valueColumn(AttributeDefinition attribute) {
+        return switch (attribute.getDataType()) {
+            case STRING -> "valueString";
+            case NUMBER -> "valueNumber";
+            case BOOLEAN -> "valueBoolean";
+        };
+    }
+
+    @FunctionalInterface
+    private interface ValuePredicate {
+        Predicate toPredicate(Path<?> value, CriteriaBuilder cb);
+    }
+}
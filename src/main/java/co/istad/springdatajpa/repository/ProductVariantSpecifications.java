@@ -0,0 +1,15 @@
+package co.istad.springdatajpa.repository;
+
+import co.istad.springdatajpa.entity.ProductVariant;
+import java.util.UUID;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ProductVariantSpecifications {
+
+    private ProductVariantSpecifications() {
+    }
+
+    public static Specification<ProductVariant> ofProduct(UUID productId) {
+        return (root, query, cb) -> cb.equal(root.get("product").get("id"), productId);
+    }
+}
@@ -0,0 +1,18 @@
+package co.istad.springdatajpa.repository;
+
+import java.util.Set;
+
+/**
+ * Properties each listing may sort on, offset or keyset. Every one is backed by a
+ * {@code (property, id)} index. Controllers check the {@code sort} parameter against
+ * these; {@link KeysetExecutor} checks the sort a cursor carries.
+ */
+public final class SortProperties {
+
+    public static final Set<String> PRODUCT = Set.of("createdAt", "updatedAt", "name", "price");
+    public static final Set<String> VARIANT = Set.of("createdAt", "updatedAt", "sku", "price");
+    public static final Set<String> CATEGORY = Set.of("createdAt", "updatedAt", "name", "sortOrder");
+
+    private SortProperties() {
+    }
+}
@@ -0,0 +1,28 @@
+package co.istad.springdatajpa.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+
+public interface VariantInventoryRepository {
+
+    /**
+     * Applies {@code updates} by SKU with set-based SQL, without loading or dirty-checking
+     * entities, and returns the SKUs that matched a variant. SKUs must be distinct; rows are
+     * written in SKU order regardless of the order of {@code updates}.
+     */
+    Set<String> updateInventoryBySku(Collection<InventoryUpdate> updates, Instant updatedAt, String updatedBy);
+
+    /**
+     * Takes {@code quantity} off the variant's stock in one conditional UPDATE, which only
+     * matches while enough stock is left. Returns the remaining stock, or empty when the
+     * variant does not exist or has less than {@code quantity} in stock.
+     */
+    OptionalInt reserveStock(UUID variantId, int quantity, Instant updatedAt, String updatedBy);
+
+    record InventoryUpdate(String sku, Integer stock, BigDecimal price) {
+    }
+}
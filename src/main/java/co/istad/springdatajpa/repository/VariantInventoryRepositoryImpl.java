@@ -0,0 +1,136 @@
+package co.istad.springdatajpa.repository;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class VariantInventoryRepositoryImpl implements VariantInventoryRepository {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+    // 3 parameters per row keeps a chunk far below PostgreSQL's 65535 bind parameter limit.
+    private static final int VALUES_CHUNK_SIZE = 1000;
+    private static final String VALUES_ROW = "(?, ?::integer, ?::numeric)";
+    // Every statement bumps the @Version column so a concurrent JPA update of the same
+    // variant fails its optimistic lock instead of overwriting these writes.
+    private static final String UPDATE_FROM_VALUES_SQL = """
+            update product_variants v
+            set stock = coalesce(d.stock, v.stock),
+                price = coalesce(d.price, v.price),
+                version = v.version + 1,
+                updated_at = ?,
+                updated_by = ?
+            from (values %s) as d(sku, stock, price)
+            where v.sku = d.sku
+            returning v.sku
+            """;
+    private static final String UPDATE_BY_SKU_SQL = """
+            update product_variants
+            set stock = coalesce(?, stock),
+                price = coalesce(?, price),
+                version = version + 1,
+                updated_at = ?,
+                updated_by = ?
+            where sku = ?
+            """;
+    // Rows are written in SKU order, whatever order the request listed them in, so two
+    // overlapping bulk updates lock shared variants in the same order and cannot deadlock.
+    private static final Comparator<InventoryUpdate> LOCK_ORDER = Comparator.comparing(InventoryUpdate::sku);
+
+    private static final int[] UPDATE_BY_SKU_TYPES = {
+            Types.INTEGER, Types.NUMERIC, Types.TIMESTAMP_WITH_TIMEZONE, Types.VARCHAR, Types.VARCHAR
+    };
+
+    private static final String RESERVE_SET_CLAUSE = """
+            update product_variants
+            set stock = stock - ?,
+                version = version + 1,
+                updated_at = ?,
+                updated_by = ?
+            where id = ? and stock >= ?
+            """;
+    private static final String RESERVE_POSTGRES_SQL = RESERVE_SET_CLAUSE + "returning stock";
+    // H2 has no RETURNING; a data change delta table reads the updated row in the same statement.
+    private static final String RESERVE_FINAL_TABLE_SQL = "select stock from final table (" + RESERVE_SET_CLAUSE + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    VariantInventoryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<String> updateInventoryBySku(Collection<InventoryUpdate> updates, Instant updatedAt, String updatedBy) {
+        OffsetDateTime timestamp = updatedAt.atOffset(ZoneOffset.UTC);
+        List<InventoryUpdate> ordered = updates.stream().sorted(LOCK_ORDER).toList();
+        return isPostgres()
+                ? updateFromValues(ordered, timestamp, updatedBy)
+                : updateInBatches(ordered, timestamp, updatedBy);
+    }
+
+    @Override
+    public OptionalInt reserveStock(UUID variantId, int quantity, Instant updatedAt, String updatedBy) {
+        String sql = isPostgres() ? RESERVE_POSTGRES_SQL : RESERVE_FINAL_TABLE_SQL;
+        List<Integer> remaining = jdbcTemplate.queryForList(sql, Integer.class,
+                quantity, updatedAt.atOffset(ZoneOffset.UTC), updatedBy, variantId, quantity);
+        return remaining.isEmpty() ? OptionalInt.empty() : OptionalInt.of(remaining.get(0));
+    }
+
+    private Set<String> updateFromValues(List<InventoryUpdate> updates, OffsetDateTime updatedAt, String updatedBy) {
+        Set<String> matched = new HashSet<>();
+        Iterator<InventoryUpdate> iterator = updates.iterator();
+        while (iterator.hasNext()) {
+            List<Object> args = new ArrayList<>();
+            args.add(updatedAt);
+            args.add(updatedBy);
+            List<String> rows = new ArrayList<>();
+            while (iterator.hasNext() && rows.size() < VALUES_CHUNK_SIZE) {
+                InventoryUpdate update = iterator.next();
+                rows.add(VALUES_ROW);
+                args.add(update.sku());
+                args.add(update.stock());
+                args.add(update.price());
+            }
+            String sql = UPDATE_FROM_VALUES_SQL.formatted(String.join(", ", rows));
+            matched.addAll(jdbcTemplate.queryForList(sql, String.class, args.toArray()));
+        }
+        return matched;
+    }
+
+    private Set<String> updateInBatches(List<InventoryUpdate> ordered, OffsetDateTime updatedAt, String updatedBy) {
+        List<Object[]> args = new ArrayList<>(ordered.size());
+        for (InventoryUpdate update : ordered) {
+            args.add(new Object[]{update.stock(), update.price(), updatedAt, updatedBy, update.sku()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_BY_SKU_SQL, args, UPDATE_BY_SKU_TYPES);
+        Set<String> matched = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                matched.add(ordered.get(i).sku());
+            }
+        }
+        return matched;
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            detected = POSTGRESQL.equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            postgres = detected;
+        }
+        return detected;
+    }
+}
@@ -2,19 +2,32 @@ package co.istad.springdatajpa.service;
 
 import co.istad.springdatajpa.dto.request.CategoryCreateRequest;
 import co.istad.springdatajpa.dto.request.CategoryPatchRequest;
+import co.istad.springdatajpa.dto.request.CategoryProductsView;
 import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.CategoryTreeNode;
+import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.dto.response.SliceResponse;
 import co.istad.springdatajpa.dto.request.CategoryUpdateRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface CategoryService {
     Page<CategoryResponse> findAll(Pageable pageable);
-    CategoryResponse findById(UUID id);
+    SliceResponse<CategoryResponse> findSlice(Pageable pageable, boolean estimateTotal);
+    KeysetResponse<CategoryResponse> findAllKeyset(Sort sort, String cursor, int size);
+    CategoryResponse findById(UUID id, CategoryProductsView productsView, int page, int size, String cursor);
+    long findVersion(UUID id);
     CategoryResponse create(CategoryCreateRequest request);
-    CategoryResponse update(UUID id, CategoryUpdateRequest request);
-    CategoryResponse patch(UUID id, CategoryPatchRequest request);
-    void delete(UUID id);
+    CategoryResponse update(UUID id, CategoryUpdateRequest request, Long expectedVersion);
+    CategoryResponse patch(UUID id, CategoryPatchRequest request, Long expectedVersion);
+    void delete(UUID id, Long expectedVersion);
+    int rebuildClosure();
+    List<CategoryTreeNode> getTree();
+    List<CategorySummary> getPath(UUID id);
 }
 
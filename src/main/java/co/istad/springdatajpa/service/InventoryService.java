@@ -0,0 +1,17 @@
+package co.istad.springdatajpa.service;
+
+import co.istad.springdatajpa.dto.request.StockReservationItemRequest;
+import co.istad.springdatajpa.dto.request.VariantInventoryUpdateRequest;
+import co.istad.springdatajpa.dto.response.StockReservationBatchResponse;
+import co.istad.springdatajpa.dto.response.StockReservationResponse;
+import co.istad.springdatajpa.dto.response.VariantInventoryUpdateResponse;
+import java.util.List;
+import java.util.UUID;
+
+public interface InventoryService {
+    VariantInventoryUpdateResponse updateInventory(List<VariantInventoryUpdateRequest> requests);
+
+    StockReservationResponse reserve(UUID variantId, int quantity);
+
+    StockReservationBatchResponse reserveAll(List<StockReservationItemRequest> requests);
+}
@@ -0,0 +1,14 @@
+package co.istad.springdatajpa.service;
+
+import co.istad.springdatajpa.dto.request.AttributeFilter;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface ProductFacetService {
+    ProductFacetResponse facets(UUID categoryId,
+                                boolean includeDescendants,
+                                List<AttributeFilter> attributeFilters,
+                                List<BigDecimal> priceBreaks);
+}
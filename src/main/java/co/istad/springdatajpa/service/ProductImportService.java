@@ -0,0 +1,15 @@
+package co.istad.springdatajpa.service;
+
+import co.istad.springdatajpa.dto.request.ProductCreateRequest;
+import co.istad.springdatajpa.dto.response.ProductImportResponse;
+import co.istad.springdatajpa.dto.response.ProductImportResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ProductImportService {
+    ProductImportResponse importProducts(List<ProductCreateRequest> requests);
+
+    void importNdjson(InputStream input, Consumer<ProductImportResult> sink) throws IOException;
+}
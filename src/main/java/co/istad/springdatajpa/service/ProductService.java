@@ -4,24 +4,44 @@ import co.istad.springdatajpa.dto.request.ProductCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductPatchRequest;
 import co.istad.springdatajpa.dto.request.ProductVariantCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductVariantUpdateRequest;
+import co.istad.springdatajpa.dto.request.AttributeFilter;
 import co.istad.springdatajpa.dto.request.AttributeValueRequest;
+import co.istad.springdatajpa.dto.response.ProductBatchResponse;
+import co.istad.springdatajpa.dto.response.ProductDetailResponse;
 import co.istad.springdatajpa.dto.response.ProductResponse;
 import co.istad.springdatajpa.dto.response.ProductVariantResponse;
+import co.istad.springdatajpa.dto.response.ProductVersions;
 import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.dto.response.SliceResponse;
 import co.istad.springdatajpa.dto.request.ProductUpdateRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface ProductService {
     Page<ProductResponse> findAll(Pageable pageable, UUID categoryId);
+    SliceResponse<ProductResponse> findSlice(Pageable pageable,
+                                             UUID categoryId,
+                                             boolean includeDescendants,
+                                             List<AttributeFilter> attributeFilters,
+                                             boolean estimateTotal);
+    Page<ProductResponse> findAll(Pageable pageable,
+                                  UUID categoryId,
+                                  boolean includeDescendants,
+                                  List<AttributeFilter> attributeFilters);
     ProductResponse findById(UUID id);
+    ProductVersions findVersion(UUID id);
+    ProductDetailResponse findDetail(UUID id);
+    ProductBatchResponse findAllByIds(List<UUID> ids);
     ProductResponse create(ProductCreateRequest request);
-    ProductResponse update(UUID id, ProductUpdateRequest request);
-    ProductResponse patch(UUID id, ProductPatchRequest request);
-    void delete(UUID id);
+    ProductResponse update(UUID id, ProductUpdateRequest request, Long expectedVersion);
+    ProductResponse patch(UUID id, ProductPatchRequest request, Long expectedVersion);
+    void delete(UUID id, Long expectedVersion);
 
     ProductVariantResponse createVariant(UUID productId, ProductVariantCreateRequest request);
     ProductVariantResponse updateVariant(UUID productId, UUID variantId, ProductVariantUpdateRequest request);
@@ -33,12 +53,27 @@ public interface ProductService {
     AttributeValueResponse updateVariantAttribute(UUID variantId, UUID attributeId, AttributeValueRequest request);
 
     Page<ProductVariantResponse> listVariants(UUID productId, Pageable pageable);
-    KeysetResponse<ProductVariantResponse> listVariantsKeyset(UUID productId, String cursor, int size);
+    KeysetResponse<ProductVariantResponse> listVariantsKeyset(UUID productId, Sort sort, String cursor, int size);
     ProductVariantResponse getVariant(UUID variantId);
 
     List<AttributeValueResponse> listProductAttributes(UUID productId);
     List<AttributeValueResponse> listVariantAttributes(UUID variantId);
 
-    KeysetResponse<ProductResponse> listProductsKeyset(UUID categoryId, String cursor, int size);
+    KeysetResponse<ProductResponse> listProductsKeyset(UUID categoryId, Sort sort, String cursor, int size);
+    KeysetResponse<ProductResponse> listProductsKeyset(UUID categoryId,
+                                                       boolean includeDescendants,
+                                                       List<AttributeFilter> attributeFilters,
+                                                       Sort sort,
+                                                       String cursor,
+                                                       int size);
+
+    /**
+     * Throws {@link co.istad.springdatajpa.exception.ResourceNotFoundException} when a
+     * {@code categoryId} is given and no such category exists. Call it before the export
+     * response is committed so the client gets a clean 404.
+     */
+    void checkExportCategory(UUID categoryId);
+
+    void exportProducts(UUID categoryId, Instant updatedSince, Consumer<ProductResponse> sink);
 }
 
@@ -2,41 +2,144 @@ package co.istad.springdatajpa.service.impl;
 
 import co.istad.springdatajpa.dto.request.CategoryCreateRequest;
 import co.istad.springdatajpa.dto.request.CategoryPatchRequest;
+import co.istad.springdatajpa.dto.request.CategoryProductsView;
 import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.CategoryTreeNode;
+import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.dto.response.SliceResponse;
+import co.istad.springdatajpa.dto.response.ProductSummary;
 import co.istad.springdatajpa.dto.request.CategoryUpdateRequest;
 import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.Product;
 import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.exception.PreconditionFailedException;
 import co.istad.springdatajpa.exception.ResourceNotFoundException;
 import co.istad.springdatajpa.mapper.CategoryMapper;
+import co.istad.springdatajpa.mapper.ProductMapper;
+import co.istad.springdatajpa.repository.CategoryClosureRepository;
+import co.istad.springdatajpa.repository.CategoryClosureRepository.ParentLink;
 import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.KeysetExecutor;
+import co.istad.springdatajpa.repository.KeysetSlice;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.repository.ProductSpecifications;
+import co.istad.springdatajpa.repository.SortProperties;
 import co.istad.springdatajpa.service.CategoryService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
+@Timed(value = "app.service.invocations", histogram = true)
 @Transactional(readOnly = true)
 public class CategoryServiceImpl implements CategoryService {
 
+    private static final String CATEGORIES_TABLE = "categories";
+    private static final Sort PRODUCT_SLICE_SORT = Sort.by(Sort.Direction.DESC, "createdAt")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
     private final CategoryRepository categoryRepository;
+    private final CategoryClosureRepository categoryClosureRepository;
     private final CategoryMapper categoryMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CategoryTreeIndex categoryTreeIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final KeysetExecutor keysetExecutor;
+    private final RowCountEstimator rowCountEstimator;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository,
+                               CategoryClosureRepository categoryClosureRepository,
+                               CategoryMapper categoryMapper,
+                               EntityManagerFactory entityManagerFactory,
+                               CategoryTreeIndex categoryTreeIndex,
+                               ApplicationEventPublisher eventPublisher,
+                               ProductRepository productRepository,
+                               ProductMapper productMapper,
+                               KeysetExecutor keysetExecutor,
+                               RowCountEstimator rowCountEstimator) {
         this.categoryRepository = categoryRepository;
+        this.categoryClosureRepository = categoryClosureRepository;
         this.categoryMapper = categoryMapper;
+        this.entityManagerFactory = entityManagerFactory;
+        this.categoryTreeIndex = categoryTreeIndex;
+        this.eventPublisher = eventPublisher;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.keysetExecutor = keysetExecutor;
+        this.rowCountEstimator = rowCountEstimator;
     }
 
     @Override
     public Page<CategoryResponse> findAll(Pageable pageable) {
-        return categoryRepository.findAll(pageable).map(categoryMapper::toResponseWithoutProducts);
+        return categoryRepository.findAll(pageable).map(categoryMapper::toResponse);
+    }
+
+    @Override
+    public SliceResponse<CategoryResponse> findSlice(Pageable pageable, boolean estimateTotal) {
+        Slice<CategoryResponse> slice = categoryRepository.findAllBy(pageable).map(categoryMapper::toResponse);
+        Long estimatedTotal = estimateTotal
+                ? rowCountEstimator.estimateTable(CATEGORIES_TABLE, categoryRepository::count)
+                : null;
+        return SliceResponse.of(slice, estimatedTotal);
     }
 
     @Override
-    public CategoryResponse findById(UUID id) {
-        return categoryMapper.toResponse(getCategoryOrThrow(id));
+    public KeysetResponse<CategoryResponse> findAllKeyset(Sort sort, String cursor, int size) {
+        KeysetSlice<CategoryResponse> slice = keysetExecutor.fetch(Category.class, null, sort, SortProperties.CATEGORY, cursor, size)
+                .map(categoryMapper::toResponse);
+        return new KeysetResponse<>(slice.items(), slice.nextCursor(), slice.prevCursor());
+    }
+
+    @Override
+    public CategoryResponse findById(UUID id,
+                                     CategoryProductsView productsView,
+                                     int page,
+                                     int size,
+                                     String cursor) {
+        Category category = getCategoryOrThrow(id);
+        return switch (productsView) {
+            case NONE -> categoryMapper.toResponse(category);
+            case COUNT -> categoryMapper.toResponse(category, List.of(), productRepository.countByCategoryId(id), null);
+            case PAGE -> {
+                Page<Product> products = productRepository.findAllByCategoryId(
+                        id, PageRequest.of(page, size, PRODUCT_SLICE_SORT));
+                yield categoryMapper.toResponse(category, toSummaries(products.getContent()),
+                        products.getTotalElements(), null);
+            }
+            case KEYSET -> {
+                KeysetSlice<Product> slice = keysetExecutor.fetch(
+                        Product.class, ProductSpecifications.inCategory(id), PRODUCT_SLICE_SORT, SortProperties.PRODUCT,
+                        cursor, size);
+                yield categoryMapper.toResponse(category, toSummaries(slice.items()), null, slice.nextCursor());
+            }
+        };
+    }
+
+    @Override
+    public long findVersion(UUID id) {
+        return categoryRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + id));
     }
 
     @Override
@@ -44,33 +147,96 @@ public class CategoryServiceImpl implements CategoryService {
     public CategoryResponse create(CategoryCreateRequest request) {
         Category category = categoryMapper.toEntity(request);
         applyHierarchy(category, request.parentId(), request.sortOrder());
-        Category saved = categoryRepository.save(category);
+        // Flushed so the closure rows can reference the new category row.
+        Category saved = categoryRepository.saveAndFlush(category);
+        categoryClosureRepository.insertSelf(saved.getId());
+        if (saved.getParent() != null) {
+            categoryClosureRepository.attachSubtree(saved.getId(), saved.getParent().getId());
+        }
+        evictChildren(saved.getParent());
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent());
         return categoryMapper.toResponse(saved);
     }
 
     @Override
     @Transactional
-    public CategoryResponse update(UUID id, CategoryUpdateRequest request) {
+    public CategoryResponse update(UUID id, CategoryUpdateRequest request, Long expectedVersion) {
         Category category = getCategoryOrThrow(id);
+        requireVersion(category, expectedVersion);
+        Category previousParent = category.getParent();
         categoryMapper.updateEntity(request, category);
         applyHierarchy(category, request.parentId(), request.sortOrder());
+        moveSubtreeIfReparented(category, previousParent);
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent());
+        // Flushing increments the version, so the response carries the new entity tag.
+        categoryRepository.flush();
         return categoryMapper.toResponse(category);
     }
 
     @Override
     @Transactional
-    public CategoryResponse patch(UUID id, CategoryPatchRequest request) {
+    public CategoryResponse patch(UUID id, CategoryPatchRequest request, Long expectedVersion) {
         Category category = getCategoryOrThrow(id);
+        requireVersion(category, expectedVersion);
+        Category previousParent = category.getParent();
         categoryMapper.patchEntity(request, category);
         applyHierarchy(category, request.parentId(), request.sortOrder());
+        moveSubtreeIfReparented(category, previousParent);
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent());
+        // Flushing increments the version, so the response carries the new entity tag.
+        categoryRepository.flush();
         return categoryMapper.toResponse(category);
     }
 
+    // Closure rows of the deleted category go with it through the ON DELETE CASCADE foreign keys.
     @Override
     @Transactional
-    public void delete(UUID id) {
+    public void delete(UUID id, Long expectedVersion) {
         Category category = getCategoryOrThrow(id);
+        requireVersion(category, expectedVersion);
         categoryRepository.delete(category);
+        evictChildren(category.getParent());
+        evictChildren(category);
+        afterCommit(() -> secondLevelCache().evictCollectionData(Product.class.getName() + ".categories"));
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent());
+    }
+
+    @Override
+    @Transactional
+    public int rebuildClosure() {
+        assertAcyclic(categoryClosureRepository.findAllParentLinks());
+        categoryClosureRepository.deleteAllRows();
+        int rows = categoryClosureRepository.insertAllFromParents();
+        eventPublisher.publishEvent(new CategoryTreeChangedEvent());
+        return rows;
+    }
+
+    // Served from the in-memory snapshot, so no transaction or connection is opened.
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CategoryTreeNode> getTree() {
+        return categoryTreeIndex.roots();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CategorySummary> getPath(UUID id) {
+        return categoryTreeIndex.path(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + id));
+    }
+
+    private List<ProductSummary> toSummaries(List<Product> products) {
+        return products.stream()
+                .map(productMapper::toSummary)
+                .toList();
+    }
+
+    // A concurrent writer that commits after this check still fails the versioned UPDATE at flush.
+    private static void requireVersion(Category category, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(category.getVersion())) {
+            throw new PreconditionFailedException("Category " + category.getId() + " is at version "
+                    + category.getVersion() + ", not " + expectedVersion);
+        }
     }
 
     private Category getCategoryOrThrow(UUID id) {
@@ -78,11 +244,75 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + id));
     }
 
+    private void moveSubtreeIfReparented(Category category, Category previousParent) {
+        Category currentParent = category.getParent();
+        if (previousParent == currentParent) {
+            return;
+        }
+        categoryClosureRepository.detachSubtree(category.getId());
+        if (currentParent != null) {
+            categoryClosureRepository.attachSubtree(category.getId(), currentParent.getId());
+        }
+        evictChildren(previousParent);
+        evictChildren(currentParent);
+    }
+
+    // Walks each parent chain once; a chain that revisits a node on the current path is a cycle.
+    private void assertAcyclic(List<ParentLink> links) {
+        Map<UUID, UUID> parents = new HashMap<>();
+        for (ParentLink link : links) {
+            parents.put(link.id(), link.parentId());
+        }
+        Set<UUID> verified = new HashSet<>();
+        for (UUID start : parents.keySet()) {
+            Set<UUID> path = new HashSet<>();
+            UUID current = start;
+            while (current != null && !verified.contains(current)) {
+                if (!path.add(current)) {
+                    throw new IllegalStateException("Category hierarchy contains a cycle at: " + current);
+                }
+                current = parents.get(current);
+            }
+            verified.addAll(path);
+        }
+    }
+
+    private void evictChildren(Category parent) {
+        if (parent == null || parent.getId() == null) {
+            return;
+        }
+        UUID parentId = parent.getId();
+        afterCommit(() -> secondLevelCache().evictCollectionData(Category.class.getName() + ".children", parentId));
+    }
+
+    // Evicting before commit lets a concurrent reader cache the old rows again before the
+    // new ones are visible, so collection evictions wait until the transaction commits.
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private Cache secondLevelCache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
     private void applyHierarchy(Category category, UUID parentId, Integer sortOrder) {
         if (parentId != null) {
             if (category.getId() != null && category.getId().equals(parentId)) {
                 throw new BadRequestException("parentId must not reference the category itself");
             }
+            if (category.getId() != null
+                    && categoryClosureRepository.existsByIdAncestorIdAndIdDescendantId(category.getId(), parentId)) {
+                throw new BadRequestException("parentId must not reference a descendant of the category");
+            }
             Category parent = categoryRepository.findById(parentId)
                     .orElseThrow(() -> new BadRequestException("Parent category not found: " + parentId));
             category.setParent(parent);
@@ -0,0 +1,7 @@
+package co.istad.springdatajpa.service.impl;
+
+/**
+ * Published by category mutations; the tree index refreshes once the transaction commits.
+ */
+public record CategoryTreeChangedEvent() {
+}
@@ -0,0 +1,227 @@
+package co.istad.springdatajpa.service.impl;
+
+import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.CategoryTreeNode;
+import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.CategoryRepository.TreeRow;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Immutable, array-backed snapshot of the whole category tree. Readers go through a
+ * volatile reference without locks or database access. After a category mutation
+ * commits, a single background thread rebuilds the snapshot and swaps it in; bursts
+ * of changes coalesce into one rebuild.
+ */
+@Slf4j
+@Component
+public class CategoryTreeIndex {
+
+    private final CategoryRepository categoryRepository;
+    private final ExecutorService refreshExecutor;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public CategoryTreeIndex(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "category-tree-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryTreeChanged(CategoryTreeChangedEvent event) {
+        requestRefresh();
+    }
+
+    public void requestRefresh() {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            // Cleared before reading so a commit during the rebuild schedules another one.
+            refreshPending.set(false);
+            try {
+                refresh();
+            } catch (RuntimeException ex) {
+                log.warn("Category tree refresh failed; keeping the previous snapshot", ex);
+            }
+        });
+    }
+
+    public void refresh() {
+        snapshot = Snapshot.build(categoryRepository.findAllTreeRows());
+    }
+
+    public List<CategoryTreeNode> roots() {
+        return snapshot.roots;
+    }
+
+    public Optional<List<CategorySummary>> path(UUID categoryId) {
+        return snapshot.path(categoryId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = build(List.of());
+
+        private static final Comparator<TreeRow> SIBLING_ORDER = Comparator
+                .comparing(TreeRow::sortOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(TreeRow::name, Comparator.nullsLast(Comparator.naturalOrder()));
+
+        private final Map<UUID, Integer> indexById;
+        private final UUID[] ids;
+        private final String[] names;
+        private final int[] parents;
+        private final int[] depths;
+        private final List<CategoryTreeNode> roots;
+
+        private Snapshot(Map<UUID, Integer> indexById,
+                         UUID[] ids,
+                         String[] names,
+                         int[] parents,
+                         int[] depths,
+                         List<CategoryTreeNode> roots) {
+            this.indexById = indexById;
+            this.ids = ids;
+            this.names = names;
+            this.parents = parents;
+            this.depths = depths;
+            this.roots = roots;
+        }
+
+        static Snapshot build(List<TreeRow> rows) {
+            // Sorting once up front means every children range below is already in sibling order.
+            List<TreeRow> sorted = new ArrayList<>(rows);
+            sorted.sort(SIBLING_ORDER);
+            int size = sorted.size();
+            UUID[] ids = new UUID[size];
+            String[] names = new String[size];
+            Integer[] sortOrders = new Integer[size];
+            Map<UUID, Integer> indexById = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                TreeRow row = sorted.get(i);
+                ids[i] = row.id();
+                names[i] = row.name();
+                sortOrders[i] = row.sortOrder();
+                indexById.put(row.id(), i);
+            }
+
+            // Children in compressed-row form: children of i are childIndexes[childStart[i] .. childStart[i + 1]).
+            int[] parents = new int[size];
+            int[] childStart = new int[size + 1];
+            int rootCount = 0;
+            for (int i = 0; i < size; i++) {
+                UUID parentId = sorted.get(i).parentId();
+                Integer parent = parentId == null ? null : indexById.get(parentId);
+                parents[i] = parent == null ? -1 : parent;
+                if (parents[i] < 0) {
+                    rootCount++;
+                } else {
+                    childStart[parents[i] + 1]++;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                childStart[i + 1] += childStart[i];
+            }
+            int[] childIndexes = new int[size - rootCount];
+            int[] rootIndexes = new int[rootCount];
+            int[] fill = Arrays.copyOf(childStart, size);
+            int nextRoot = 0;
+            for (int i = 0; i < size; i++) {
+                if (parents[i] < 0) {
+                    rootIndexes[nextRoot++] = i;
+                } else {
+                    childIndexes[fill[parents[i]]++] = i;
+                }
+            }
+
+            // Breadth-first from the roots; nodes caught in a parent cycle are never reached and stay at -1.
+            int[] depths = new int[size];
+            Arrays.fill(depths, -1);
+            int[] order = new int[size];
+            int head = 0;
+            int tail = 0;
+            for (int root : rootIndexes) {
+                depths[root] = 0;
+                order[tail++] = root;
+            }
+            while (head < tail) {
+                int node = order[head++];
+                for (int c = childStart[node]; c < childStart[node + 1]; c++) {
+                    int child = childIndexes[c];
+                    depths[child] = depths[node] + 1;
+                    order[tail++] = child;
+                }
+            }
+
+            CategoryTreeNode[] nodes = new CategoryTreeNode[size];
+            for (int k = tail - 1; k >= 0; k--) {
+                int node = order[k];
+                List<CategoryTreeNode> children = new ArrayList<>(childStart[node + 1] - childStart[node]);
+                for (int c = childStart[node]; c < childStart[node + 1]; c++) {
+                    children.add(nodes[childIndexes[c]]);
+                }
+                nodes[node] = new CategoryTreeNode(
+                        ids[node],
+                        names[node],
+                        sortOrders[node],
+                        depths[node],
+                        Collections.unmodifiableList(children)
+                );
+            }
+            List<CategoryTreeNode> roots = new ArrayList<>(rootCount);
+            for (int root : rootIndexes) {
+                roots.add(nodes[root]);
+            }
+            return new Snapshot(
+                    Collections.unmodifiableMap(indexById),
+                    ids,
+                    names,
+                    parents,
+                    depths,
+                    Collections.unmodifiableList(roots)
+            );
+        }
+
+        Optional<List<CategorySummary>> path(UUID categoryId) {
+            Integer index = indexById.get(categoryId);
+            if (index == null || depths[index] < 0) {
+                return Optional.empty();
+            }
+            CategorySummary[] path = new CategorySummary[depths[index] + 1];
+            for (int node = index; node >= 0; node = parents[node]) {
+                path[depths[node]] = new CategorySummary(ids[node], names[node]);
+            }
+            return Optional.of(List.of(path));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package co.istad.springdatajpa.service.impl;
+
+import co.istad.springdatajpa.dto.request.StockReservationItemRequest;
+import co.istad.springdatajpa.dto.request.VariantInventoryUpdateRequest;
+import co.istad.springdatajpa.dto.response.StockReservationBatchResponse;
+import co.istad.springdatajpa.dto.response.StockReservationResponse;
+import co.istad.springdatajpa.dto.response.StockReservationStatus;
+import co.istad.springdatajpa.dto.response.VariantInventoryUpdateResponse;
+import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.exception.ResourceNotFoundException;
+import co.istad.springdatajpa.repository.ProductVariantRepository;
+import co.istad.springdatajpa.repository.VariantInventoryRepository.InventoryUpdate;
+import co.istad.springdatajpa.service.InventoryService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private final ProductVariantRepository productVariantRepository;
+    private final AuditorAware<String> auditorAware;
+
+    public InventoryServiceImpl(ProductVariantRepository productVariantRepository,
+                                AuditorAware<String> auditorAware) {
+        this.productVariantRepository = productVariantRepository;
+        this.auditorAware = auditorAware;
+    }
+
+    @Override
+    @Transactional
+    public VariantInventoryUpdateResponse updateInventory(List<VariantInventoryUpdateRequest> requests) {
+        // A SKU listed twice keeps its last values, as if the rows were applied in order.
+        Map<String, InventoryUpdate> updates = new LinkedHashMap<>();
+        for (VariantInventoryUpdateRequest request : requests) {
+            updates.put(request.sku(), new InventoryUpdate(request.sku(), request.stock(), request.price()));
+        }
+        Set<String> matched = productVariantRepository.updateInventoryBySku(
+                updates.values(), Instant.now(), auditorAware.getCurrentAuditor().orElse(null));
+        List<String> notFound = updates.keySet().stream()
+                .filter(sku -> !matched.contains(sku))
+                .toList();
+        return new VariantInventoryUpdateResponse(matched.size(), notFound);
+    }
+
+    @Override
+    @Transactional
+    public StockReservationResponse reserve(UUID variantId, int quantity) {
+        StockReservationResponse response = tryReserve(variantId, quantity);
+        if (response.status() == StockReservationStatus.NOT_FOUND) {
+            throw new ResourceNotFoundException("Variant not found: " + variantId);
+        }
+        return response;
+    }
+
+    /**
+     * Reserves every item or none. Rows are locked in variant id order, so two batches
+     * touching the same variants cannot deadlock; all items are attempted so the response
+     * names every item that could not be reserved.
+     */
+    @Override
+    @Transactional
+    public StockReservationBatchResponse reserveAll(List<StockReservationItemRequest> requests) {
+        Map<UUID, Integer> quantities = new TreeMap<>();
+        for (StockReservationItemRequest request : requests) {
+            try {
+                quantities.merge(request.variantId(), request.quantity(), Math::addExact);
+            } catch (ArithmeticException ex) {
+                throw new BadRequestException("Total quantity for variant " + request.variantId() + " is too large");
+            }
+        }
+        List<StockReservationResponse> items = new ArrayList<>(quantities.size());
+        boolean reserved = true;
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            StockReservationResponse item = tryReserve(entry.getKey(), entry.getValue());
+            reserved &= item.reserved();
+            items.add(item);
+        }
+        if (!reserved) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            items = items.stream()
+                    .map(item -> item.reserved()
+                            ? new StockReservationResponse(item.variantId(), item.quantity(),
+                                    StockReservationStatus.ROLLED_BACK, item.stock() + item.quantity())
+                            : item)
+                    .toList();
+        }
+        return new StockReservationBatchResponse(reserved, items);
+    }
+
+    private StockReservationResponse tryReserve(UUID variantId, int quantity) {
+        OptionalInt remaining = productVariantRepository.reserveStock(
+                variantId, quantity, Instant.now(), auditorAware.getCurrentAuditor().orElse(null));
+        if (remaining.isPresent()) {
+            return new StockReservationResponse(variantId, quantity, StockReservationStatus.RESERVED,
+                    remaining.getAsInt());
+        }
+        // Only a refused reservation pays for the second lookup that explains why.
+        return productVariantRepository.findStockById(variantId)
+                .map(stock -> new StockReservationResponse(variantId, quantity,
+                        StockReservationStatus.OUT_OF_STOCK, stock))
+                .orElseGet(() -> new StockReservationResponse(variantId, quantity,
+                        StockReservationStatus.NOT_FOUND, null));
+    }
+}
@@ -0,0 +1,210 @@
+package co.istad.springdatajpa.service.impl;
+
+import co.istad.springdatajpa.dto.request.AttributeFilter;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse.AttributeFacet;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse.CategoryFacet;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse.FacetValue;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse.PriceBucket;
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
+import co.istad.springdatajpa.repository.ProductFacetRepository.AttributeValueCount;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.service.ProductFacetService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Transactional(readOnly = true)
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    static final List<BigDecimal> DEFAULT_PRICE_BREAKS = Stream.of(50, 100, 250, 500, 1000)
+            .map(BigDecimal::valueOf)
+            .toList();
+    static final int MAX_PRICE_BREAKS = 20;
+
+    private final ProductRepository productRepository;
+    private final AttributeDefinitionRepository attributeDefinitionRepository;
+    private final ProductFilterCompiler productFilterCompiler;
+    private final Cache<FacetKey, ProductFacetResponse> cache;
+
+    public ProductFacetServiceImpl(ProductRepository productRepository,
+                                   AttributeDefinitionRepository attributeDefinitionRepository,
+                                   ProductFilterCompiler productFilterCompiler,
+                                   @Value("${app.facets.cache-ttl:30s}") Duration cacheTtl,
+                                   @Value("${app.facets.cache-max-size:1000}") long cacheMaxSize) {
+        this.productRepository = productRepository;
+        this.attributeDefinitionRepository = attributeDefinitionRepository;
+        this.productFilterCompiler = productFilterCompiler;
+        this.cache = cacheTtl.isZero() || cacheTtl.isNegative()
+                ? null
+                : Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    @Override
+    public ProductFacetResponse facets(UUID categoryId,
+                                       boolean includeDescendants,
+                                       List<AttributeFilter> attributeFilters,
+                                       List<BigDecimal> priceBreaks) {
+        FacetKey key = FacetKey.of(categoryId, includeDescendants, attributeFilters, normalizePriceBreaks(priceBreaks));
+        if (cache == null) {
+            return computeFacets(key);
+        }
+        ProductFacetResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Computed outside Cache#get so a slow query does not hold the cache's per-key lock.
+        ProductFacetResponse response = computeFacets(key);
+        cache.put(key, response);
+        return response;
+    }
+
+    private ProductFacetResponse computeFacets(FacetKey key) {
+        productFilterCompiler.requireCategory(key.categoryId());
+        List<AttributeFilter> attributeFilters = List.copyOf(key.attributeFilters());
+        Specification<Product> attributeSpecification = productFilterCompiler.compile(attributeFilters);
+        Specification<Product> specification = productFilterCompiler.restrictToCategory(
+                key.categoryId(), key.includeDescendants(), attributeSpecification);
+        return new ProductFacetResponse(
+                attributeFacets(specification),
+                productRepository.countChildCategories(attributeSpecification, key.categoryId()).stream()
+                        .map(row -> new CategoryFacet(row.categoryId(), row.name(), row.count()))
+                        .sorted(Comparator.comparingLong(CategoryFacet::count).reversed()
+                                .thenComparing(CategoryFacet::name))
+                        .toList(),
+                priceBuckets(specification, key.priceBreaks())
+        );
+    }
+
+    private List<AttributeFacet> attributeFacets(Specification<Product> specification) {
+        Map<UUID, AttributeDefinition> definitions = attributeDefinitionRepository.findAllByFilterableTrue().stream()
+                .sorted(Comparator.comparing(AttributeDefinition::getName))
+                .collect(Collectors.toMap(
+                        AttributeDefinition::getId,
+                        definition -> definition,
+                        (left, right) -> left,
+                        LinkedHashMap::new
+                ));
+        if (definitions.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Map<String, Long>> counts = new LinkedHashMap<>();
+        Stream.concat(
+                productRepository.countProductAttributeValues(specification, definitions.keySet()).stream(),
+                productRepository.countVariantAttributeValues(specification, definitions.keySet()).stream()
+        ).forEach(row -> counts.computeIfAbsent(row.attributeId(), id -> new LinkedHashMap<>())
+                .merge(facetValue(row), row.count(), Long::sum));
+
+        List<AttributeFacet> facets = new ArrayList<>();
+        for (AttributeDefinition definition : definitions.values()) {
+            Map<String, Long> values = counts.get(definition.getId());
+            if (values == null) {
+                continue;
+            }
+            facets.add(new AttributeFacet(
+                    definition.getId(),
+                    definition.getName(),
+                    definition.getDataType(),
+                    values.entrySet().stream()
+                            .map(entry -> new FacetValue(entry.getKey(), entry.getValue()))
+                            .sorted(Comparator.comparingLong(FacetValue::count).reversed()
+                                    .thenComparing(FacetValue::value))
+                            .toList()
+            ));
+        }
+        return facets;
+    }
+
+    private List<PriceBucket> priceBuckets(Specification<Product> specification, List<BigDecimal> priceBreaks) {
+        List<Long> counts = productRepository.countPriceBuckets(specification, priceBreaks);
+        List<PriceBucket> buckets = new ArrayList<>(counts.size());
+        BigDecimal from = null;
+        for (int i = 0; i < counts.size(); i++) {
+            BigDecimal to = i < priceBreaks.size() ? priceBreaks.get(i) : null;
+            buckets.add(new PriceBucket(from, to, counts.get(i)));
+            from = to;
+        }
+        return buckets;
+    }
+
+    private String facetValue(AttributeValueCount row) {
+        if (row.valueString() != null) {
+            return row.valueString();
+        }
+        if (row.valueNumber() != null) {
+            return row.valueNumber().stripTrailingZeros().toPlainString();
+        }
+        return String.valueOf(row.valueBoolean());
+    }
+
+    private List<BigDecimal> normalizePriceBreaks(List<BigDecimal> priceBreaks) {
+        if (priceBreaks == null || priceBreaks.isEmpty()) {
+            return DEFAULT_PRICE_BREAKS;
+        }
+        if (priceBreaks.size() > MAX_PRICE_BREAKS) {
+            throw new BadRequestException("priceBreaks supports at most " + MAX_PRICE_BREAKS + " values");
+        }
+        List<BigDecimal> normalized = new ArrayList<>(priceBreaks.size());
+        BigDecimal previous = null;
+        for (BigDecimal value : priceBreaks) {
+            if (value.signum() < 0) {
+                throw new BadRequestException("priceBreaks must not be negative");
+            }
+            if (previous != null && value.compareTo(previous) <= 0) {
+                throw new BadRequestException("priceBreaks must be strictly ascending");
+            }
+            normalized.add(value.stripTrailingZeros());
+            previous = value;
+        }
+        return List.copyOf(normalized);
+    }
+
+    // Filters are order-insensitive and IN values are a set, so equivalent requests share one cache entry.
+    record FacetKey(UUID categoryId,
+                    boolean includeDescendants,
+                    Set<AttributeFilter> attributeFilters,
+                    List<BigDecimal> priceBreaks) {
+
+        static FacetKey of(UUID categoryId,
+                           boolean includeDescendants,
+                           List<AttributeFilter> attributeFilters,
+                           List<BigDecimal> priceBreaks) {
+            Set<AttributeFilter> normalized = attributeFilters.stream()
+                    .map(FacetKey::normalize)
+                    .collect(Collectors.toUnmodifiableSet());
+            return new FacetKey(categoryId, includeDescendants, normalized, priceBreaks);
+        }
+
+        private static AttributeFilter normalize(AttributeFilter filter) {
+            if (filter.operator() != AttributeFilter.Operator.IN) {
+                return filter;
+            }
+            return new AttributeFilter(
+                    filter.attributeId(),
+                    filter.operator(),
+                    filter.values().stream().distinct().sorted().toList()
+            );
+        }
+    }
+}
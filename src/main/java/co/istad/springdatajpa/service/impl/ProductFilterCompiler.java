@@ -0,0 +1,141 @@
+package co.istad.springdatajpa.service.impl;
+
+import co.istad.springdatajpa.dto.request.AttributeFilter;
+import co.istad.springdatajpa.entity.AttributeDataType;
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.exception.ResourceNotFoundException;
+import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
+import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.ProductSpecifications;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductFilterCompiler {
+
+    private final CategoryRepository categoryRepository;
+    private final AttributeDefinitionRepository attributeDefinitionRepository;
+
+    public ProductFilterCompiler(CategoryRepository categoryRepository,
+                                 AttributeDefinitionRepository attributeDefinitionRepository) {
+        this.categoryRepository = categoryRepository;
+        this.attributeDefinitionRepository = attributeDefinitionRepository;
+    }
+
+    public Specification<Product> compile(UUID categoryId,
+                                          boolean includeDescendants,
+                                          List<AttributeFilter> attributeFilters) {
+        return restrictToCategory(categoryId, includeDescendants, compile(attributeFilters));
+    }
+
+    public Specification<Product> restrictToCategory(UUID categoryId,
+                                                     boolean includeDescendants,
+                                                     Specification<Product> specification) {
+        if (categoryId == null) {
+            return specification;
+        }
+        Specification<Product> inCategory = includeDescendants
+                ? ProductSpecifications.inCategorySubtree(categoryId)
+                : ProductSpecifications.inCategory(categoryId);
+        return inCategory.and(specification);
+    }
+
+    /**
+     * Compiled specifications do not check that the category exists, so callers can skip the
+     * lookup whenever the filtered query returns rows; call this when it comes back empty.
+     */
+    public void requireCategory(UUID categoryId) {
+        if (categoryId != null && !categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category not found: " + categoryId);
+        }
+    }
+
+    public Specification<Product> compile(List<AttributeFilter> attributeFilters) {
+        List<Specification<Product>> specifications = new ArrayList<>();
+        Map<UUID, AttributeDefinition> definitions = resolveFilterableAttributes(attributeFilters);
+        for (AttributeFilter filter : attributeFilters) {
+            specifications.add(attributeSpecification(definitions.get(filter.attributeId()), filter));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    private Map<UUID, AttributeDefinition> resolveFilterableAttributes(List<AttributeFilter> attributeFilters) {
+        Set<UUID> requested = attributeFilters.stream()
+                .map(AttributeFilter::attributeId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (requested.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, AttributeDefinition> definitions = attributeDefinitionRepository.findAllById(requested).stream()
+                .collect(Collectors.toMap(AttributeDefinition::getId, Function.identity()));
+        for (UUID attributeId : requested) {
+            AttributeDefinition definition = definitions.get(attributeId);
+            if (definition == null) {
+                throw new BadRequestException("Attribute not found: " + attributeId);
+            }
+            if (!definition.isFilterable()) {
+                throw new BadRequestException("Attribute is not filterable: " + attributeId);
+            }
+        }
+        return definitions;
+    }
+
+    private Specification<Product> attributeSpecification(AttributeDefinition definition, AttributeFilter filter) {
+        AttributeDataType dataType = definition.getDataType();
+        return switch (filter.operator()) {
+            case EQ -> ProductSpecifications.attributeEquals(definition, parseFilterValue(dataType, filter.values().get(0)));
+            case IN -> {
+                if (dataType == AttributeDataType.BOOLEAN) {
+                    throw new BadRequestException("in filter is not supported for BOOLEAN attributes");
+                }
+                yield ProductSpecifications.attributeIn(definition, filter.values().stream()
+                        .map(value -> parseFilterValue(dataType, value))
+                        .toList());
+            }
+            case RANGE -> {
+                if (dataType != AttributeDataType.NUMBER) {
+                    throw new BadRequestException("range filter is only supported for NUMBER attributes");
+                }
+                String min = filter.values().get(0);
+                String max = filter.values().get(1);
+                yield ProductSpecifications.attributeBetween(
+                        definition,
+                        min.isEmpty() ? null : parseNumber(min),
+                        max.isEmpty() ? null : parseNumber(max)
+                );
+            }
+        };
+    }
+
+    private Object parseFilterValue(AttributeDataType dataType, String value) {
+        return switch (dataType) {
+            case STRING -> value;
+            case NUMBER -> parseNumber(value);
+            case BOOLEAN -> {
+                if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                    throw new BadRequestException("invalid boolean filter value: " + value);
+                }
+                yield Boolean.parseBoolean(value);
+            }
+        };
+    }
+
+    private BigDecimal parseNumber(String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("invalid number filter value: " + value);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package co.istad.springdatajpa.service.impl;
+
+import co.istad.springdatajpa.dto.request.ProductCreateRequest;
+import co.istad.springdatajpa.dto.response.ProductImportResponse;
+import co.istad.springdatajpa.dto.response.ProductImportResult;
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.mapper.ProductMapper;
+import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.service.ProductImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates products in chunks. Each chunk is validated, has its category ids checked with
+ * one query (ids already seen earlier in the same import are not checked again), and is
+ * inserted in its own transaction so Hibernate can batch the INSERTs. A chunk that fails
+ * to commit is retried item by item to find the rows that cannot be stored.
+ */
+@Slf4j
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private final CategoryRepository categoryRepository;
+    private final ProductMapper productMapper;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    public ProductImportServiceImpl(CategoryRepository categoryRepository,
+                                    ProductMapper productMapper,
+                                    EntityManager entityManager,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.import.chunk-size:500}") int chunkSize) {
+        this.categoryRepository = categoryRepository;
+        this.productMapper = productMapper;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        // Every chunk commits on its own, even when the caller already has a transaction.
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public ProductImportResponse importProducts(List<ProductCreateRequest> requests) {
+        ImportRun run = new ImportRun();
+        List<ProductImportResult> results = new ArrayList<>(requests.size());
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        for (int index = 0; index < requests.size(); index++) {
+            chunk.add(new Item(index, requests.get(index), null));
+            if (chunk.size() == chunkSize) {
+                importChunk(run, chunk, results::add);
+                chunk.clear();
+            }
+        }
+        importChunk(run, chunk, results::add);
+        return ProductImportResponse.of(results);
+    }
+
+    @Override
+    public void importNdjson(InputStream input, Consumer<ProductImportResult> sink) throws IOException {
+        ImportRun run = new ImportRun();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        int index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(parse(index++, line));
+            if (chunk.size() == chunkSize) {
+                importChunk(run, chunk, sink);
+                chunk.clear();
+            }
+        }
+        importChunk(run, chunk, sink);
+    }
+
+    private Item parse(int index, String line) {
+        try {
+            return new Item(index, objectMapper.readValue(line, ProductCreateRequest.class), null);
+        } catch (JsonProcessingException ex) {
+            return new Item(index, null, "malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    private void importChunk(ImportRun run, List<Item> chunk, Consumer<ProductImportResult> sink) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ProductImportResult> results = new ArrayList<>(chunk.size());
+        List<Item> accepted = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            List<String> errors = validate(item);
+            if (errors.isEmpty()) {
+                accepted.add(item);
+            } else {
+                results.add(ProductImportResult.rejected(item.index(), errors));
+            }
+        }
+        run.resolveCategories(accepted);
+
+        List<Item> insertable = new ArrayList<>(accepted.size());
+        for (Item item : accepted) {
+            List<UUID> missing = run.missingCategories(item.request());
+            if (missing.isEmpty()) {
+                insertable.add(item);
+            } else {
+                results.add(ProductImportResult.rejected(item.index(), List.of("Category not found: "
+                        + missing.stream().map(UUID::toString).collect(Collectors.joining(", ")))));
+            }
+        }
+
+        try {
+            results.addAll(insert(insertable));
+        } catch (RuntimeException ex) {
+            log.warn("Import chunk of {} products failed; retrying one by one", insertable.size(), ex);
+            for (Item item : insertable) {
+                try {
+                    results.addAll(insert(List.of(item)));
+                } catch (RuntimeException itemEx) {
+                    results.add(ProductImportResult.failed(item.index(),
+                            NestedExceptionUtils.getMostSpecificCause(itemEx).getMessage()));
+                }
+            }
+        }
+        results.sort((left, right) -> Integer.compare(left.index(), right.index()));
+        results.forEach(sink);
+    }
+
+    private List<ProductImportResult> insert(List<Item> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        return chunkTransaction.execute(status -> {
+            List<ProductImportResult> created = new ArrayList<>(items.size());
+            List<Product> products = new ArrayList<>(items.size());
+            for (Item item : items) {
+                Product product = productMapper.toEntity(item.request());
+                product.assignCategories(reference(item.request().categoryId()), references(item.request().categoryIds()));
+                entityManager.persist(product);
+                products.add(product);
+            }
+            entityManager.flush();
+            for (int i = 0; i < items.size(); i++) {
+                created.add(ProductImportResult.created(items.get(i).index(), products.get(i).getId()));
+            }
+            entityManager.clear();
+            return created;
+        });
+    }
+
+    private List<String> validate(Item item) {
+        if (item.parseError() != null) {
+            return List.of(item.parseError());
+        }
+        if (item.request() == null) {
+            return List.of("item must not be null");
+        }
+        Set<ConstraintViolation<ProductCreateRequest>> violations = validator.validate(item.request());
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    private Category reference(UUID categoryId) {
+        return categoryId == null ? null : entityManager.getReference(Category.class, categoryId);
+    }
+
+    private Set<Category> references(Set<UUID> categoryIds) {
+        if (categoryIds == null) {
+            return Set.of();
+        }
+        Set<Category> references = new LinkedHashSet<>();
+        for (UUID categoryId : categoryIds) {
+            if (categoryId != null) {
+                references.add(reference(categoryId));
+            }
+        }
+        return references;
+    }
+
+    private record Item(int index, ProductCreateRequest request, String parseError) {
+    }
+
+    // Category ids already checked during one import, so each id is looked up at most once.
+    private final class ImportRun {
+
+        private final Set<UUID> existing = new HashSet<>();
+        private final Set<UUID> missing = new HashSet<>();
+
+        void resolveCategories(List<Item> items) {
+            Set<UUID> unknown = new HashSet<>();
+            for (Item item : items) {
+                for (UUID categoryId : categoryIds(item.request())) {
+                    if (!existing.contains(categoryId) && !missing.contains(categoryId)) {
+                        unknown.add(categoryId);
+                    }
+                }
+            }
+            if (unknown.isEmpty()) {
+                return;
+            }
+            List<UUID> found = categoryRepository.findExistingIds(unknown);
+            existing.addAll(found);
+            found.forEach(unknown::remove);
+            missing.addAll(unknown);
+        }
+
+        List<UUID> missingCategories(ProductCreateRequest request) {
+            return categoryIds(request).stream()
+                    .filter(missing::contains)
+                    .toList();
+        }
+
+        private Set<UUID> categoryIds(ProductCreateRequest request) {
+            Set<UUID> ids = new LinkedHashSet<>();
+            if (request.categoryId() != null) {
+                ids.add(request.categoryId());
+            }
+            if (request.categoryIds() != null) {
+                request.categoryIds().stream()
+                        .filter(Objects::nonNull)
+                        .forEach(ids::add);
+            }
+            return ids;
+        }
+    }
+}
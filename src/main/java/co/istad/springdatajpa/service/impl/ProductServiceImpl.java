@@ -1,5 +1,6 @@
 package co.istad.springdatajpa.service.impl;
 
+import co.istad.springdatajpa.dto.request.AttributeFilter;
 import co.istad.springdatajpa.dto.request.AttributeValueRequest;
 import co.istad.springdatajpa.dto.request.ProductCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductPatchRequest;
@@ -8,8 +9,12 @@ import co.istad.springdatajpa.dto.request.ProductVariantCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductVariantUpdateRequest;
 import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.dto.response.ProductBatchResponse;
+import co.istad.springdatajpa.dto.response.ProductDetailResponse;
 import co.istad.springdatajpa.dto.response.ProductResponse;
 import co.istad.springdatajpa.dto.response.ProductVariantResponse;
+import co.istad.springdatajpa.dto.response.ProductVersions;
+import co.istad.springdatajpa.dto.response.SliceResponse;
 import co.istad.springdatajpa.entity.AttributeDefinition;
 import co.istad.springdatajpa.entity.AttributeDataType;
 import co.istad.springdatajpa.entity.AttributeScope;
@@ -21,31 +26,64 @@ import co.istad.springdatajpa.entity.ProductVariant;
 import co.istad.springdatajpa.entity.VariantAttributeValue;
 import co.istad.springdatajpa.entity.VariantAttributeValueId;
 import co.istad.springdatajpa.exception.BadRequestException;
+import co.istad.springdatajpa.exception.PreconditionFailedException;
 import co.istad.springdatajpa.exception.ResourceNotFoundException;
 import co.istad.springdatajpa.mapper.ProductMapper;
 import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
 import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.KeysetExecutor;
+import co.istad.springdatajpa.repository.KeysetSlice;
 import co.istad.springdatajpa.repository.ProductAttributeValueRepository;
 import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.repository.ProductSpecifications;
 import co.istad.springdatajpa.repository.ProductVariantRepository;
+import co.istad.springdatajpa.repository.ProductVariantSpecifications;
+import co.istad.springdatajpa.repository.SortProperties;
 import co.istad.springdatajpa.repository.VariantAttributeValueRepository;
 import co.istad.springdatajpa.service.ProductService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.HashSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import co.istad.springdatajpa.util.KeysetCursor;
-import org.springframework.data.domain.PageRequest;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "app.service.invocations", histogram = true)
 @Transactional(readOnly = true)
 public class ProductServiceImpl implements ProductService {
 
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+    private static final String PRODUCTS_TABLE = "products";
+    private static final String CATEGORY_ROWS_SQL = """
+            select pc.product_id
+            from product_categories pc
+            where pc.category_id = ?
+            """;
+    private static final String SUBTREE_ROWS_SQL = """
+            select distinct pc.product_id
+            from product_categories pc
+            join category_closure cc on cc.descendant_id = pc.category_id
+            where cc.ancestor_id = ?
+            """;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
@@ -53,6 +91,10 @@ public class ProductServiceImpl implements ProductService {
     private final AttributeDefinitionRepository attributeDefinitionRepository;
     private final ProductAttributeValueRepository productAttributeValueRepository;
     private final VariantAttributeValueRepository variantAttributeValueRepository;
+    private final EntityManager entityManager;
+    private final ProductFilterCompiler productFilterCompiler;
+    private final KeysetExecutor keysetExecutor;
+    private final RowCountEstimator rowCountEstimator;
 
     public ProductServiceImpl(ProductRepository productRepository,
                               CategoryRepository categoryRepository,
@@ -60,7 +102,11 @@ public class ProductServiceImpl implements ProductService {
                               ProductVariantRepository productVariantRepository,
                               AttributeDefinitionRepository attributeDefinitionRepository,
                               ProductAttributeValueRepository productAttributeValueRepository,
-                              VariantAttributeValueRepository variantAttributeValueRepository) {
+                              VariantAttributeValueRepository variantAttributeValueRepository,
+                              EntityManager entityManager,
+                              ProductFilterCompiler productFilterCompiler,
+                              KeysetExecutor keysetExecutor,
+                              RowCountEstimator rowCountEstimator) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.productMapper = productMapper;
@@ -68,6 +114,10 @@ public class ProductServiceImpl implements ProductService {
         this.attributeDefinitionRepository = attributeDefinitionRepository;
         this.productAttributeValueRepository = productAttributeValueRepository;
         this.variantAttributeValueRepository = variantAttributeValueRepository;
+        this.entityManager = entityManager;
+        this.productFilterCompiler = productFilterCompiler;
+        this.keysetExecutor = keysetExecutor;
+        this.rowCountEstimator = rowCountEstimator;
     }
 
     @Override
@@ -75,31 +125,116 @@ public class ProductServiceImpl implements ProductService {
         if (categoryId == null) {
             return productRepository.findAll(pageable).map(productMapper::toResponse);
         }
-        if (!categoryRepository.existsById(categoryId)) {
-            throw new ResourceNotFoundException("Category not found: " + categoryId);
+        Page<Product> page = productRepository.findAllByCategoryId(categoryId, pageable);
+        requireParent(page.getContent(), categoryId, categoryRepository::existsById, "Category not found: ");
+        return page.map(productMapper::toResponse);
+    }
+
+    @Override
+    public Page<ProductResponse> findAll(Pageable pageable,
+                                         UUID categoryId,
+                                         boolean includeDescendants,
+                                         List<AttributeFilter> attributeFilters) {
+        Specification<Product> specification =
+                productFilterCompiler.compile(categoryId, includeDescendants, attributeFilters);
+        Page<Product> page = productRepository.findBy(specification, query -> query.project("category").page(pageable));
+        if (page.isEmpty()) {
+            productFilterCompiler.requireCategory(categoryId);
+        }
+        return page.map(productMapper::toResponse);
+    }
+
+    @Override
+    public SliceResponse<ProductResponse> findSlice(Pageable pageable,
+                                                    UUID categoryId,
+                                                    boolean includeDescendants,
+                                                    List<AttributeFilter> attributeFilters,
+                                                    boolean estimateTotal) {
+        Specification<Product> specification =
+                productFilterCompiler.compile(categoryId, includeDescendants, attributeFilters);
+        Slice<Product> rows = productRepository.findBy(specification, query -> query.project("category")
+                .slice(pageable));
+        if (rows.isEmpty()) {
+            productFilterCompiler.requireCategory(categoryId);
+        }
+        Slice<ProductResponse> slice = rows.map(productMapper::toResponse);
+        Long estimatedTotal = estimateTotal
+                ? estimateTotal(categoryId, includeDescendants, attributeFilters, specification)
+                : null;
+        return SliceResponse.of(slice, estimatedTotal);
+    }
+
+    // Planner estimates cover the category scopes; attribute filters fall back to a cached exact count.
+    private long estimateTotal(UUID categoryId,
+                               boolean includeDescendants,
+                               List<AttributeFilter> attributeFilters,
+                               Specification<Product> specification) {
+        LongSupplier exactCount = () -> productRepository.count(specification);
+        if (!attributeFilters.isEmpty()) {
+            CountKey key = new CountKey(categoryId, includeDescendants, Set.copyOf(attributeFilters));
+            return rowCountEstimator.cachedCount(key, exactCount);
+        }
+        if (categoryId == null) {
+            return rowCountEstimator.estimateTable(PRODUCTS_TABLE, exactCount);
         }
-        return productRepository.findAllByCategoryId(categoryId, pageable).map(productMapper::toResponse);
+        CountKey key = new CountKey(categoryId, includeDescendants, Set.of());
+        String sql = includeDescendants ? SUBTREE_ROWS_SQL : CATEGORY_ROWS_SQL;
+        return rowCountEstimator.estimateQuery(key, sql, new Object[]{categoryId}, exactCount);
+    }
+
+    @Override
+    public KeysetResponse<ProductResponse> listProductsKeyset(UUID categoryId, Sort sort, String cursor, int size) {
+        Specification<Product> specification = categoryId == null ? null : ProductSpecifications.inCategory(categoryId);
+        KeysetSlice<Product> slice = keysetExecutor.fetch(
+                Product.class, specification, sort, SortProperties.PRODUCT, cursor, size, "category");
+        requireParent(slice.items(), categoryId, categoryRepository::existsById, "Category not found: ");
+        return toProductKeysetResponse(slice);
     }
 
     @Override
-    public KeysetResponse<ProductResponse> listProductsKeyset(UUID categoryId, String cursor, int size) {
+    public KeysetResponse<ProductResponse> listProductsKeyset(UUID categoryId,
+                                                              boolean includeDescendants,
+                                                              List<AttributeFilter> attributeFilters,
+                                                              Sort sort,
+                                                              String cursor,
+                                                              int size) {
+        Specification<Product> specification =
+                productFilterCompiler.compile(categoryId, includeDescendants, attributeFilters);
+        KeysetSlice<Product> slice = keysetExecutor.fetch(
+                Product.class, specification, sort, SortProperties.PRODUCT, cursor, size, "category");
+        if (slice.items().isEmpty()) {
+            productFilterCompiler.requireCategory(categoryId);
+        }
+        return toProductKeysetResponse(slice);
+    }
+
+    private KeysetResponse<ProductResponse> toProductKeysetResponse(KeysetSlice<Product> slice) {
+        KeysetSlice<ProductResponse> mapped = slice.map(productMapper::toResponse);
+        return new KeysetResponse<>(mapped.items(), mapped.nextCursor(), mapped.prevCursor());
+    }
+
+    @Override
+    public void checkExportCategory(UUID categoryId) {
         if (categoryId != null && !categoryRepository.existsById(categoryId)) {
             throw new ResourceNotFoundException("Category not found: " + categoryId);
         }
-        List<Product> items = fetchProductsKeyset(categoryId, cursor, size + 1);
-        boolean hasNext = items.size() > size;
-        if (hasNext) {
-            items = items.subList(0, size);
-        }
-        String nextCursor = null;
-        if (hasNext && !items.isEmpty()) {
-            Product last = items.get(items.size() - 1);
-            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+    }
+
+    @Override
+    public void exportProducts(UUID categoryId, Instant updatedSince, Consumer<ProductResponse> sink) {
+        Instant since = updatedSince != null ? updatedSince : Instant.EPOCH;
+        try (Stream<Product> products = categoryId == null
+                ? productRepository.streamForExport(since)
+                : productRepository.streamForExportByCategory(categoryId, since)) {
+            Iterator<Product> iterator = products.iterator();
+            int exported = 0;
+            while (iterator.hasNext()) {
+                sink.accept(productMapper.toResponse(iterator.next()));
+                if (++exported % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
         }
-        List<ProductResponse> mapped = items.stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
-        return new KeysetResponse<>(mapped, nextCursor, hasNext);
     }
 
     @Override
@@ -107,6 +242,69 @@ public class ProductServiceImpl implements ProductService {
         return productMapper.toResponse(getProductOrThrow(id));
     }
 
+    @Override
+    public ProductVersions findVersion(UUID id) {
+        return productRepository.findVersionsById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + id));
+    }
+
+    /**
+     * Loads the whole product aggregate in four statements regardless of its size: the
+     * product with its categories, its attribute values, its variants, and the attribute
+     * values of all variants in one IN query.
+     */
+    @Override
+    public ProductDetailResponse findDetail(UUID id) {
+        Product product = productRepository.findDetailById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + id));
+        List<AttributeValueResponse> attributes = productAttributeValueRepository
+                .findAllWithAttributeByProductId(id).stream()
+                .map(value -> productMapper.toAttributeResponse(
+                        value.getAttribute(),
+                        value.getValueString(),
+                        value.getValueNumber(),
+                        value.getValueBoolean()
+                ))
+                .toList();
+        List<ProductVariant> variants = productVariantRepository.findAllByProductIdOrderByCreatedAtDescIdDesc(id);
+        Map<UUID, List<AttributeValueResponse>> variantAttributes = variants.isEmpty()
+                ? Map.of()
+                : variantAttributeValueRepository.findAllWithAttributeByVariantIdIn(
+                                variants.stream().map(ProductVariant::getId).toList()).stream()
+                        .collect(Collectors.groupingBy(
+                                value -> value.getId().getVariantId(),
+                                Collectors.mapping(value -> productMapper.toAttributeResponse(
+                                        value.getAttribute(),
+                                        value.getValueString(),
+                                        value.getValueNumber(),
+                                        value.getValueBoolean()
+                                ), Collectors.toList())
+                        ));
+        List<ProductDetailResponse.VariantDetail> variantDetails = variants.stream()
+                .map(variant -> productMapper.toVariantDetail(
+                        variant, variantAttributes.getOrDefault(variant.getId(), List.of())))
+                .toList();
+        return productMapper.toDetailResponse(product, attributes, variantDetails);
+    }
+
+    @Override
+    public ProductBatchResponse findAllByIds(List<UUID> ids) {
+        Set<UUID> requested = new LinkedHashSet<>(ids);
+        Map<UUID, Product> found = productRepository.findAllByIdIn(requested).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductResponse> items = new ArrayList<>(found.size());
+        List<UUID> missingIds = new ArrayList<>();
+        for (UUID id : requested) {
+            Product product = found.get(id);
+            if (product == null) {
+                missingIds.add(id);
+            } else {
+                items.add(productMapper.toResponse(product));
+            }
+        }
+        return new ProductBatchResponse(items, missingIds);
+    }
+
     @Override
     @Transactional
     public ProductResponse create(ProductCreateRequest request) {
@@ -118,25 +316,31 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    public ProductResponse update(UUID id, ProductUpdateRequest request) {
+    public ProductResponse update(UUID id, ProductUpdateRequest request, Long expectedVersion) {
         Product product = getProductOrThrow(id);
+        requireVersion(product, expectedVersion);
         productMapper.updateEntity(request, product);
         applyCategories(product, request.categoryId(), request.categoryIds());
+        // Flushing increments the version, so the response carries the new entity tag.
+        productRepository.flush();
         return productMapper.toResponse(product);
     }
 
     @Override
     @Transactional
-    public ProductResponse patch(UUID id, ProductPatchRequest request) {
+    public ProductResponse patch(UUID id, ProductPatchRequest request, Long expectedVersion) {
         Product product = getProductOrThrow(id);
+        requireVersion(product, expectedVersion);
         productMapper.patchEntity(request, product);
+        productRepository.flush();
         return productMapper.toResponse(product);
     }
 
     @Override
     @Transactional
-    public void delete(UUID id) {
+    public void delete(UUID id, Long expectedVersion) {
         Product product = getProductOrThrow(id);
+        requireVersion(product, expectedVersion);
         productRepository.delete(product);
     }
 
@@ -150,7 +354,7 @@ public class ProductServiceImpl implements ProductService {
         variant.setPrice(request.price());
         variant.setStock(request.stock());
         ProductVariant saved = productVariantRepository.save(variant);
-        return toVariantResponse(saved);
+        return productMapper.toVariantResponse(saved);
     }
 
     @Override
@@ -163,7 +367,7 @@ public class ProductServiceImpl implements ProductService {
         variant.setSku(request.sku());
         variant.setPrice(request.price());
         variant.setStock(request.stock());
-        return toVariantResponse(variant);
+        return productMapper.toVariantResponse(variant);
     }
 
     @Override
@@ -183,7 +387,8 @@ public class ProductServiceImpl implements ProductService {
         value.setAttribute(definition);
         applyTypedValue(definition, request, value);
         ProductAttributeValue saved = productAttributeValueRepository.save(value);
-        return toAttributeResponse(saved.getAttribute(), saved.getValueString(), saved.getValueNumber(), saved.getValueBoolean());
+        return productMapper.toAttributeResponse(
+                saved.getAttribute(), saved.getValueString(), saved.getValueNumber(), saved.getValueBoolean());
     }
 
     @Override
@@ -198,7 +403,8 @@ public class ProductServiceImpl implements ProductService {
         AttributeDefinition definition = value.getAttribute();
         validateAttribute(definition, request, AttributeScope.PRODUCT);
         applyTypedValue(definition, request, value);
-        return toAttributeResponse(definition, value.getValueString(), value.getValueNumber(), value.getValueBoolean());
+        return productMapper.toAttributeResponse(
+                definition, value.getValueString(), value.getValueNumber(), value.getValueBoolean());
     }
 
     @Override
@@ -218,7 +424,8 @@ public class ProductServiceImpl implements ProductService {
         value.setAttribute(definition);
         applyTypedValue(definition, request, value);
         VariantAttributeValue saved = variantAttributeValueRepository.save(value);
-        return toAttributeResponse(saved.getAttribute(), saved.getValueString(), saved.getValueNumber(), saved.getValueBoolean());
+        return productMapper.toAttributeResponse(
+                saved.getAttribute(), saved.getValueString(), saved.getValueNumber(), saved.getValueBoolean());
     }
 
     @Override
@@ -233,51 +440,39 @@ public class ProductServiceImpl implements ProductService {
         AttributeDefinition definition = value.getAttribute();
         validateAttribute(definition, request, AttributeScope.VARIANT);
         applyTypedValue(definition, request, value);
-        return toAttributeResponse(definition, value.getValueString(), value.getValueNumber(), value.getValueBoolean());
+        return productMapper.toAttributeResponse(
+                definition, value.getValueString(), value.getValueNumber(), value.getValueBoolean());
     }
 
     @Override
     public Page<ProductVariantResponse> listVariants(UUID productId, Pageable pageable) {
-        if (!productRepository.existsById(productId)) {
-            throw new ResourceNotFoundException("Product not found: " + productId);
-        }
-        return productVariantRepository.findAllByProductId(productId, pageable)
-                .map(this::toVariantResponse);
+        Page<ProductVariant> page = productVariantRepository.findAllByProductId(productId, pageable);
+        requireParent(page.getContent(), productId, productRepository::existsById, "Product not found: ");
+        return page.map(productMapper::toVariantResponse);
     }
 
     @Override
-    public KeysetResponse<ProductVariantResponse> listVariantsKeyset(UUID productId, String cursor, int size) {
-        if (!productRepository.existsById(productId)) {
-            throw new ResourceNotFoundException("Product not found: " + productId);
-        }
-        List<ProductVariant> items = fetchVariantsKeyset(productId, cursor, size + 1);
-        boolean hasNext = items.size() > size;
-        if (hasNext) {
-            items = items.subList(0, size);
-        }
-        String nextCursor = null;
-        if (hasNext && !items.isEmpty()) {
-            ProductVariant last = items.get(items.size() - 1);
-            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
-        }
-        List<ProductVariantResponse> mapped = items.stream()
-                .map(this::toVariantResponse)
-                .collect(Collectors.toList());
-        return new KeysetResponse<>(mapped, nextCursor, hasNext);
+    public KeysetResponse<ProductVariantResponse> listVariantsKeyset(UUID productId, Sort sort, String cursor, int size) {
+        KeysetSlice<ProductVariant> rows = keysetExecutor.fetch(
+                ProductVariant.class, ProductVariantSpecifications.ofProduct(productId), sort, SortProperties.VARIANT,
+                cursor, size
+        );
+        requireParent(rows.items(), productId, productRepository::existsById, "Product not found: ");
+        KeysetSlice<ProductVariantResponse> slice = rows.map(productMapper::toVariantResponse);
+        return new KeysetResponse<>(slice.items(), slice.nextCursor(), slice.prevCursor());
     }
 
     @Override
     public ProductVariantResponse getVariant(UUID variantId) {
-        return toVariantResponse(getVariantOrThrow(variantId));
+        return productMapper.toVariantResponse(getVariantOrThrow(variantId));
     }
 
     @Override
     public List<AttributeValueResponse> listProductAttributes(UUID productId) {
-        if (!productRepository.existsById(productId)) {
-            throw new ResourceNotFoundException("Product not found: " + productId);
-        }
-        return productAttributeValueRepository.findAllByProductId(productId).stream()
-                .map(value -> toAttributeResponse(
+        List<ProductAttributeValue> values = productAttributeValueRepository.findAllByProductId(productId);
+        requireParent(values, productId, productRepository::existsById, "Product not found: ");
+        return values.stream()
+                .map(value -> productMapper.toAttributeResponse(
                         value.getAttribute(),
                         value.getValueString(),
                         value.getValueNumber(),
@@ -288,11 +483,10 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<AttributeValueResponse> listVariantAttributes(UUID variantId) {
-        if (!productVariantRepository.existsById(variantId)) {
-            throw new ResourceNotFoundException("Variant not found: " + variantId);
-        }
-        return variantAttributeValueRepository.findAllByVariantId(variantId).stream()
-                .map(value -> toAttributeResponse(
+        List<VariantAttributeValue> values = variantAttributeValueRepository.findAllByVariantId(variantId);
+        requireParent(values, variantId, productVariantRepository::existsById, "Variant not found: ");
+        return values.stream()
+                .map(value -> productMapper.toAttributeResponse(
                         value.getAttribute(),
                         value.getValueString(),
                         value.getValueNumber(),
@@ -301,74 +495,71 @@ public class ProductServiceImpl implements ProductService {
                 .collect(Collectors.toList());
     }
 
+    // Rows prove the parent exists, so it is only looked up to tell a missing parent from an empty list.
+    private static void requireParent(List<?> rows, UUID parentId, Predicate<UUID> exists, String notFoundMessage) {
+        if (rows.isEmpty() && parentId != null && !exists.test(parentId)) {
+            throw new ResourceNotFoundException(notFoundMessage + parentId);
+        }
+    }
+
     private void applyCategories(Product product, UUID primaryCategoryId, Set<UUID> categoryIds) {
+        Map<UUID, Category> resolved = resolveCategories(primaryCategoryId, categoryIds);
         if (primaryCategoryId != null) {
-            Category primary = categoryRepository.findById(primaryCategoryId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + primaryCategoryId));
-            product.setCategory(primary);
+            product.setCategory(resolved.get(primaryCategoryId));
         }
 
         if (categoryIds != null) {
-            Set<Category> resolved = new HashSet<>();
+            Set<Category> desired = new LinkedHashSet<>();
             for (UUID categoryId : categoryIds) {
-                Category category = categoryRepository.findById(categoryId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + categoryId));
-                resolved.add(category);
-            }
-            product.clearCategories();
-            for (Category category : resolved) {
-                product.addCategory(category);
+                desired.add(resolved.get(categoryId));
             }
-            if (product.getCategory() != null && !product.getCategories().contains(product.getCategory())) {
-                product.addCategory(product.getCategory());
+            if (product.getCategory() != null) {
+                desired.add(product.getCategory());
             }
+            product.syncCategories(desired);
         }
     }
 
+    private Map<UUID, Category> resolveCategories(UUID primaryCategoryId, Set<UUID> categoryIds) {
+        Set<UUID> requested = new LinkedHashSet<>();
+        if (primaryCategoryId != null) {
+            requested.add(primaryCategoryId);
+        }
+        if (categoryIds != null) {
+            requested.addAll(categoryIds);
+        }
+        if (requested.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Category> resolved = categoryRepository.findAllById(requested).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        List<UUID> missing = requested.stream()
+                .filter(id -> !resolved.containsKey(id))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Category not found: " + missing.stream()
+                    .map(UUID::toString)
+                    .collect(Collectors.joining(", ")));
+        }
+        return resolved;
+    }
+
     private Product getProductOrThrow(UUID id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + id));
     }
 
-    private ProductVariant getVariantOrThrow(UUID id) {
-        return productVariantRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Variant not found: " + id));
-    }
-
-    private List<Product> fetchProductsKeyset(UUID categoryId, String cursor, int size) {
-        if (cursor == null || cursor.isBlank()) {
-            if (categoryId == null) {
-                return productRepository.findKeysetFirstPageNoCategory(PageRequest.of(0, size));
-            }
-            return productRepository.findKeysetFirstPageByCategory(categoryId, PageRequest.of(0, size));
-        }
-        KeysetCursor.Decoded decoded = KeysetCursor.decode(cursor);
-        if (categoryId == null) {
-            return productRepository.findKeysetNextPageNoCategory(
-                    decoded.createdAt(),
-                    decoded.id(),
-                    PageRequest.of(0, size)
-            );
+    // A concurrent writer that commits after this check still fails the versioned UPDATE at flush.
+    private static void requireVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new PreconditionFailedException("Product " + product.getId() + " is at version "
+                    + product.getVersion() + ", not " + expectedVersion);
         }
-        return productRepository.findKeysetNextPageByCategory(
-                categoryId,
-                decoded.createdAt(),
-                decoded.id(),
-                PageRequest.of(0, size)
-        );
     }
 
-    private List<ProductVariant> fetchVariantsKeyset(UUID productId, String cursor, int size) {
-        if (cursor == null || cursor.isBlank()) {
-            return productVariantRepository.findKeysetFirstPage(productId, PageRequest.of(0, size));
-        }
-        KeysetCursor.Decoded decoded = KeysetCursor.decode(cursor);
-        return productVariantRepository.findKeysetNextPage(
-                productId,
-                decoded.createdAt(),
-                decoded.id(),
-                PageRequest.of(0, size)
-        );
+    private ProductVariant getVariantOrThrow(UUID id) {
+        return productVariantRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Variant not found: " + id));
     }
 
     private AttributeDefinition getAttributeOrThrow(UUID id) {
@@ -435,31 +626,7 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
-    private ProductVariantResponse toVariantResponse(ProductVariant variant) {
-        return new ProductVariantResponse(
-                variant.getId(),
-                variant.getProduct().getId(),
-                variant.getSku(),
-                variant.getPrice(),
-                variant.getPrice(),
-                variant.getStock(),
-                variant.getCreatedAt(),
-                variant.getUpdatedAt()
-        );
-    }
-
-    private AttributeValueResponse toAttributeResponse(AttributeDefinition definition,
-                                                       String valueString,
-                                                       java.math.BigDecimal valueNumber,
-                                                       Boolean valueBoolean) {
-        return new AttributeValueResponse(
-                definition.getId(),
-                definition.getDataType(),
-                definition.getScope(),
-                valueString,
-                valueNumber,
-                valueBoolean
-        );
+    private record CountKey(UUID categoryId, boolean includeDescendants, Set<AttributeFilter> attributeFilters) {
     }
 }
 
@@ -0,0 +1,135 @@
+package co.istad.springdatajpa.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Approximate row counts for listings that skip the exact COUNT. On PostgreSQL the
+ * numbers come from planner statistics ({@code pg_class.reltuples} for whole tables,
+ * EXPLAIN row estimates for filtered queries) and never scan table data. On other
+ * databases, or when statistics are missing, an exact count is taken once and cached.
+ * Statistics queries run on the caller's connection, so they never take a second pool
+ * connection; inside a transaction they are wrapped in a savepoint so a failure cannot
+ * abort it.
+ */
+@Slf4j
+@Component
+public class RowCountEstimator {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+    private static final String TABLE_ESTIMATE_SQL =
+            "select reltuples::bigint from pg_class where oid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<Object, Long> exactCounts;
+    private volatile Boolean postgres;
+
+    public RowCountEstimator(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${app.pagination.count-cache-ttl:60s}") Duration cacheTtl,
+                             @Value("${app.pagination.count-cache-max-size:1000}") long cacheMaxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.exactCounts = cacheTtl.isZero() || cacheTtl.isNegative()
+                ? null
+                : Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    public long estimateTable(String table, LongSupplier exactCount) {
+        if (isPostgres()) {
+            try {
+                Long estimate = queryWithinSavepoint(TABLE_ESTIMATE_SQL, Long.class, table);
+                // -1 (never analyzed) or 0 (possibly never analyzed on older servers) means no usable statistics.
+                if (estimate != null && estimate > 0) {
+                    return estimate;
+                }
+            } catch (DataAccessException ex) {
+                log.debug("No planner statistics for table {}", table, ex);
+            }
+        }
+        return cachedCount(table, exactCount);
+    }
+
+    public long estimateQuery(Object key, String sql, Object[] args, LongSupplier exactCount) {
+        if (isPostgres()) {
+            try {
+                String plan = queryWithinSavepoint("explain (format json) " + sql, String.class, args);
+                JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+                if (rows.isNumber()) {
+                    return Math.round(rows.asDouble());
+                }
+            } catch (DataAccessException | JsonProcessingException ex) {
+                log.debug("No planner row estimate for {}", key, ex);
+            }
+        }
+        return cachedCount(key, exactCount);
+    }
+
+    public long cachedCount(Object key, LongSupplier exactCount) {
+        if (exactCounts == null) {
+            return exactCount.getAsLong();
+        }
+        Long cached = exactCounts.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long count = exactCount.getAsLong();
+        exactCounts.put(key, count);
+        return count;
+    }
+
+    /**
+     * A failed statement aborts the whole PostgreSQL transaction, so the query is
+     * isolated by a savepoint on the transaction's own connection instead of being
+     * moved to another one.
+     */
+    private <T> T queryWithinSavepoint(String sql, Class<T> type, Object... args) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return jdbcTemplate.queryForObject(sql, type, args);
+        }
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        try {
+            T result = jdbcTemplate.queryForObject(sql, type, args);
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                connection.releaseSavepoint(savepoint);
+                return null;
+            });
+            return result;
+        } catch (DataAccessException ex) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                connection.rollback(savepoint);
+                return null;
+            });
+            throw ex;
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            detected = POSTGRESQL.equals(product);
+            postgres = detected;
+        }
+        return detected;
+    }
+}
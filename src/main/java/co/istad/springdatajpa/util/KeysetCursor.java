@@ -1,15 +1,33 @@
 package co.istad.springdatajpa.util;
 
 import co.istad.springdatajpa.exception.BadRequestException;
-import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Base64;
 import java.util.UUID;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 
+/**
+ * Opaque keyset cursor. A cursor records the sort it was issued for (property and
+ * direction), the sort value and id of the boundary row, and whether it continues
+ * forwards or backwards from that row. The static methods use an unsigned
+ * {@link KeysetCursorCodec}; cursors are binary, and the older text cursors
+ * ({@code v1|...} and legacy {@code createdAt|id}) still decode.
+ */
 public final class KeysetCursor {
 
     private static final String DELIMITER = "|";
+    private static final String VERSION = "v1";
+    private static final String ASC = "asc";
+    private static final String DESC = "desc";
+    private static final String NEXT = "next";
+    private static final String PREV = "prev";
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "=";
+    private static final String LEGACY_PROPERTY = "createdAt";
+    private static final String ID = "id";
+    private static final KeysetCursorCodec UNSIGNED = new KeysetCursorCodec(null, true);
 
     private KeysetCursor() {
     }
@@ -18,34 +36,96 @@ public final class KeysetCursor {
         if (createdAt == null || id == null) {
             throw new BadRequestException("cursor requires createdAt and id");
         }
-        Instant normalized = normalize(createdAt);
-        String payload = normalized.toString() + DELIMITER + id;
-        return Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encode(new Position(LEGACY_PROPERTY, false, normalize(createdAt), id, false));
     }
 
-    public static Decoded decode(String cursor) {
-        if (cursor == null || cursor.isBlank()) {
-            throw new BadRequestException("cursor must not be blank");
-        }
+    /**
+     * Boundary position of {@code row}: its {@code property} value, typed as the entity
+     * declares it ({@link Instant}s truncated to microseconds), and its {@code id}.
+     */
+    public static Position boundary(Object row, String property, boolean ascending, boolean backward) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        Object value = wrapper.getPropertyValue(property);
+        return new Position(
+                property,
+                ascending,
+                value instanceof Instant instant ? normalize(instant) : value,
+                (UUID) wrapper.getPropertyValue(ID),
+                backward
+        );
+    }
+
+    public static String encode(Position position) {
+        return UNSIGNED.encode(position);
+    }
+
+    public static Position decode(String cursor) {
+        return UNSIGNED.decode(cursor);
+    }
+
+    // Text cursors issued before the binary format: v1|property|dir|next-or-prev|id|value.
+    static Position decodeText(String payload) {
         try {
-            String payload = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
-            String[] parts = payload.split("\\|", -1);
-            if (parts.length != 2) {
+            if (!payload.startsWith(VERSION + DELIMITER)) {
+                return decodeLegacy(payload);
+            }
+            // The value goes last so string sort keys may contain the delimiter.
+            String[] parts = payload.split("\\|", 6);
+            if (parts.length != 6 || parts[1].isEmpty()) {
                 throw new BadRequestException("invalid cursor format");
             }
-            Instant createdAt = normalize(Instant.parse(parts[0]));
-            UUID id = UUID.fromString(parts[1]);
-            return new Decoded(createdAt, id);
-        } catch (IllegalArgumentException ex) {
+            return new Position(
+                    parts[1],
+                    parseFlag(parts[2], ASC, DESC),
+                    parseValue(parts[5]),
+                    UUID.fromString(parts[4]),
+                    parseFlag(parts[3], PREV, NEXT)
+            );
+        } catch (IllegalArgumentException | DateTimeException ex) {
             throw new BadRequestException("invalid cursor format");
         }
     }
 
-    public record Decoded(Instant createdAt, UUID id) {
+    /**
+     * Boundary row of a keyset page. {@code value} is the sort key as an {@link Instant},
+     * {@link java.math.BigDecimal}, {@link Integer}, {@link Long} or {@link String}, or
+     * {@code null} when the row has no value for the sort property. Text cursors carry
+     * every value in its canonical string form.
+     */
+    public record Position(String property, boolean ascending, Object value, UUID id, boolean backward) {
     }
 
-    private static Instant normalize(Instant instant) {
+    public static Instant normalize(Instant instant) {
         return instant.truncatedTo(ChronoUnit.MICROS);
     }
+
+    // Cursors issued before sort keys were encoded: createdAt|id, newest first.
+    private static Position decodeLegacy(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 2) {
+            throw new BadRequestException("invalid cursor format");
+        }
+        Instant createdAt = normalize(Instant.parse(parts[0]));
+        return new Position(LEGACY_PROPERTY, false, createdAt.toString(), UUID.fromString(parts[1]), false);
+    }
+
+    private static boolean parseFlag(String flag, String whenTrue, String whenFalse) {
+        if (whenTrue.equals(flag)) {
+            return true;
+        }
+        if (whenFalse.equals(flag)) {
+            return false;
+        }
+        throw new BadRequestException("invalid cursor format");
+    }
+
+    private static String parseValue(String value) {
+        if (NULL_VALUE.equals(value)) {
+            return null;
+        }
+        if (!value.startsWith(VALUE_PREFIX)) {
+            throw new BadRequestException("invalid cursor format");
+        }
+        return value.substring(VALUE_PREFIX.length());
+    }
 }
@@ -0,0 +1,393 @@
+package co.istad.springdatajpa.util;
+
+import co.istad.springdatajpa.exception.BadRequestException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Binary keyset cursors, optionally signed with HMAC-SHA256. The layout is
+ *
+ * <pre>
+ * format(1) flags(1) property(1 | 1+1+n) valueTag(1) value(0..n) idMsb(8) idLsb(8) [mac(16)]
+ * </pre>
+ *
+ * Known sort properties take one byte, an instant is its epoch microseconds, and the
+ * layout is Base64url-encoded without padding straight from the byte array. Decoding
+ * reads the cursor's characters into one byte array and parses it in place; a
+ * {@code createdAt} cursor builds no intermediate strings. Cursors that do not start
+ * with the format byte are read as the older text cursors while
+ * {@code acceptTextCursors} is on and no secret is set; a signing codec rejects them.
+ */
+public final class KeysetCursorCodec {
+
+    static final byte FORMAT = 0x02;
+
+    private static final int ASCENDING = 1;
+    private static final int BACKWARD = 1 << 1;
+    private static final int SIGNED = 1 << 2;
+    // Append-only: cursors in clients' hands store the index + 1 of their sort property.
+    private static final List<String> PROPERTIES = List.of(
+            "createdAt",
+            "updatedAt",
+            "name",
+            "price",
+            "sku",
+            "sortOrder"
+    );
+    private static final int NAMED_PROPERTY = 0;
+    private static final int MAX_PROPERTY_BYTES = 0xFF;
+    private static final byte NULL_VALUE = 0;
+    private static final byte INSTANT_VALUE = 1;
+    private static final byte LONG_VALUE = 2;
+    private static final byte INTEGER_VALUE = 3;
+    private static final byte DECIMAL_VALUE = 4;
+    private static final byte TEXT_VALUE = 5;
+    private static final int MAX_TEXT_BYTES = 0xFFFF;
+    private static final int ID_BYTES = 16;
+    private static final int MAC_BYTES = 16;
+    private static final int HMAC_SHA256_BYTES = 32;
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int[] BASE64_URL_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_URL_VALUES, -1);
+        for (int i = 0; i < BASE64_URL.length; i++) {
+            BASE64_URL_VALUES[BASE64_URL[i]] = i;
+        }
+    }
+
+    private final byte[] secret;
+    private final Mac macPrototype;
+    private final boolean acceptTextCursors;
+
+    /**
+     * @param secret            HMAC key; {@code null} or empty issues unsigned cursors
+     * @param acceptTextCursors whether cursors issued before the binary format still decode;
+     *                          ignored when {@code secret} is set
+     */
+    public KeysetCursorCodec(byte[] secret, boolean acceptTextCursors) {
+        this.secret = secret == null || secret.length == 0 ? null : secret.clone();
+        this.macPrototype = this.secret == null ? null : newMac(this.secret);
+        this.acceptTextCursors = acceptTextCursors;
+    }
+
+    public boolean isSigned() {
+        return macPrototype != null;
+    }
+
+    public String encode(KeysetCursor.Position position) {
+        if (position.property() == null || position.id() == null) {
+            throw new BadRequestException("cursor requires a sort property and id");
+        }
+        int propertyCode = PROPERTIES.indexOf(position.property()) + 1;
+        byte[] propertyName = propertyCode == NAMED_PROPERTY
+                ? position.property().getBytes(StandardCharsets.UTF_8)
+                : null;
+        if (propertyName != null && propertyName.length > MAX_PROPERTY_BYTES) {
+            throw new BadRequestException("cursor sort property is too long");
+        }
+        Object value = position.value();
+        byte valueTag = valueTag(value);
+        byte[] text = valueTag == TEXT_VALUE ? text(value) : null;
+
+        int length = 3 + (propertyName == null ? 0 : 1 + propertyName.length)
+                + 1 + valueLength(valueTag, text) + ID_BYTES;
+        // Room for the full HMAC output; only its first MAC_BYTES are encoded.
+        byte[] layout = new byte[length + (isSigned() ? HMAC_SHA256_BYTES : 0)];
+        int offset = 0;
+        layout[offset++] = FORMAT;
+        layout[offset++] = (byte) ((position.ascending() ? ASCENDING : 0)
+                | (position.backward() ? BACKWARD : 0)
+                | (isSigned() ? SIGNED : 0));
+        layout[offset++] = (byte) propertyCode;
+        if (propertyName != null) {
+            layout[offset++] = (byte) propertyName.length;
+            System.arraycopy(propertyName, 0, layout, offset, propertyName.length);
+            offset += propertyName.length;
+        }
+        layout[offset++] = valueTag;
+        offset = writeValue(layout, offset, valueTag, value, text);
+        offset = putLong(layout, offset, position.id().getMostSignificantBits());
+        offset = putLong(layout, offset, position.id().getLeastSignificantBits());
+        if (isSigned()) {
+            sign(layout, offset);
+            offset += MAC_BYTES;
+        }
+        return base64Url(layout, offset);
+    }
+
+    public KeysetCursor.Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            throw new BadRequestException("cursor must not be blank");
+        }
+        byte[] bytes = fromBase64Url(cursor);
+        if (bytes.length > 0 && bytes[0] == FORMAT) {
+            return decodeBinary(bytes);
+        }
+        if (isSigned()) {
+            // Text cursors carry no signature, so a signing codec cannot trust them.
+            throw new BadRequestException("invalid cursor signature");
+        }
+        if (!acceptTextCursors) {
+            throw new BadRequestException("invalid cursor format");
+        }
+        return KeysetCursor.decodeText(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private KeysetCursor.Position decodeBinary(byte[] bytes) {
+        try {
+            int offset = 1;
+            int flags = bytes[offset++];
+            boolean signed = (flags & SIGNED) != 0;
+            int end = bytes.length - (signed ? MAC_BYTES : 0);
+            if (isSigned()) {
+                if (!signed || !verify(bytes, end)) {
+                    throw new BadRequestException("invalid cursor signature");
+                }
+            }
+            int propertyCode = bytes[offset++] & 0xFF;
+            String property;
+            if (propertyCode == NAMED_PROPERTY) {
+                int nameLength = bytes[offset++] & 0xFF;
+                property = new String(bytes, offset, nameLength, StandardCharsets.UTF_8);
+                offset += nameLength;
+            } else if (propertyCode <= PROPERTIES.size()) {
+                property = PROPERTIES.get(propertyCode - 1);
+            } else {
+                throw new BadRequestException("invalid cursor format");
+            }
+            if (property.isEmpty()) {
+                throw new BadRequestException("invalid cursor format");
+            }
+
+            byte valueTag = bytes[offset++];
+            Object value;
+            switch (valueTag) {
+                case NULL_VALUE -> value = null;
+                case INSTANT_VALUE -> {
+                    long micros = getLong(bytes, offset);
+                    offset += Long.BYTES;
+                    value = Instant.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND),
+                            Math.floorMod(micros, MICROS_PER_SECOND) * 1_000L);
+                }
+                case LONG_VALUE -> {
+                    value = getLong(bytes, offset);
+                    offset += Long.BYTES;
+                }
+                case INTEGER_VALUE -> {
+                    value = getInt(bytes, offset);
+                    offset += Integer.BYTES;
+                }
+                case DECIMAL_VALUE -> {
+                    int scale = getInt(bytes, offset);
+                    value = BigDecimal.valueOf(getLong(bytes, offset + Integer.BYTES), scale);
+                    offset += Integer.BYTES + Long.BYTES;
+                }
+                case TEXT_VALUE -> {
+                    int textLength = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+                    offset += 2;
+                    value = new String(bytes, offset, textLength, StandardCharsets.UTF_8);
+                    offset += textLength;
+                }
+                default -> throw new BadRequestException("invalid cursor format");
+            }
+            if (offset + ID_BYTES != end) {
+                throw new BadRequestException("invalid cursor format");
+            }
+            UUID id = new UUID(getLong(bytes, offset), getLong(bytes, offset + Long.BYTES));
+            return new KeysetCursor.Position(property, (flags & ASCENDING) != 0, value, id, (flags & BACKWARD) != 0);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException ex) {
+            throw new BadRequestException("invalid cursor format");
+        }
+    }
+
+    private static byte valueTag(Object value) {
+        return switch (value) {
+            case null -> NULL_VALUE;
+            case Instant ignored -> INSTANT_VALUE;
+            case Long ignored -> LONG_VALUE;
+            case Integer ignored -> INTEGER_VALUE;
+            case BigDecimal decimal when decimal.unscaledValue().bitLength() < Long.SIZE -> DECIMAL_VALUE;
+            default -> TEXT_VALUE;
+        };
+    }
+
+    private static byte[] text(Object value) {
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TEXT_BYTES) {
+            throw new BadRequestException("cursor sort value is too long");
+        }
+        return bytes;
+    }
+
+    private static int valueLength(byte valueTag, byte[] text) {
+        return switch (valueTag) {
+            case INSTANT_VALUE, LONG_VALUE -> Long.BYTES;
+            case INTEGER_VALUE -> Integer.BYTES;
+            case DECIMAL_VALUE -> Integer.BYTES + Long.BYTES;
+            case TEXT_VALUE -> 2 + text.length;
+            default -> 0;
+        };
+    }
+
+    private static int writeValue(byte[] layout, int offset, byte valueTag, Object value, byte[] text) {
+        return switch (valueTag) {
+            case INSTANT_VALUE -> putLong(layout, offset, epochMicros((Instant) value));
+            case LONG_VALUE -> putLong(layout, offset, (Long) value);
+            case INTEGER_VALUE -> putInt(layout, offset, (Integer) value);
+            case DECIMAL_VALUE -> {
+                BigDecimal decimal = (BigDecimal) value;
+                yield putLong(layout, putInt(layout, offset, decimal.scale()), decimal.unscaledValue().longValue());
+            }
+            case TEXT_VALUE -> {
+                layout[offset] = (byte) (text.length >>> 8);
+                layout[offset + 1] = (byte) text.length;
+                System.arraycopy(text, 0, layout, offset + 2, text.length);
+                yield offset + 2 + text.length;
+            }
+            default -> offset;
+        };
+    }
+
+    private static long epochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), MICROS_PER_SECOND),
+                instant.getNano() / 1_000L);
+    }
+
+    // Writes the HMAC of layout[0, length) at layout[length]; the caller keeps the first MAC_BYTES.
+    private void sign(byte[] layout, int length) {
+        Mac mac = mac();
+        mac.update(layout, 0, length);
+        try {
+            mac.doFinal(layout, length);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot sign keyset cursor", ex);
+        }
+    }
+
+    private boolean verify(byte[] bytes, int length) {
+        Mac mac = mac();
+        mac.update(bytes, 0, length);
+        byte[] expected = mac.doFinal();
+        int difference = 0;
+        for (int i = 0; i < MAC_BYTES; i++) {
+            difference |= expected[i] ^ bytes[length + i];
+        }
+        return difference == 0;
+    }
+
+    // Mac is not thread-safe. A clone per call instead of a ThreadLocal: with virtual
+    // threads every request would fill a fresh ThreadLocal anyway.
+    private Mac mac() {
+        try {
+            return (Mac) macPrototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            return newMac(secret);
+        }
+    }
+
+    private static Mac newMac(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot initialise " + MAC_ALGORITHM, ex);
+        }
+    }
+
+    private static int putLong(byte[] bytes, int offset, long value) {
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+        return offset + Long.BYTES;
+    }
+
+    private static int putInt(byte[] bytes, int offset, int value) {
+        for (int i = Integer.BYTES - 1; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+        return offset + Integer.BYTES;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static String base64Url(byte[] bytes, int length) {
+        byte[] out = new byte[(length * 4 + 2) / 3];
+        int in = 0;
+        int o = 0;
+        while (in + 3 <= length) {
+            int bits = (bytes[in++] & 0xFF) << 16 | (bytes[in++] & 0xFF) << 8 | (bytes[in++] & 0xFF);
+            out[o++] = BASE64_URL[bits >>> 18];
+            out[o++] = BASE64_URL[(bits >>> 12) & 0x3F];
+            out[o++] = BASE64_URL[(bits >>> 6) & 0x3F];
+            out[o++] = BASE64_URL[bits & 0x3F];
+        }
+        int remaining = length - in;
+        if (remaining > 0) {
+            int bits = (bytes[in] & 0xFF) << 16 | (remaining == 2 ? (bytes[in + 1] & 0xFF) << 8 : 0);
+            out[o++] = BASE64_URL[bits >>> 18];
+            out[o++] = BASE64_URL[(bits >>> 12) & 0x3F];
+            if (remaining == 2) {
+                out[o] = BASE64_URL[(bits >>> 6) & 0x3F];
+            }
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    // Reads the characters directly; text cursors were issued unpadded but padding is tolerated.
+    private static byte[] fromBase64Url(String text) {
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == '=') {
+            length--;
+        }
+        if (length % 4 == 1) {
+            throw new BadRequestException("invalid cursor format");
+        }
+        byte[] out = new byte[length * 3 / 4];
+        int bits = 0;
+        int bitCount = 0;
+        int o = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int value = c < BASE64_URL_VALUES.length ? BASE64_URL_VALUES[c] : -1;
+            if (value < 0) {
+                throw new BadRequestException("invalid cursor format");
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[o++] = (byte) (bits >>> bitCount);
+            }
+        }
+        return out;
+    }
+}
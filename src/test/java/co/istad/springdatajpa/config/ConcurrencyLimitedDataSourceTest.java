@@ -0,0 +1,79 @@
+package co.istad.springdatajpa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    @Test
+    void getConnection_waitsForPermitAndTimesOut() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource =
+                new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        Connection first = dataSource.getConnection();
+
+        assertThat(dataSource.getAvailablePermits()).isZero();
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        try (Connection second = dataSource.getConnection()) {
+            assertThat(second).isNotNull();
+        }
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void close_twice_releasesPermitOnce() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitedDataSource dataSource =
+                new ConcurrencyLimitedDataSource(target, 2, Duration.ofMillis(50));
+
+        Connection limited = dataSource.getConnection();
+        limited.close();
+        limited.close();
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_failure_releasesPermit() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        ConcurrencyLimitedDataSource dataSource =
+                new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool exhausted");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void connection_delegatesOtherCalls() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        ConcurrencyLimitedDataSource dataSource =
+                new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        try (Connection limited = dataSource.getConnection()) {
+            assertThat(limited.getAutoCommit()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package co.istad.springdatajpa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import co.istad.springdatajpa.config.NPlusOneDetector.Mode;
+import co.istad.springdatajpa.config.NPlusOneDetector.NPlusOneException;
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductVariant;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.repository.ProductVariantRepository;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class NPlusOneDetectorTest {
+
+    private static final String BY_PRODUCT = "select v.id from product_variants v where v.product_id=?";
+
+    @Autowired
+    private NPlusOneDetector detector;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void strict_throwsWhenSameSelectShapeExceedsBudget() {
+        NPlusOneDetector strict = new NPlusOneDetector(Mode.STRICT, 2, 1.0);
+        strict.begin("Test#strict");
+        try {
+            strict.inspect(BY_PRODUCT);
+            strict.inspect("select v.id from product_variants v where v.product_id in (?,?,?)");
+            strict.inspect("select v.id from product_variants v where v.product_id in (?, ?)");
+            strict.inspect("insert into product_variants (id) values (?)");
+            strict.inspect("insert into product_variants (id) values (?)");
+            strict.inspect("insert into product_variants (id) values (?)");
+            strict.inspect(BY_PRODUCT);
+
+            assertThatThrownBy(() -> strict.inspect(BY_PRODUCT))
+                    .isInstanceOf(NPlusOneException.class)
+                    .hasMessageContaining("Test#strict")
+                    .hasMessageContaining("repeated 3 times (budget 2)");
+        } finally {
+            strict.end();
+        }
+    }
+
+    @Test
+    void outsideScopeOrUnsampled_nothingIsCounted() {
+        NPlusOneDetector strict = new NPlusOneDetector(Mode.STRICT, 1, 1.0);
+        NPlusOneDetector unsampled = new NPlusOneDetector(Mode.LOG, 1, 0.0);
+        unsampled.begin("Test#unsampled");
+
+        assertThatCode(() -> {
+            for (int i = 0; i < 5; i++) {
+                strict.inspect(BY_PRODUCT);
+                unsampled.inspect(BY_PRODUCT);
+            }
+        }).doesNotThrowAnyException();
+        unsampled.end();
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void log_warnsWithoutFailing(CapturedOutput output) {
+        NPlusOneDetector logging = new NPlusOneDetector(Mode.LOG, 1, 1.0);
+        logging.begin("Test#log");
+
+        assertThatCode(() -> {
+            for (int i = 0; i < 5; i++) {
+                logging.inspect(BY_PRODUCT);
+            }
+        }).doesNotThrowAnyException();
+        logging.end();
+
+        String warning = "Possible N+1 in Test#log: statement '" + BY_PRODUCT + "' repeated 2 times (budget 1)";
+        // Reported once, when the budget is first exceeded, at WARN by the detector's logger.
+        assertThat(output.getOut().lines().filter(line -> line.contains("Possible N+1 in Test#log")))
+                .singleElement()
+                .asString()
+                .contains(" WARN ", NPlusOneDetector.class.getSimpleName(), warning);
+    }
+
+    @Test
+    void lazyCollectionLoadsPerRow_failInStrictTestProfile() {
+        assertThat(detector.getMode()).isEqualTo(Mode.STRICT);
+        for (int i = 0; i < 8; i++) {
+            Product product = new Product();
+            product.setName("N+1 " + i);
+            product.setPrice(new BigDecimal("1.00"));
+            productRepository.save(product);
+            ProductVariant variant = new ProductVariant();
+            variant.setProduct(product);
+            variant.setSku("NPLUSONE-" + i);
+            variant.setPrice(new BigDecimal("1.00"));
+            variant.setStock(1);
+            productVariantRepository.save(variant);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        detector.begin("Test#variants");
+        try {
+            List<Product> products = productRepository.findAllByIdIn(
+                    productRepository.findAll().stream().map(Product::getId).toList());
+
+            assertThatThrownBy(() -> products.forEach(product -> product.getVariants().size()))
+                    .isInstanceOf(NPlusOneException.class)
+                    .hasMessageContaining("Product.variants");
+        } finally {
+            detector.end();
+        }
+    }
+
+    @Test
+    void lazyProxyLoads_reportEntity() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Category category = new Category();
+            category.setName("Proxy target " + i);
+            entityManager.persist(category);
+            categories.add(category);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        detector.begin("Test#proxies");
+        try {
+            assertThatThrownBy(() -> categories.forEach(category ->
+                    entityManager.getReference(Category.class, category.getId()).getName()))
+                    .isInstanceOf(NPlusOneException.class)
+                    .hasMessageContaining("Category (to-one proxy)");
+        } finally {
+            detector.end();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package co.istad.springdatajpa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StatementCountingDataSourceTest {
+
+    @AfterEach
+    void tearDown() {
+        StatementCountingDataSource.stopCounting();
+        StatementCountingDataSource.stopRecording();
+    }
+
+    @Test
+    void stopCounting_returnsStatementsPreparedOnThisThread() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(target);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("select 1");
+            StatementCountingDataSource.startCounting();
+            connection.prepareStatement("select 1");
+            connection.prepareStatement("insert into t values (?)", new String[]{"id"});
+            connection.createStatement();
+            connection.prepareCall("call p()");
+            connection.getMetaData();
+        }
+
+        assertThat(StatementCountingDataSource.stopCounting()).isEqualTo(4);
+        assertThat(StatementCountingDataSource.stopCounting()).isZero();
+    }
+
+    @Test
+    void otherThreads_areNotCounted() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(target);
+
+        StatementCountingDataSource.startCounting();
+        Thread other = Thread.ofVirtual().start(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.prepareStatement("select 1");
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        other.join();
+
+        assertThat(StatementCountingDataSource.stopCounting()).isZero();
+    }
+
+    @Test
+    void stopRecording_returnsSqlInOrder() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(target);
+
+        StatementCountingDataSource.startRecording();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("select 1");
+            connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            connection.prepareCall("call p()");
+        }
+
+        assertThat(StatementCountingDataSource.stopRecording())
+                .containsExactly("select 1", "createStatement()", "call p()");
+        assertThat(StatementCountingDataSource.stopRecording()).isEmpty();
+    }
+}
@@ -0,0 +1,84 @@
+package co.istad.springdatajpa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.math.BigDecimal;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class StatementMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void request_recordsStatementsPerHandlerAndTimesServicesAndRepositories() throws Exception {
+        assertThat(dataSource).isInstanceOf(StatementCountingDataSource.class);
+        Product product = new Product();
+        product.setName("Metered");
+        product.setPrice(new BigDecimal("1.00"));
+        productRepository.saveAndFlush(product);
+        // The registry is shared with every test on this cached context, so compare deltas.
+        long statementsBefore = statementCount();
+        long serviceBefore = serviceCount();
+
+        mockMvc.perform(get("/products").param("size", "5"))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.get("app.http.jdbc.statements")
+                .tag("handler", "ProductController#listProducts")
+                .summary();
+        assertThat(statements.count() - statementsBefore).isEqualTo(1);
+        assertThat(statements.totalAmount()).isPositive();
+
+        assertThat(serviceCount() - serviceBefore).isEqualTo(1);
+
+        Timer repository = meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "ProductRepository")
+                .tag("method", "saveAndFlush")
+                .timer();
+        assertThat(repository.count()).isPositive();
+    }
+
+    private long statementCount() {
+        DistributionSummary statements = meterRegistry.find("app.http.jdbc.statements")
+                .tag("handler", "ProductController#listProducts")
+                .summary();
+        return statements == null ? 0 : statements.count();
+    }
+
+    private long serviceCount() {
+        Timer service = meterRegistry.find("app.service.invocations")
+                .tag("class", "co.istad.springdatajpa.service.impl.ProductServiceImpl")
+                .tag("method", "findAll")
+                .tag("exception", "none")
+                .timer();
+        return service == null ? 0 : service.count();
+    }
+}
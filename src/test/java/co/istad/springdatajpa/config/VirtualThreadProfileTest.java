@@ -0,0 +1,56 @@
+package co.istad.springdatajpa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = "app.datasource.limiter.max-concurrent=2")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "virtual"})
+class VirtualThreadProfileTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired(required = false)
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Test
+    void virtualProfile_limitsConnectionsAndServesConcurrentRequests() throws Exception {
+        assertThat(dataSource).isInstanceOf(ConcurrencyLimitedDataSource.class);
+        assertThat(pinningMonitor).isNotNull();
+        ConcurrencyLimitedDataSource limited = (ConcurrencyLimitedDataSource) dataSource;
+        assertThat(limited.getMaxConcurrent()).isEqualTo(2);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> responses = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                responses.add(executor.submit(() -> mockMvc.perform(get("/products").param("size", "5"))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getStatus()));
+            }
+            for (Future<Integer> response : responses) {
+                assertThat(response.get()).isEqualTo(200);
+            }
+        }
+        assertThat(limited.getAvailablePermits()).isEqualTo(2);
+    }
+}
@@ -4,13 +4,17 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -19,9 +23,15 @@ import static org.hamcrest.Matchers.not;
 import co.istad.springdatajpa.config.SpringDataWebConfig;
 import co.istad.springdatajpa.dto.request.CategoryCreateRequest;
 import co.istad.springdatajpa.dto.request.CategoryPatchRequest;
+import co.istad.springdatajpa.dto.request.CategoryProductsView;
 import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.CategoryTreeNode;
+import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.dto.response.SliceResponse;
 import co.istad.springdatajpa.dto.request.CategoryUpdateRequest;
 import co.istad.springdatajpa.error.RestExceptionHandler;
+import co.istad.springdatajpa.exception.PreconditionFailedException;
 import co.istad.springdatajpa.exception.ResourceNotFoundException;
 import co.istad.springdatajpa.service.CategoryService;
 import java.time.Instant;
@@ -34,6 +44,9 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -61,8 +74,11 @@ class CategoryControllerTest {
                 null,
                 null,
                 List.of(),
+                null,
+                null,
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L
         );
         Page<CategoryResponse> page = new PageImpl<>(List.of(response), PageRequest.of(0, 20), 1);
         when(categoryService.findAll(any())).thenReturn(page);
@@ -79,7 +95,49 @@ class CategoryControllerTest {
     }
 
     @Test
-    void getCategory_includesProductsSummary() throws Exception {
+    void listCategories_totalEstimate_returnsSlice() throws Exception {
+        SliceResponse<CategoryResponse> slice = SliceResponse.of(
+                new SliceImpl<>(List.of(), PageRequest.of(0, 20), false), 12L);
+        when(categoryService.findSlice(any(), eq(true))).thenReturn(slice);
+
+        mockMvc.perform(get("/categories")
+                        .param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.hasNext").value(false))
+                .andExpect(jsonPath("$.page.estimatedTotalElements").value(12));
+    }
+
+    @Test
+    void listCategories_withCursor_returnsKeyset() throws Exception {
+        CategoryResponse response = new CategoryResponse(
+                UUID.randomUUID(),
+                "Office",
+                null,
+                null,
+                1,
+                List.of(),
+                null,
+                null,
+                CREATED_AT,
+                UPDATED_AT,
+                0L
+        );
+        KeysetResponse<CategoryResponse> keyset = new KeysetResponse<>(List.of(response), "next", "prev");
+        when(categoryService.findAllKeyset(Sort.by(Sort.Direction.ASC, "sortOrder"), "token", 20)).thenReturn(keyset);
+
+        mockMvc.perform(get("/categories")
+                        .param("cursor", "token")
+                        .param("sort", "sortOrder,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Office"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.prevCursor").value("prev"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.hasPrev").value(true));
+    }
+
+    @Test
+    void getCategory_defaultsToKeysetWindowWithoutCount() throws Exception {
         UUID id = UUID.randomUUID();
         UUID productId = UUID.randomUUID();
         CategoryResponse response = new CategoryResponse(
@@ -89,17 +147,134 @@ class CategoryControllerTest {
                 null,
                 null,
                 List.of(new co.istad.springdatajpa.dto.response.ProductSummary(productId, "Pen", new java.math.BigDecimal("1.25"))),
+                null,
+                "next-token",
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L
         );
-        when(categoryService.findById(id)).thenReturn(response);
+        when(categoryService.findById(id, CategoryProductsView.KEYSET, 0, 20, null)).thenReturn(response);
 
         mockMvc.perform(get("/categories/{id}", id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(id.toString()))
                 .andExpect(jsonPath("$.products").isArray())
                 .andExpect(jsonPath("$.products[0].id").value(productId.toString()))
-                .andExpect(jsonPath("$.products[0].name").value("Pen"));
+                .andExpect(jsonPath("$.products[0].name").value("Pen"))
+                .andExpect(jsonPath("$.productCount").doesNotExist())
+                .andExpect(jsonPath("$.productsNextCursor").value("next-token"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getCategory_pageWithoutPageView_returns400() throws Exception {
+        mockMvc.perform(get("/categories/{id}", UUID.randomUUID())
+                        .param("page", "2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("page requires products=page; use cursor for the keyset window"));
+    }
+
+    @Test
+    void getCategory_withoutProducts_returnsETagAnd304() throws Exception {
+        UUID id = UUID.randomUUID();
+        CategoryResponse response = new CategoryResponse(
+                id,
+                "Office",
+                null,
+                null,
+                null,
+                List.of(),
+                null,
+                null,
+                CREATED_AT,
+                UPDATED_AT,
+                2L
+        );
+        when(categoryService.findById(id, CategoryProductsView.NONE, 0, 20, null)).thenReturn(response);
+        when(categoryService.findVersion(id)).thenReturn(2L);
+
+        mockMvc.perform(get("/categories/{id}", id).param("products", "none"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        mockMvc.perform(get("/categories/{id}", id)
+                        .param("products", "none")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified());
+
+        verify(categoryService, times(1)).findById(id, CategoryProductsView.NONE, 0, 20, null);
+    }
+
+    @Test
+    void getCategory_productsViewAndCursor_passedToService() throws Exception {
+        UUID id = UUID.randomUUID();
+        CategoryResponse response = new CategoryResponse(
+                id,
+                "Office",
+                null,
+                null,
+                null,
+                List.of(),
+                null,
+                "next-token",
+                CREATED_AT,
+                UPDATED_AT,
+                0L
+        );
+        when(categoryService.findById(id, CategoryProductsView.KEYSET, 0, 5, "token")).thenReturn(response);
+
+        mockMvc.perform(get("/categories/{id}", id)
+                        .param("products", "keyset")
+                        .param("size", "5")
+                        .param("cursor", "token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productsNextCursor").value("next-token"));
+    }
+
+    @Test
+    void getCategory_unknownProductsView_returns400() throws Exception {
+        mockMvc.perform(get("/categories/{id}", UUID.randomUUID())
+                        .param("products", "all"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("products must be one of none, count, page, keyset"));
+    }
+
+    @Test
+    void getTree_returnsNestedNodes() throws Exception {
+        UUID rootId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+        CategoryTreeNode child = new CategoryTreeNode(childId, "Laptops", 1, 1, List.of());
+        when(categoryService.getTree()).thenReturn(List.of(new CategoryTreeNode(rootId, "Computers", null, 0, List.of(child))));
+
+        mockMvc.perform(get("/categories/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(rootId.toString()))
+                .andExpect(jsonPath("$[0].children[0].name").value("Laptops"))
+                .andExpect(jsonPath("$[0].children[0].depth").value(1));
+    }
+
+    @Test
+    void getPath_returnsRootFirst() throws Exception {
+        UUID rootId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+        when(categoryService.getPath(childId)).thenReturn(List.of(
+                new CategorySummary(rootId, "Computers"),
+                new CategorySummary(childId, "Laptops")
+        ));
+
+        mockMvc.perform(get("/categories/{id}/path", childId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Computers"))
+                .andExpect(jsonPath("$[1].id").value(childId.toString()));
+    }
+
+    @Test
+    void getPath_notFound_returns404() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(categoryService.getPath(id)).thenThrow(new ResourceNotFoundException("Category not found: " + id));
+
+        mockMvc.perform(get("/categories/{id}/path", id))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -115,16 +290,18 @@ class CategoryControllerTest {
 
     @Test
     void createCategory_success_returnsCreated() throws Exception {
-        UUID productId = UUID.randomUUID();
         CategoryResponse response = new CategoryResponse(
                 UUID.randomUUID(),
                 "Office",
                 "Office supplies",
                 null,
                 null,
-                List.of(new co.istad.springdatajpa.dto.response.ProductSummary(productId, "Pen", new java.math.BigDecimal("1.25"))),
+                List.of(),
+                null,
+                null,
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L
         );
         when(categoryService.create(any(CategoryCreateRequest.class))).thenReturn(response);
 
@@ -134,14 +311,13 @@ class CategoryControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.name").value("Office"))
                 .andExpect(jsonPath("$.products").isArray())
-                .andExpect(jsonPath("$.products[0].id").value(productId.toString()))
-                .andExpect(jsonPath("$.products[0].name").value("Pen"));
+                .andExpect(jsonPath("$.products.length()").value(0));
     }
 
     @Test
     void updateCategory_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
-        when(categoryService.update(eq(id), any(CategoryUpdateRequest.class)))
+        when(categoryService.update(eq(id), any(CategoryUpdateRequest.class), isNull()))
                 .thenThrow(new ResourceNotFoundException("Category not found: " + id));
 
         mockMvc.perform(put("/categories/{id}", id)
@@ -184,10 +360,13 @@ class CategoryControllerTest {
                 null,
                 null,
                 List.of(),
+                null,
+                null,
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L
         );
-        when(categoryService.patch(eq(id), any(CategoryPatchRequest.class))).thenReturn(response);
+        when(categoryService.patch(eq(id), any(CategoryPatchRequest.class), isNull())).thenReturn(response);
 
         mockMvc.perform(patch("/categories/{id}", id)
                         .contentType(JSON)
@@ -199,7 +378,7 @@ class CategoryControllerTest {
     @Test
     void patchCategory_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
-        when(categoryService.patch(eq(id), any(CategoryPatchRequest.class)))
+        when(categoryService.patch(eq(id), any(CategoryPatchRequest.class), isNull()))
                 .thenThrow(new ResourceNotFoundException("Category not found: " + id));
 
         mockMvc.perform(patch("/categories/{id}", id)
@@ -209,12 +388,24 @@ class CategoryControllerTest {
                 .andExpect(jsonPath("$.message").exists());
     }
 
+    @Test
+    void deleteCategory_staleIfMatch_returns412() throws Exception {
+        UUID id = UUID.randomUUID();
+        doThrow(new PreconditionFailedException("Category " + id + " is at version 5, not 4"))
+                .when(categoryService)
+                .delete(id, 4L);
+
+        mockMvc.perform(delete("/categories/{id}", id).header(HttpHeaders.IF_MATCH, "\"4\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value(containsString("version 5")));
+    }
+
     @Test
     void deleteCategory_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
         doThrow(new ResourceNotFoundException("Category not found: " + id))
                 .when(categoryService)
-                .delete(id);
+                .delete(id, null);
 
         mockMvc.perform(delete("/categories/{id}", id))
                 .andExpect(status().isNotFound())
@@ -1,17 +1,25 @@
 package co.istad.springdatajpa.controller;
 
+import co.istad.springdatajpa.dto.response.ProductDetailResponse;
 import co.istad.springdatajpa.dto.response.ProductResponse;
+import co.istad.springdatajpa.dto.response.ProductVersions;
 import co.istad.springdatajpa.dto.request.ProductCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductPatchRequest;
 import co.istad.springdatajpa.dto.request.ProductUpdateRequest;
 import co.istad.springdatajpa.dto.request.ProductVariantCreateRequest;
+import co.istad.springdatajpa.dto.request.AttributeFilter;
 import co.istad.springdatajpa.dto.request.AttributeValueRequest;
 import co.istad.springdatajpa.dto.response.ProductVariantResponse;
 import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.KeysetResponse;
+import co.istad.springdatajpa.dto.response.SliceResponse;
+import co.istad.springdatajpa.dto.response.ProductBatchResponse;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse;
+import co.istad.springdatajpa.exception.PreconditionFailedException;
 import co.istad.springdatajpa.exception.ResourceNotFoundException;
 import co.istad.springdatajpa.config.SpringDataWebConfig;
 import co.istad.springdatajpa.error.RestExceptionHandler;
+import co.istad.springdatajpa.service.ProductFacetService;
 import co.istad.springdatajpa.service.ProductService;
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -27,6 +35,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -36,13 +47,17 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -61,6 +76,9 @@ class ProductControllerTest {
     @MockitoBean
     private ProductService productService;
 
+    @MockitoBean
+    private ProductFacetService productFacetService;
+
     @Test
     void createProduct_validationFailure_returnsErrors() throws Exception {
         mockMvc.perform(post("/products")
@@ -107,7 +125,9 @@ class ProductControllerTest {
                 categoryId,
                 new co.istad.springdatajpa.dto.response.CategorySummary(categoryId, "Office"),
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L,
+                2L
         );
         when(productService.findById(id)).thenReturn(response);
 
@@ -117,7 +137,35 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.name").value("Chair"))
                 .andExpect(jsonPath("$.categoryId").value(categoryId.toString()))
                 .andExpect(jsonPath("$.category.id").exists())
-                .andExpect(jsonPath("$.category.name").value("Office"));
+                .andExpect(jsonPath("$.category.name").value("Office"))
+                .andExpect(jsonPath("$.version").value(0))
+                .andExpect(jsonPath("$.categoryVersion").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.2\""));
+    }
+
+    @Test
+    void getProduct_ifNoneMatchCurrent_returns304WithoutLoadingProduct() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(productService.findVersion(id)).thenReturn(new ProductVersions(4L, 2L));
+
+        mockMvc.perform(get("/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"4.2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4.2\""))
+                .andExpect(content().string(""));
+
+        verify(productService, never()).findById(any());
+    }
+
+    @Test
+    void getProduct_ifNoneMatchStale_returnsBody() throws Exception {
+        ProductResponse response = newResponse("Chair", "Office", "89.99");
+        when(productService.findVersion(response.id())).thenReturn(new ProductVersions(0L, null));
+        when(productService.findById(response.id())).thenReturn(response);
+
+        mockMvc.perform(get("/products/{id}", response.id()).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.name").value("Chair"));
     }
 
     @Test
@@ -130,6 +178,117 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.message").exists());
     }
 
+    @Test
+    void getProductDetail_returnsAggregate() throws Exception {
+        UUID id = UUID.randomUUID();
+        UUID variantId = UUID.randomUUID();
+        ProductDetailResponse response = new ProductDetailResponse(
+                id,
+                "Chair",
+                "Office",
+                new BigDecimal("89.99"),
+                new BigDecimal("89.99"),
+                null,
+                null,
+                List.of(),
+                List.of(),
+                List.of(new ProductDetailResponse.VariantDetail(
+                        variantId,
+                        "CH-1",
+                        new BigDecimal("89.99"),
+                        new BigDecimal("89.99"),
+                        3,
+                        List.of(),
+                        CREATED_AT,
+                        UPDATED_AT
+                )),
+                CREATED_AT,
+                UPDATED_AT
+        );
+        when(productService.findDetail(id)).thenReturn(response);
+
+        mockMvc.perform(get("/products/{id}/full", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.variants[0].id").value(variantId.toString()))
+                .andExpect(jsonPath("$.variants[0].sku").value("CH-1"));
+    }
+
+    @Test
+    void getProducts_byIds_returnsItemsAndMissingIds() throws Exception {
+        ProductResponse found = newResponse("Keyboard", "Mechanical", "99.99");
+        UUID missing = UUID.randomUUID();
+        when(productService.findAllByIds(List.of(found.id(), missing)))
+                .thenReturn(new ProductBatchResponse(List.of(found), List.of(missing)));
+
+        mockMvc.perform(get("/products")
+                        .param("ids", found.id().toString(), missing.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(found.id().toString()))
+                .andExpect(jsonPath("$.missingIds[0]").value(missing.toString()));
+    }
+
+    @Test
+    void getProducts_invalidId_returns400() throws Exception {
+        mockMvc.perform(get("/products")
+                        .param("ids", "not-a-uuid"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
+    @Test
+    void getFacets_passesFiltersAndPriceBreaks() throws Exception {
+        UUID categoryId = UUID.randomUUID();
+        UUID attributeId = UUID.randomUUID();
+        ProductFacetResponse response = new ProductFacetResponse(
+                List.of(),
+                List.of(),
+                List.of(new ProductFacetResponse.PriceBucket(null, new BigDecimal("10"), 3))
+        );
+        when(productFacetService.facets(
+                eq(categoryId),
+                eq(true),
+                eq(List.of(AttributeFilter.parse(attributeId + ":eq:red,blue"))),
+                eq(List.of(new BigDecimal("10")))
+        )).thenReturn(response);
+
+        mockMvc.perform(get("/products/facets")
+                        .param("categoryId", categoryId.toString())
+                        .param("attr", attributeId + ":eq:red,blue")
+                        .param("priceBreaks", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.priceBuckets[0].to").value(10))
+                .andExpect(jsonPath("$.priceBuckets[0].count").value(3));
+    }
+
+    @Test
+    void getFacets_includeDescendantsFalse_restrictsToDirectMembers() throws Exception {
+        UUID categoryId = UUID.randomUUID();
+        ProductFacetResponse response = new ProductFacetResponse(List.of(), List.of(), List.of());
+        when(productFacetService.facets(eq(categoryId), eq(false), eq(List.of()), isNull()))
+                .thenReturn(response);
+
+        mockMvc.perform(get("/products/facets")
+                        .param("categoryId", categoryId.toString())
+                        .param("includeDescendants", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.priceBuckets").isEmpty());
+    }
+
+    @Test
+    void listProducts_includeDescendants_usesSubtreeQuery() throws Exception {
+        UUID categoryId = UUID.randomUUID();
+        Page<ProductResponse> page = new PageImpl<>(List.of(), PageRequest.of(0, 20), 0);
+        when(productService.findAll(any(Pageable.class), eq(categoryId), eq(true), eq(List.of())))
+                .thenReturn(page);
+
+        mockMvc.perform(get("/products")
+                        .param("categoryId", categoryId.toString())
+                        .param("includeDescendants", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray());
+    }
+
     @Test
     void listProducts_returnsPage() throws Exception {
         UUID categoryId = UUID.randomUUID();
@@ -142,7 +301,9 @@ class ProductControllerTest {
                 categoryId,
                 new co.istad.springdatajpa.dto.response.CategorySummary(categoryId, "Office"),
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L,
+                null
         );
         Page<ProductResponse> page = new PageImpl<>(List.of(response), PageRequest.of(0, 20), 1);
         when(productService.findAll(any(Pageable.class), eq(null))).thenReturn(page);
@@ -237,18 +398,73 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.page.totalElements").value(1));
     }
 
+    @Test
+    void listProducts_totalNone_returnsSliceWithoutCount() throws Exception {
+        ProductResponse response = newResponse("Keyboard", "Mechanical", "99.99");
+        SliceResponse<ProductResponse> slice = SliceResponse.of(
+                new SliceImpl<>(List.of(response), PageRequest.of(0, 20), true), null);
+        when(productService.findSlice(any(Pageable.class), eq(null), eq(false), eq(List.of()), eq(false)))
+                .thenReturn(slice);
+
+        mockMvc.perform(get("/products")
+                        .param("total", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Keyboard"))
+                .andExpect(jsonPath("$.page.hasNext").value(true))
+                .andExpect(jsonPath("$.page.totalElements").doesNotExist());
+    }
+
+    @Test
+    void listProducts_totalEstimate_requestsEstimate() throws Exception {
+        SliceResponse<ProductResponse> slice = SliceResponse.of(
+                new SliceImpl<>(List.of(), PageRequest.of(0, 20), false), 8_000_000L);
+        when(productService.findSlice(any(Pageable.class), eq(null), eq(false), eq(List.of()), eq(true)))
+                .thenReturn(slice);
+
+        mockMvc.perform(get("/products")
+                        .param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.estimatedTotalElements").value(8_000_000));
+    }
+
+    @Test
+    void listProducts_unknownTotalMode_returns400() throws Exception {
+        mockMvc.perform(get("/products")
+                        .param("total", "approximate"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("total must be one of exact, none, estimate"));
+    }
+
     @Test
     void listProducts_withCursor_returnsKeyset() throws Exception {
         ProductResponse response = newResponse("Keyboard", "Mechanical", "99.99");
-        KeysetResponse<ProductResponse> keyset = new KeysetResponse<>(List.of(response), "next", true);
-        when(productService.listProductsKeyset(eq(null), eq("token"), eq(20))).thenReturn(keyset);
+        KeysetResponse<ProductResponse> keyset = new KeysetResponse<>(List.of(response), "next", null);
+        when(productService.listProductsKeyset(
+                eq(null), eq(Sort.by(Sort.Direction.DESC, "createdAt")), eq("token"), eq(20))).thenReturn(keyset);
 
         mockMvc.perform(get("/products")
                         .param("cursor", "token"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.items[0].name").value("Keyboard"))
                 .andExpect(jsonPath("$.nextCursor").value("next"))
-                .andExpect(jsonPath("$.hasNext").value(true));
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.hasPrev").value(false));
+    }
+
+    @Test
+    void listProducts_withCursorAndSort_passesKeysetSort() throws Exception {
+        ProductResponse response = newResponse("Keyboard", "Mechanical", "99.99");
+        KeysetResponse<ProductResponse> keyset = new KeysetResponse<>(List.of(response), null, "prev");
+        when(productService.listProductsKeyset(
+                eq(null), eq(Sort.by(Sort.Direction.ASC, "price")), eq(""), eq(20))).thenReturn(keyset);
+
+        mockMvc.perform(get("/products")
+                        .param("cursor", "")
+                        .param("sort", "price,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prevCursor").value("prev"))
+                .andExpect(jsonPath("$.hasPrev").value(true))
+                .andExpect(jsonPath("$.hasNext").value(false));
     }
 
     @Test
@@ -293,7 +509,7 @@ class ProductControllerTest {
     @Test
     void updateProduct_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
-        when(productService.update(eq(id), any(ProductUpdateRequest.class)))
+        when(productService.update(eq(id), any(ProductUpdateRequest.class), isNull()))
                 .thenThrow(new ResourceNotFoundException("Product not found: " + id));
 
         mockMvc.perform(put("/products/{id}", id)
@@ -315,9 +531,11 @@ class ProductControllerTest {
                 null,
                 null,
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L,
+                null
         );
-        when(productService.update(eq(id), any(ProductUpdateRequest.class))).thenReturn(response);
+        when(productService.update(eq(id), any(ProductUpdateRequest.class), isNull())).thenReturn(response);
 
         mockMvc.perform(put("/products/{id}", id)
                         .contentType(JSON)
@@ -361,9 +579,11 @@ class ProductControllerTest {
                 null,
                 null,
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L,
+                null
         );
-        when(productService.patch(eq(id), any(ProductPatchRequest.class))).thenReturn(response);
+        when(productService.patch(eq(id), any(ProductPatchRequest.class), isNull())).thenReturn(response);
 
         mockMvc.perform(patch("/products/{id}", id)
                         .contentType(JSON)
@@ -398,7 +618,7 @@ class ProductControllerTest {
     @Test
     void patchProduct_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
-        when(productService.patch(eq(id), any(ProductPatchRequest.class)))
+        when(productService.patch(eq(id), any(ProductPatchRequest.class), isNull()))
                 .thenThrow(new ResourceNotFoundException("Product not found: " + id));
 
         mockMvc.perform(patch("/products/{id}", id)
@@ -415,12 +635,54 @@ class ProductControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void deleteProduct_ifMatch_passesExpectedVersion() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        mockMvc.perform(delete("/products/{id}", id).header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andExpect(status().isNoContent());
+
+        verify(productService).delete(id, 3L);
+    }
+
+    @Test
+    void deleteProduct_compositeIfMatch_passesProductVersion() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        mockMvc.perform(delete("/products/{id}", id).header(HttpHeaders.IF_MATCH, "\"3.7\""))
+                .andExpect(status().isNoContent());
+
+        verify(productService).delete(id, 3L);
+    }
+
+    @Test
+    void deleteProduct_weakIfMatch_returns412() throws Exception {
+        mockMvc.perform(delete("/products/{id}", UUID.randomUUID()).header(HttpHeaders.IF_MATCH, "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(productService, never()).delete(any(), any());
+    }
+
+    @Test
+    void updateProduct_staleIfMatch_returns412() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(productService.update(eq(id), any(ProductUpdateRequest.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("Product " + id + " is at version 3, not 2"));
+
+        mockMvc.perform(put("/products/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(JSON)
+                        .content(requestJson("Monitor", "4K", "299.99")))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+    }
+
     @Test
     void deleteProduct_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
         doThrow(new ResourceNotFoundException("Product not found: " + id))
                 .when(productService)
-                .delete(id);
+                .delete(id, null);
 
         mockMvc.perform(delete("/products/{id}", id))
                 .andExpect(status().isNotFound())
@@ -505,11 +767,13 @@ class ProductControllerTest {
                 CREATED_AT,
                 UPDATED_AT
         );
-        KeysetResponse<ProductVariantResponse> keyset = new KeysetResponse<>(List.of(response), "next", true);
-        when(productService.listVariantsKeyset(eq(productId), eq("token"), eq(20))).thenReturn(keyset);
+        KeysetResponse<ProductVariantResponse> keyset = new KeysetResponse<>(List.of(response), "next", null);
+        when(productService.listVariantsKeyset(
+                eq(productId), eq(Sort.by(Sort.Direction.ASC, "sku")), eq("token"), eq(20))).thenReturn(keyset);
 
         mockMvc.perform(get("/products/{id}/variants", productId)
-                        .param("cursor", "token"))
+                        .param("cursor", "token")
+                        .param("sort", "sku,asc"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.items[0].sku").value("SKU-4"))
                 .andExpect(jsonPath("$.nextCursor").value("next"))
@@ -545,7 +809,9 @@ class ProductControllerTest {
                 null,
                 null,
                 CREATED_AT,
-                UPDATED_AT
+                UPDATED_AT,
+                0L,
+                null
         );
     }
 
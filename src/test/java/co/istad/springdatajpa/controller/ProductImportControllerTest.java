@@ -0,0 +1,63 @@
+package co.istad.springdatajpa.controller;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import co.istad.springdatajpa.config.SpringDataWebConfig;
+import co.istad.springdatajpa.dto.response.ProductImportResponse;
+import co.istad.springdatajpa.dto.response.ProductImportResult;
+import co.istad.springdatajpa.error.RestExceptionHandler;
+import co.istad.springdatajpa.service.ProductImportService;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(ProductImportController.class)
+@Import({SpringDataWebConfig.class, RestExceptionHandler.class})
+class ProductImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ProductImportService productImportService;
+
+    @Test
+    void importProducts_returnsPerItemResults() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(productImportService.importProducts(anyList())).thenReturn(ProductImportResponse.of(List.of(
+                ProductImportResult.created(0, id),
+                ProductImportResult.rejected(1, List.of("price: must not be null"))
+        )));
+
+        mockMvc.perform(post("/products:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"Desk\",\"price\":10.00},{\"name\":\"Chair\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[0].id").value(id.toString()))
+                .andExpect(jsonPath("$.items[1].errors[0]").value("price: must not be null"));
+    }
+
+    @Test
+    void importProducts_emptyArray_returns400() throws Exception {
+        mockMvc.perform(post("/products:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(productImportService);
+    }
+}
@@ -3,8 +3,12 @@ package co.istad.springdatajpa.controller;
 import co.istad.springdatajpa.dto.request.AttributeValueRequest;
 import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.ProductVariantResponse;
+import co.istad.springdatajpa.dto.response.StockReservationResponse;
+import co.istad.springdatajpa.dto.response.StockReservationStatus;
+import co.istad.springdatajpa.dto.response.VariantInventoryUpdateResponse;
 import co.istad.springdatajpa.config.SpringDataWebConfig;
 import co.istad.springdatajpa.error.RestExceptionHandler;
+import co.istad.springdatajpa.service.InventoryService;
 import co.istad.springdatajpa.service.ProductService;
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -18,9 +22,12 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -37,6 +44,56 @@ class VariantControllerTest {
     @MockitoBean
     private ProductService productService;
 
+    @MockitoBean
+    private InventoryService inventoryService;
+
+    @Test
+    void updateInventory_returnsUpdatedCountAndMissingSkus() throws Exception {
+        when(inventoryService.updateInventory(anyList()))
+                .thenReturn(new VariantInventoryUpdateResponse(1, List.of("SKU-MISSING")));
+
+        mockMvc.perform(patch("/variants/inventory")
+                        .contentType(JSON)
+                        .content("[{\"sku\":\"SKU-1\",\"stock\":5},{\"sku\":\"SKU-MISSING\",\"price\":9.99}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.notFoundSkus[0]").value("SKU-MISSING"));
+    }
+
+    @Test
+    void reserveStock_outOfStock_returns409() throws Exception {
+        UUID variantId = UUID.randomUUID();
+        when(inventoryService.reserve(variantId, 3)).thenReturn(
+                new StockReservationResponse(variantId, 3, StockReservationStatus.OUT_OF_STOCK, 1));
+
+        mockMvc.perform(post("/variants/{id}/reservations", variantId)
+                        .contentType(JSON)
+                        .content("{\"quantity\":3}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("OUT_OF_STOCK"))
+                .andExpect(jsonPath("$.stock").value(1));
+    }
+
+    @Test
+    void reserveStock_zeroQuantity_returns400() throws Exception {
+        mockMvc.perform(post("/variants/{id}/reservations", UUID.randomUUID())
+                        .contentType(JSON)
+                        .content("{\"quantity\":0}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void updateInventory_itemWithoutChanges_returns400() throws Exception {
+        mockMvc.perform(patch("/variants/inventory")
+                        .contentType(JSON)
+                        .content("[{\"sku\":\"SKU-1\"}]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(inventoryService);
+    }
+
     @Test
     void createVariantAttribute_success_returnsCreated() throws Exception {
         UUID variantId = UUID.randomUUID();
@@ -1,24 +1,41 @@
 package co.istad.springdatajpa.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import co.istad.springdatajpa.dto.request.CategoryPatchRequest;
 import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.repository.CategoryClosureRepository;
 import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.service.CategoryService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 
 @SpringBootTest
@@ -33,6 +50,21 @@ class CategoryIntegrationTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CategoryClosureRepository categoryClosureRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @AfterEach
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void cleanDatabase() {
@@ -64,6 +96,255 @@ class CategoryIntegrationTest {
         assertThat(updated.getUpdatedAt()).isNotNull();
         assertThat(updated.getUpdatedAt()).isAfterOrEqualTo(updatedAt);
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findById_servedFromSecondLevelCache() {
+        Category category = new Category();
+        category.setName("Cached-" + UUID.randomUUID());
+        Category saved = categoryRepository.save(category);
+        CacheRegionStatistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics()
+                .getDomainDataRegionStatistics(Category.CACHE_REGION);
+        long hitsBefore = statistics.getHitCount();
+
+        categoryRepository.findById(saved.getId()).orElseThrow();
+        categoryRepository.findById(saved.getId()).orElseThrow();
+
+        assertThat(statistics.getHitCount() - hitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void patch_reparent_evictsChildrenCollection() throws Exception {
+        Category oldParent = newCategory("OldParent-" + UUID.randomUUID());
+        Category newParent = newCategory("NewParent-" + UUID.randomUUID());
+        Category child = newCategory("Child-" + UUID.randomUUID());
+        child.setParent(oldParent);
+        categoryRepository.save(child);
+        assertThat(childNames(oldParent.getId())).containsExactly(child.getName());
+        assertThat(childNames(newParent.getId())).isEmpty();
+
+        mockMvc.perform(patch("/categories/{id}", child.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"parentId\":\"" + newParent.getId() + "\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(childNames(oldParent.getId())).isEmpty();
+        assertThat(childNames(newParent.getId())).containsExactly(child.getName());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void patch_rolledBack_keepsChildrenCollectionCached() {
+        Category oldParent = newCategory("OldParent-" + UUID.randomUUID());
+        Category newParent = newCategory("NewParent-" + UUID.randomUUID());
+        Category child = newCategory("Child-" + UUID.randomUUID());
+        child.setParent(oldParent);
+        categoryRepository.save(child);
+        assertThat(childNames(oldParent.getId())).containsExactly(child.getName());
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        String childrenRole = Category.class.getName() + ".children";
+        assertThat(cache.containsCollection(childrenRole, oldParent.getId())).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoryService.patch(child.getId(), new CategoryPatchRequest(null, newParent.getId(), null), null);
+            assertThat(cache.containsCollection(childrenRole, oldParent.getId())).isTrue();
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.containsCollection(childrenRole, oldParent.getId())).isTrue();
+        assertThat(childNames(oldParent.getId())).containsExactly(child.getName());
+    }
+
+    @Test
+    void hierarchyChanges_maintainClosure() throws Exception {
+        UUID electronics = createCategory("Electronics", null);
+        UUID phones = createCategory("Phones", electronics);
+        UUID android = createCategory("Android", phones);
+        UUID outlet = createCategory("Outlet", null);
+        assertThat(ancestorNames(android)).containsExactly("Electronics", "Phones", "Android");
+
+        mockMvc.perform(patch("/categories/{id}", phones)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"parentId\":\"" + outlet + "\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(ancestorNames(android)).containsExactly("Outlet", "Phones", "Android");
+        assertThat(ancestorNames(phones)).containsExactly("Outlet", "Phones");
+        assertThat(ancestorNames(electronics)).containsExactly("Electronics");
+
+        mockMvc.perform(patch("/categories/{id}", outlet)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"parentId\":\"" + android + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("parentId must not reference a descendant of the category"));
+
+        mockMvc.perform(delete("/categories/{id}", android))
+                .andExpect(status().isNoContent());
+
+        assertThat(ancestorNames(android)).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void closureWrites_keepSecondLevelCacheRegions() {
+        UUID cachedId = transactionTemplate.execute(status -> newCategory("Cached-" + UUID.randomUUID()).getId());
+        UUID movedId = transactionTemplate.execute(status -> newCategory("Moved-" + UUID.randomUUID()).getId());
+        entityManagerFactory.getCache().evictAll();
+        transactionTemplate.executeWithoutResult(status -> categoryRepository.findById(cachedId).orElseThrow());
+        assertThat(entityManagerFactory.getCache().contains(Category.class, cachedId)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoryClosureRepository.insertSelf(movedId);
+            categoryClosureRepository.detachSubtree(movedId);
+        });
+
+        // Native writes declare category_closure as their only query space.
+        assertThat(entityManagerFactory.getCache().contains(Category.class, cachedId)).isTrue();
+    }
+
+    @Test
+    void rebuildClosure_derivesRowsFromParentIds() {
+        Category root = newCategory("Root-" + UUID.randomUUID());
+        Category child = new Category();
+        child.setName("Child-" + UUID.randomUUID());
+        child.setParent(root);
+        categoryRepository.saveAndFlush(child);
+
+        int rows = categoryService.rebuildClosure();
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(ancestorNames(child.getId())).containsExactly(root.getName(), child.getName());
+    }
+
+    @Test
+    void rebuildClosure_rejectsCycles() {
+        Category first = newCategory("First-" + UUID.randomUUID());
+        Category second = newCategory("Second-" + UUID.randomUUID());
+        first.setParent(second);
+        second.setParent(first);
+        categoryRepository.saveAllAndFlush(List.of(first, second));
+
+        assertThatThrownBy(() -> categoryService.rebuildClosure())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cycle");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void treeAndPath_reflectCommittedChanges() throws Exception {
+        UUID computers = createCategory("Computers-" + UUID.randomUUID(), null);
+        UUID laptops = createCategory("Laptops-" + UUID.randomUUID(), computers);
+
+        awaitPathLength(laptops, 2);
+        mockMvc.perform(get("/categories/{id}/path", laptops))
+                .andExpect(jsonPath("$[0].id").value(computers.toString()))
+                .andExpect(jsonPath("$[1].id").value(laptops.toString()));
+        mockMvc.perform(get("/categories/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == '" + computers + "')].children[0].id").value(laptops.toString()));
+
+        UUID outlet = createCategory("Outlet-" + UUID.randomUUID(), null);
+        mockMvc.perform(patch("/categories/{id}", computers)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"parentId\":\"" + outlet + "\"}"))
+                .andExpect(status().isOk());
+
+        awaitPathLength(laptops, 3);
+    }
+
+    @Test
+    void keyset_sortOrder_pagesBothWaysWithNullsLast() throws Exception {
+        for (Object[] row : new Object[][]{{"Second", 2}, {"Unordered", null}, {"First", 1}}) {
+            Category category = newCategory((String) row[0]);
+            category.setSortOrder((Integer) row[1]);
+        }
+        categoryRepository.flush();
+
+        JsonNode first = keysetPage("sortOrder,asc", "");
+        assertThat(itemNames(first)).containsExactly("First", "Second");
+        assertThat(first.get("hasPrev").asBoolean()).isFalse();
+
+        JsonNode second = keysetPage("sortOrder,asc", first.get("nextCursor").asText());
+        assertThat(itemNames(second)).containsExactly("Unordered");
+        assertThat(second.get("hasNext").asBoolean()).isFalse();
+
+        JsonNode back = keysetPage("sortOrder,asc", second.get("prevCursor").asText());
+        assertThat(itemNames(back)).containsExactly("First", "Second");
+        assertThat(back.get("hasPrev").asBoolean()).isFalse();
+        assertThat(back.get("hasNext").asBoolean()).isTrue();
+
+        JsonNode descending = keysetPage("sortOrder,desc", "");
+        assertThat(itemNames(descending)).containsExactly("Unordered", "Second");
+        assertThat(itemNames(keysetPage("sortOrder,desc", descending.get("nextCursor").asText())))
+                .containsExactly("First");
+    }
+
+    private JsonNode keysetPage(String sort, String cursor) throws Exception {
+        String response = mockMvc.perform(get("/categories")
+                        .param("size", "2")
+                        .param("sort", sort)
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private static List<String> itemNames(JsonNode page) {
+        List<String> names = new ArrayList<>();
+        page.get("items").forEach(item -> names.add(item.get("name").asText()));
+        return names;
+    }
+
+    // The snapshot is rebuilt on a background thread after commit, so poll briefly for it.
+    private void awaitPathLength(UUID categoryId, int length) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (true) {
+            MockHttpServletResponse response = mockMvc.perform(get("/categories/{id}/path", categoryId))
+                    .andReturn()
+                    .getResponse();
+            if (response.getStatus() == 200
+                    && objectMapper.readTree(response.getContentAsString()).size() == length) {
+                return;
+            }
+            assertThat(System.nanoTime()).as("category tree refresh").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private UUID createCategory(String name, UUID parentId) throws Exception {
+        String parent = parentId == null ? "null" : "\"" + parentId + "\"";
+        String response = mockMvc.perform(post("/categories")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"parentId\":" + parent + "}"))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return UUID.fromString(objectMapper.readTree(response).get("id").asText());
+    }
+
+    private List<String> ancestorNames(UUID categoryId) {
+        return categoryClosureRepository.findAncestorsRootFirst(categoryId).stream()
+                .map(Category::getName)
+                .toList();
+    }
+
+    private Category newCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return categoryRepository.save(category);
+    }
+
+    private List<String> childNames(UUID parentId) {
+        return transactionTemplate.execute(status -> categoryRepository.findById(parentId).orElseThrow()
+                .getChildren().stream()
+                .map(Category::getName)
+                .toList());
+    }
 }
 
 
@@ -1,23 +1,53 @@
 package co.istad.springdatajpa.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import co.istad.springdatajpa.entity.AttributeDataType;
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.AttributeScope;
 import co.istad.springdatajpa.entity.Category;
 import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductAttributeValue;
+import co.istad.springdatajpa.entity.ProductAttributeValueId;
 import co.istad.springdatajpa.entity.ProductVariant;
+import co.istad.springdatajpa.entity.VariantAttributeValue;
+import co.istad.springdatajpa.entity.VariantAttributeValueId;
+import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
 import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.ProductAttributeValueRepository;
 import co.istad.springdatajpa.repository.ProductRepository;
 import co.istad.springdatajpa.repository.ProductVariantRepository;
+import co.istad.springdatajpa.repository.VariantAttributeValueRepository;
+import co.istad.springdatajpa.service.CategoryService;
+import co.istad.springdatajpa.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +57,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.junit.jupiter.api.AfterEach;
 
 @SpringBootTest
@@ -50,9 +81,30 @@ class ProductIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AttributeDefinitionRepository attributeDefinitionRepository;
+
+    @Autowired
+    private ProductAttributeValueRepository productAttributeValueRepository;
+
+    @Autowired
+    private VariantAttributeValueRepository variantAttributeValueRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @AfterEach
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void cleanDatabase() {
+        variantAttributeValueRepository.deleteAll();
+        productAttributeValueRepository.deleteAll();
+        attributeDefinitionRepository.deleteAll();
         productVariantRepository.deleteAll();
         productRepository.deleteAll();
         categoryRepository.deleteAll();
@@ -160,6 +212,144 @@ class ProductIntegrationTest {
                 .andExpect(jsonPath("$.category.name").value("Accessories"));
     }
 
+    @Test
+    void getProductDetail_loadsWholeAggregateWithFixedStatementCount() throws Exception {
+        Category primary = categoryRepository.saveAndFlush(newCategory("Office", "Office"));
+        Category secondary = categoryRepository.saveAndFlush(newCategory("Desks", "Desks"));
+        AttributeDefinition material = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Material", AttributeDataType.STRING, AttributeScope.PRODUCT, false));
+        AttributeDefinition color = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Color", AttributeDataType.STRING, AttributeScope.VARIANT, false));
+
+        Product small = newProduct("Small desk", "One variant", "100.00");
+        small.setCategory(primary);
+        small.getCategories().add(primary);
+        productRepository.saveAndFlush(small);
+        Product large = newProduct("Large desk", "Three variants", "300.00");
+        large.setCategory(primary);
+        large.getCategories().add(primary);
+        large.getCategories().add(secondary);
+        productRepository.saveAndFlush(large);
+        productAttributeValueRepository.saveAllAndFlush(List.of(
+                newProductAttr(small, material, "Pine", null),
+                newProductAttr(large, material, "Oak", null)
+        ));
+        ProductVariant smallVariant = productVariantRepository.saveAndFlush(newVariant(small, "SD-1", "100.00", 1));
+        variantAttributeValueRepository.saveAndFlush(newVariantAttr(smallVariant, color, "White"));
+        for (String sku : List.of("LD-1", "LD-2", "LD-3")) {
+            ProductVariant variant = productVariantRepository.saveAndFlush(newVariant(large, sku, "300.00", 2));
+            variantAttributeValueRepository.saveAndFlush(newVariantAttr(variant, color, "Black-" + sku));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        mockMvc.perform(get("/products/{id}/full", small.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.attributes[0].valueString").value("Pine"))
+                .andExpect(jsonPath("$.variants.length()").value(1))
+                .andExpect(jsonPath("$.variants[0].attributes[0].valueString").value("White"));
+        long smallStatements = statistics.getPrepareStatementCount() - before;
+        entityManager.clear();
+
+        before = statistics.getPrepareStatementCount();
+        mockMvc.perform(get("/products/{id}/full", large.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Large desk"))
+                .andExpect(jsonPath("$.category.name").value("Office"))
+                .andExpect(jsonPath("$.categories.length()").value(2))
+                .andExpect(jsonPath("$.attributes.length()").value(1))
+                .andExpect(jsonPath("$.variants.length()").value(3))
+                .andExpect(jsonPath("$.variants[0].attributes.length()").value(1))
+                .andExpect(jsonPath("$.variants[2].attributes[0].attributeId").value(color.getId().toString()));
+        long largeStatements = statistics.getPrepareStatementCount() - before;
+
+        assertThat(largeStatements).isEqualTo(smallStatements).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void getProduct_conditionalRequests_useVersionETag() throws Exception {
+        Product product = productRepository.saveAndFlush(newProduct("Lamp", "Desk lamp", "24.00"));
+        entityManager.clear();
+
+        mockMvc.perform(get("/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.version").value(0));
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        mockMvc.perform(get("/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+        // Only the version lookup; the product row is never loaded.
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+
+        mockMvc.perform(put("/products/{id}", product.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lamp\",\"description\":\"LED desk lamp\",\"price\":26.00}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(patch("/products/{id}", product.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":20.00}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/products/{id}", product.getId()).header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("LED desk lamp"));
+        mockMvc.perform(delete("/products/{id}", product.getId()).header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void getProduct_categoryRename_invalidatesETag() throws Exception {
+        Category category = categoryRepository.saveAndFlush(newCategory("Lighting", "Lamps"));
+        Product product = newProduct("Lamp", "Desk lamp", "24.00");
+        product.setCategory(category);
+        product = productRepository.saveAndFlush(product);
+        entityManager.clear();
+
+        mockMvc.perform(get("/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.0\""));
+
+        mockMvc.perform(put("/categories/{id}", category.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lights\",\"description\":\"Lamps\"}"))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get("/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0.0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.1\""))
+                .andExpect(jsonPath("$.category.name").value("Lights"));
+        mockMvc.perform(get("/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0.1\""))
+                .andExpect(status().isNotModified());
+
+        // If-Match guards the product row: the tag's category half does not block the write.
+        mockMvc.perform(patch("/products/{id}", product.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0.1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":20.00}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.1\""));
+    }
+
+    @Test
+    void getProductDetail_notFound_returns404() throws Exception {
+        mockMvc.perform(get("/products/{id}/full", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getCategory_includesProductSummaries() throws Exception {
         Category category = newCategory("Storage", "Storage devices");
@@ -173,7 +363,64 @@ class ProductIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.products").isArray())
                 .andExpect(jsonPath("$.products.length()").value(1))
-                .andExpect(jsonPath("$.products[0].name").value("SSD"));
+                .andExpect(jsonPath("$.products[0].name").value("SSD"))
+                .andExpect(jsonPath("$.productCount").doesNotExist())
+                .andExpect(jsonPath("$.productsNextCursor").isEmpty());
+    }
+
+    @Test
+    void getCategory_productViews_boundTheEmbeddedProducts() throws Exception {
+        Category category = categoryRepository.saveAndFlush(newCategory("Drives", "Drives"));
+        for (int i = 0; i < 3; i++) {
+            Product product = newProduct("Drive " + i, "Drive", "10.00");
+            product.setCategory(category);
+            productRepository.saveAndFlush(product);
+        }
+
+        mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("products", "count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(0))
+                .andExpect(jsonPath("$.productCount").value(3));
+
+        mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("products", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(0))
+                .andExpect(jsonPath("$.productCount").doesNotExist());
+
+        mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("products", "page")
+                        .param("page", "1")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.productCount").value(3));
+
+        mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.productCount").doesNotExist())
+                .andExpect(jsonPath("$.productsNextCursor").isNotEmpty());
+
+        String firstResponse = mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("products", "keyset")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String nextCursor = objectMapper.readTree(firstResponse).get("productsNextCursor").asText();
+
+        mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("products", "keyset")
+                        .param("size", "2")
+                        .param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.productsNextCursor").isEmpty());
     }
 
     @Test
@@ -245,6 +492,18 @@ class ProductIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void keyset_products_cursorWithUnlistedSort_returns400() throws Exception {
+        String cursor = KeysetCursor.encode(
+                new KeysetCursor.Position("description", true, "a", UUID.randomUUID(), false));
+
+        mockMvc.perform(get("/products")
+                        .param("cursor", cursor)
+                        .param("size", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("unsupported keyset sort property: description"));
+    }
+
     @Test
     void keyset_variants_multiPageTraversal() throws Exception {
         Product product = productRepository.saveAndFlush(newProduct("Phone", "Smartphone", "499.00"));
@@ -273,6 +532,589 @@ class ProductIntegrationTest {
                 .andExpect(jsonPath("$.hasNext").value(false));
     }
 
+    @Test
+    void listProducts_sliceModes_skipOrEstimateTheCount() throws Exception {
+        Category category = categoryRepository.saveAndFlush(newCategory("Monitors", "Monitors"));
+        for (int i = 0; i < 3; i++) {
+            Product product = newProduct("Monitor " + i, "Monitor", "150.00");
+            product.setCategory(category);
+            productRepository.saveAndFlush(product);
+        }
+        productRepository.saveAndFlush(newProduct("Stand", "Monitor stand", "20.00"));
+
+        mockMvc.perform(get("/products")
+                        .param("size", "3")
+                        .param("total", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.page.hasNext").value(true))
+                .andExpect(jsonPath("$.page.estimatedTotalElements").doesNotExist());
+
+        mockMvc.perform(get("/products")
+                        .param("size", "3")
+                        .param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.estimatedTotalElements").value(4));
+
+        mockMvc.perform(get("/products")
+                        .param("categoryId", category.getId().toString())
+                        .param("size", "3")
+                        .param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.page.hasNext").value(false))
+                .andExpect(jsonPath("$.page.estimatedTotalElements").value(3));
+
+        mockMvc.perform(get("/categories")
+                        .param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.page.estimatedTotalElements").value(1));
+    }
+
+    @Test
+    void keyset_products_sortedByPrice_pagesForwardAndBack() throws Exception {
+        productRepository.saveAndFlush(newProduct("Alpha", "A", "3.00"));
+        productRepository.saveAndFlush(newProduct("Beta", "B", "1.00"));
+        productRepository.saveAndFlush(newProduct("Gamma", "C", "2.00"));
+        productRepository.saveAndFlush(newProduct("Delta", "D", "2.00"));
+
+        JsonNode first = productKeysetPage("price,asc", "");
+        assertThat(itemValues(first, "price")).containsExactly("1.0", "2.0");
+        assertThat(first.get("hasPrev").asBoolean()).isFalse();
+
+        JsonNode second = productKeysetPage("price,asc", first.get("nextCursor").asText());
+        assertThat(itemValues(second, "price")).containsExactly("2.0", "3.0");
+        assertThat(second.get("hasNext").asBoolean()).isFalse();
+        assertThat(second.get("hasPrev").asBoolean()).isTrue();
+
+        JsonNode back = productKeysetPage("price,asc", second.get("prevCursor").asText());
+        assertThat(itemValues(back, "name")).isEqualTo(itemValues(first, "name"));
+        assertThat(back.get("hasPrev").asBoolean()).isFalse();
+        assertThat(back.get("hasNext").asBoolean()).isTrue();
+
+        List<String> tied = new ArrayList<>(itemValues(first, "name").subList(1, 2));
+        tied.addAll(itemValues(second, "name").subList(0, 1));
+        assertThat(tied).containsExactlyInAnyOrder("Gamma", "Delta");
+    }
+
+    @Test
+    void keyset_products_cursorKeepsItsSort() throws Exception {
+        productRepository.saveAndFlush(newProduct("Charlie", "C", "1.00"));
+        productRepository.saveAndFlush(newProduct("Alpha", "A", "1.00"));
+        productRepository.saveAndFlush(newProduct("Bravo", "B", "1.00"));
+
+        JsonNode first = productKeysetPage("name,asc", "");
+        assertThat(itemValues(first, "name")).containsExactly("Alpha", "Bravo");
+
+        // The sort parameter is ignored once a cursor carries its own sort.
+        JsonNode second = productKeysetPage("price,desc", first.get("nextCursor").asText());
+        assertThat(itemValues(second, "name")).containsExactly("Charlie");
+    }
+
+    @Test
+    void keyset_products_legacyCursorStillReadable() throws Exception {
+        Product older = productRepository.saveAndFlush(newProduct("Older", "O", "1.00"));
+        Product newer = productRepository.saveAndFlush(newProduct("Newer", "N", "1.00"));
+        String legacy = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (newer.getCreatedAt().truncatedTo(ChronoUnit.MICROS) + "|" + newer.getId())
+                        .getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/products")
+                        .param("cursor", legacy))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(older.getId().toString()));
+    }
+
+    @Test
+    void keyset_variants_sortedBySku() throws Exception {
+        Product product = productRepository.saveAndFlush(newProduct("Phone", "Smartphone", "499.00"));
+        productVariantRepository.saveAndFlush(newVariant(product, "SKU-C", "499.00", 10));
+        productVariantRepository.saveAndFlush(newVariant(product, "SKU-A", "549.00", 5));
+        productVariantRepository.saveAndFlush(newVariant(product, "SKU-B", "529.00", 5));
+
+        String response = mockMvc.perform(get("/products/{id}/variants", product.getId())
+                        .param("size", "2")
+                        .param("sort", "sku,asc")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        JsonNode first = objectMapper.readTree(response);
+        assertThat(itemValues(first, "sku")).containsExactly("SKU-A", "SKU-B");
+
+        mockMvc.perform(get("/products/{id}/variants", product.getId())
+                        .param("size", "2")
+                        .param("cursor", first.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].sku").value("SKU-C"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.hasPrev").value(true));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importProducts_batchesInsertsAndReportsEachItem() throws Exception {
+        Category category = categoryRepository.save(newCategory("Import-" + UUID.randomUUID(), "Import"));
+        UUID unknownCategory = UUID.randomUUID();
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(Map.of(
+                    "name", "Imported-" + i,
+                    "price", "9.99",
+                    "categoryId", category.getId().toString(),
+                    "categoryIds", List.of(category.getId().toString())));
+        }
+        items.add(Map.of("name", "", "price", "1.00"));
+        items.add(Map.of("name", "Orphan", "price", "1.00", "categoryId", unknownCategory.toString()));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        mockMvc.perform(post("/products:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(50))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[50].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[50].errors[0]").value("name: must not be blank"))
+                .andExpect(jsonPath("$.items[51].errors[0]").value("Category not found: " + unknownCategory));
+        // One category lookup plus batched product and product_categories inserts.
+        assertThat(statistics.getPrepareStatementCount() - before).isLessThan(10);
+
+        List<Product> imported = productRepository.findAll().stream()
+                .filter(product -> product.getName().startsWith("Imported-"))
+                .toList();
+        assertThat(imported).hasSize(50);
+        assertThat(productRepository.findDetailById(imported.get(0).getId()).orElseThrow().getCategories())
+                .extracting(Category::getId)
+                .containsExactly(category.getId());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importProducts_ndjsonStreamsResultsAndSkipsMalformedLines() throws Exception {
+        String body = """
+                {"name":"Lamp","price":"15.00"}
+
+                {"name":"Broken",
+                {"name":"Shade","price":"4.50"}
+                """;
+        MvcResult started = mockMvc.perform(post("/products:batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // app.import.request-timeout, not the container's default async timeout.
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        List<String> lines = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .lines()
+                .toList();
+
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines.get(0)).get("status").asText()).isEqualTo("CREATED");
+        JsonNode malformed = objectMapper.readTree(lines.get(1));
+        assertThat(malformed.get("index").asInt()).isEqualTo(1);
+        assertThat(malformed.get("status").asText()).isEqualTo("REJECTED");
+        assertThat(malformed.get("errors").get(0).asText()).startsWith("malformed JSON");
+        assertThat(objectMapper.readTree(lines.get(2)).get("index").asInt()).isEqualTo(2);
+        assertThat(productRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void updateInventory_appliesBySkuAndReportsUnknownSkus() throws Exception {
+        Product product = productRepository.saveAndFlush(newProduct("Mug", "Ceramic", "8.00"));
+        ProductVariant red = productVariantRepository.saveAndFlush(newVariant(product, "MUG-RED", "8.00", 1));
+        ProductVariant blue = productVariantRepository.saveAndFlush(newVariant(product, "MUG-BLUE", "8.00", 2));
+
+        mockMvc.perform(patch("/variants/inventory")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                  {"sku":"MUG-RED","stock":40,"price":7.50},
+                                  {"sku":"MUG-BLUE","stock":0},
+                                  {"sku":"MUG-GREEN","stock":3}
+                                ]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.notFoundSkus.length()").value(1))
+                .andExpect(jsonPath("$.notFoundSkus[0]").value("MUG-GREEN"));
+
+        entityManager.clear();
+        ProductVariant updatedRed = productVariantRepository.findById(red.getId()).orElseThrow();
+        ProductVariant updatedBlue = productVariantRepository.findById(blue.getId()).orElseThrow();
+        assertThat(updatedRed.getStock()).isEqualTo(40);
+        assertThat(updatedRed.getPrice()).isEqualByComparingTo("7.50");
+        assertThat(updatedBlue.getStock()).isZero();
+        assertThat(updatedBlue.getPrice()).isEqualByComparingTo("8.00");
+        assertThat(updatedBlue.getUpdatedAt()).isAfterOrEqualTo(blue.getUpdatedAt());
+        assertThat(updatedBlue.getVersion()).isEqualTo(blue.getVersion() + 1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void exportProducts_streamsNdjsonFilteredByCategory() throws Exception {
+        Category category = categoryRepository.save(newCategory("Export-" + UUID.randomUUID(), "Export"));
+        Product inCategory = newProduct("Router", "Wi-Fi router", "89.00");
+        inCategory.setCategory(category);
+        productRepository.save(inCategory);
+        productRepository.save(newProduct("Cable", "HDMI cable", "12.00"));
+
+        MvcResult all = mockMvc.perform(get("/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(all.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        String allBody = mockMvc.perform(asyncDispatch(all))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertThat(allBody.lines()).hasSize(2);
+
+        MvcResult filtered = mockMvc.perform(get("/products/export")
+                        .param("categoryId", category.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        List<String> lines = mockMvc.perform(asyncDispatch(filtered))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .lines()
+                .toList();
+        assertThat(lines).hasSize(1);
+        assertThat(objectMapper.readTree(lines.get(0)).get("name").asText()).isEqualTo("Router");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void exportProducts_updatedSinceInFuture_returnsEmptyBody() throws Exception {
+        productRepository.save(newProduct("Cable", "HDMI cable", "12.00"));
+
+        MvcResult result = mockMvc.perform(get("/products/export")
+                        .param("updatedSince", Instant.now().plusSeconds(3600).toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void exportProducts_unknownCategory_returns404BeforeStreaming() throws Exception {
+        mockMvc.perform(get("/products/export")
+                        .param("categoryId", UUID.randomUUID().toString()))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listProducts_attributeFilters_matchProductAndVariantValues() throws Exception {
+        AttributeDefinition material = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Material", AttributeDataType.STRING, AttributeScope.PRODUCT, true));
+        AttributeDefinition weight = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("WeightKg", AttributeDataType.NUMBER, AttributeScope.PRODUCT, true));
+        AttributeDefinition color = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Color", AttributeDataType.STRING, AttributeScope.VARIANT, true));
+
+        Product light = productRepository.saveAndFlush(newProduct("Light", "Aluminum, light", "10.00"));
+        Product heavy = productRepository.saveAndFlush(newProduct("Heavy", "Steel, heavy", "20.00"));
+        Product plastic = productRepository.saveAndFlush(newProduct("Plastic", "Plastic", "5.00"));
+        productAttributeValueRepository.saveAllAndFlush(List.of(
+                newProductAttr(light, material, "Aluminum", null),
+                newProductAttr(light, weight, null, "1.2"),
+                newProductAttr(heavy, material, "Steel", null),
+                newProductAttr(heavy, weight, null, "4.5"),
+                newProductAttr(plastic, material, "Plastic", null)
+        ));
+        ProductVariant heavyBlack = productVariantRepository.saveAndFlush(newVariant(heavy, "SKU-HB", "20.00", 1));
+        variantAttributeValueRepository.saveAndFlush(newVariantAttr(heavyBlack, color, "Black"));
+
+        mockMvc.perform(get("/products")
+                        .param("attr", material.getId() + ":in:Aluminum|Steel")
+                        .param("sort", "name,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].name").value("Heavy"))
+                .andExpect(jsonPath("$.content[1].name").value("Light"))
+                .andExpect(jsonPath("$.page.totalElements").value(2));
+
+        mockMvc.perform(get("/products")
+                        .param("attr", weight.getId() + ":range:1..2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("Light"));
+
+        mockMvc.perform(get("/products")
+                        .param("attr", color.getId() + ":eq:Black")
+                        .param("attr", material.getId() + ":eq:Steel")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Heavy"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void listProducts_attributeFilter_keysetTraversal() throws Exception {
+        AttributeDefinition material = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Material", AttributeDataType.STRING, AttributeScope.BOTH, true));
+        for (String name : List.of("Alpha", "Beta", "Gamma")) {
+            Product product = productRepository.saveAndFlush(newProduct(name, name, "1.00"));
+            productAttributeValueRepository.saveAndFlush(newProductAttr(product, material, "Wood", null));
+        }
+        productRepository.saveAndFlush(newProduct("Delta", "No material", "1.00"));
+
+        String firstResponse = mockMvc.perform(get("/products")
+                        .param("attr", material.getId() + ":eq:Wood")
+                        .param("size", "2")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String nextCursor = objectMapper.readTree(firstResponse).get("nextCursor").asText();
+
+        mockMvc.perform(get("/products")
+                        .param("attr", material.getId() + ":eq:Wood")
+                        .param("size", "2")
+                        .param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void listProducts_attributeFilter_rejectsNonFilterableAndMalformed() throws Exception {
+        AttributeDefinition weight = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("WeightKg", AttributeDataType.NUMBER, AttributeScope.PRODUCT, false));
+
+        mockMvc.perform(get("/products")
+                        .param("attr", weight.getId() + ":range:1..2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Attribute is not filterable: " + weight.getId()));
+
+        mockMvc.perform(get("/products")
+                        .param("attr", "not-a-filter"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listProducts_includeDescendants_matchesWholeSubtree() throws Exception {
+        Category electronics = categoryRepository.saveAndFlush(newCategory("Electronics", "Electronics"));
+        Category phones = newCategory("Phones", "Phones");
+        phones.setParent(electronics);
+        phones = categoryRepository.saveAndFlush(phones);
+        Category android = newCategory("Android", "Android phones");
+        android.setParent(phones);
+        android = categoryRepository.saveAndFlush(android);
+        Category garden = categoryRepository.saveAndFlush(newCategory("Garden", "Garden"));
+        categoryService.rebuildClosure();
+
+        for (Category category : List.of(electronics, phones, android, android, garden)) {
+            Product product = newProduct(category.getName() + "-" + UUID.randomUUID(), "item", "1.00");
+            product.setCategory(category);
+            productRepository.saveAndFlush(product);
+        }
+
+        mockMvc.perform(get("/products")
+                        .param("categoryId", electronics.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.totalElements").value(1));
+
+        mockMvc.perform(get("/products")
+                        .param("categoryId", electronics.getId().toString())
+                        .param("includeDescendants", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.totalElements").value(4));
+
+        String firstResponse = mockMvc.perform(get("/products")
+                        .param("categoryId", phones.getId().toString())
+                        .param("includeDescendants", "true")
+                        .param("size", "2")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String nextCursor = objectMapper.readTree(firstResponse).get("nextCursor").asText();
+
+        mockMvc.perform(get("/products")
+                        .param("categoryId", phones.getId().toString())
+                        .param("includeDescendants", "true")
+                        .param("size", "2")
+                        .param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        mockMvc.perform(get("/products")
+                        .param("categoryId", UUID.randomUUID().toString())
+                        .param("includeDescendants", "true"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void facets_countProductAndVariantValuesCategoriesAndPrice() throws Exception {
+        Category root = categoryRepository.saveAndFlush(newCategory("Furniture", "Furniture"));
+        Category chairs = newCategory("Chairs", "Chairs");
+        chairs.setParent(root);
+        chairs = categoryRepository.saveAndFlush(chairs);
+        Category desks = newCategory("Desks", "Desks");
+        desks.setParent(root);
+        desks = categoryRepository.saveAndFlush(desks);
+        categoryService.rebuildClosure();
+
+        AttributeDefinition material = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Material", AttributeDataType.STRING, AttributeScope.BOTH, true));
+        AttributeDefinition internal = attributeDefinitionRepository.saveAndFlush(
+                newAttribute("Internal", AttributeDataType.STRING, AttributeScope.PRODUCT, false));
+
+        Product oak = newProduct("Oak chair", "Oak", "40.00");
+        oak.setCategory(chairs);
+        oak = productRepository.saveAndFlush(oak);
+        Product steel = newProduct("Steel chair", "Steel", "120.00");
+        steel.setCategory(chairs);
+        steel = productRepository.saveAndFlush(steel);
+        Product desk = newProduct("Oak desk", "Oak", "300.00");
+        desk.setCategory(desks);
+        desk = productRepository.saveAndFlush(desk);
+
+        productAttributeValueRepository.saveAllAndFlush(List.of(
+                newProductAttr(oak, material, "Oak", null),
+                newProductAttr(desk, material, "Oak", null),
+                newProductAttr(oak, internal, "hidden", null)
+        ));
+        ProductVariant oakVariant = productVariantRepository.saveAndFlush(newVariant(oak, "SKU-OAK", "40.00", 1));
+        ProductVariant steelBlack = productVariantRepository.saveAndFlush(newVariant(steel, "SKU-SB", "120.00", 1));
+        ProductVariant steelGrey = productVariantRepository.saveAndFlush(newVariant(steel, "SKU-SG", "120.00", 1));
+        variantAttributeValueRepository.saveAllAndFlush(List.of(
+                newVariantAttr(oakVariant, material, "Oak"),
+                newVariantAttr(steelBlack, material, "Steel"),
+                newVariantAttr(steelGrey, material, "Steel")
+        ));
+
+        mockMvc.perform(get("/products/facets")
+                        .param("priceBreaks", "100", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.attributes.length()").value(1))
+                .andExpect(jsonPath("$.attributes[0].name").value("Material"))
+                .andExpect(jsonPath("$.attributes[0].values[0].value").value("Oak"))
+                .andExpect(jsonPath("$.attributes[0].values[0].count").value(2))
+                .andExpect(jsonPath("$.attributes[0].values[1].value").value("Steel"))
+                .andExpect(jsonPath("$.attributes[0].values[1].count").value(1))
+                .andExpect(jsonPath("$.categories.length()").value(1))
+                .andExpect(jsonPath("$.categories[0].name").value("Furniture"))
+                .andExpect(jsonPath("$.categories[0].count").value(3))
+                .andExpect(jsonPath("$.priceBuckets.length()").value(3))
+                .andExpect(jsonPath("$.priceBuckets[0].count").value(1))
+                .andExpect(jsonPath("$.priceBuckets[1].count").value(1))
+                .andExpect(jsonPath("$.priceBuckets[2].from").value(200))
+                .andExpect(jsonPath("$.priceBuckets[2].count").value(1));
+
+        mockMvc.perform(get("/products/facets")
+                        .param("categoryId", root.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories.length()").value(2))
+                .andExpect(jsonPath("$.categories[0].name").value("Chairs"))
+                .andExpect(jsonPath("$.categories[0].count").value(2))
+                .andExpect(jsonPath("$.categories[1].name").value("Desks"))
+                .andExpect(jsonPath("$.categories[1].count").value(1));
+
+        mockMvc.perform(get("/products/facets")
+                        .param("categoryId", chairs.getId().toString())
+                        .param("attr", material.getId() + ":eq:Oak"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.attributes[0].values.length()").value(1))
+                .andExpect(jsonPath("$.attributes[0].values[0].count").value(1))
+                .andExpect(jsonPath("$.categories.length()").value(0))
+                .andExpect(jsonPath("$.priceBuckets[0].to").value(50))
+                .andExpect(jsonPath("$.priceBuckets[0].count").value(1));
+    }
+
+    @Test
+    void facets_categoryCoversSubtreeByDefault() throws Exception {
+        Category root = categoryRepository.saveAndFlush(newCategory("Furniture", "Furniture"));
+        Category chairs = newCategory("Chairs", "Chairs");
+        chairs.setParent(root);
+        chairs = categoryRepository.saveAndFlush(chairs);
+        Category stools = newCategory("Stools", "Stools");
+        stools.setParent(chairs);
+        stools = categoryRepository.saveAndFlush(stools);
+        categoryService.rebuildClosure();
+
+        Product armchair = newProduct("Armchair", "Armchair", "150.00");
+        armchair.setCategory(chairs);
+        productRepository.saveAndFlush(armchair);
+        Product stool = newProduct("Bar stool", "Stool", "60.00");
+        stool.setCategory(stools);
+        stool.getCategories().add(chairs);
+        productRepository.saveAndFlush(stool);
+        Product footstool = newProduct("Footstool", "Stool", "30.00");
+        footstool.setCategory(stools);
+        productRepository.saveAndFlush(footstool);
+
+        mockMvc.perform(get("/products/facets")
+                        .param("categoryId", root.getId().toString())
+                        .param("priceBreaks", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories.length()").value(1))
+                .andExpect(jsonPath("$.categories[0].name").value("Chairs"))
+                .andExpect(jsonPath("$.categories[0].count").value(3))
+                .andExpect(jsonPath("$.priceBuckets[0].count").value(2))
+                .andExpect(jsonPath("$.priceBuckets[1].count").value(1));
+
+        mockMvc.perform(get("/products/facets")
+                        .param("categoryId", chairs.getId().toString())
+                        .param("includeDescendants", "false")
+                        .param("priceBreaks", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories[0].name").value("Stools"))
+                .andExpect(jsonPath("$.categories[0].count").value(2))
+                .andExpect(jsonPath("$.priceBuckets[0].count").value(1))
+                .andExpect(jsonPath("$.priceBuckets[1].count").value(1));
+    }
+
+    @Test
+    void facets_rejectsUnorderedPriceBreaks() throws Exception {
+        mockMvc.perform(get("/products/facets")
+                        .param("priceBreaks", "100", "50"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("priceBreaks must be strictly ascending"));
+    }
+
+    private JsonNode productKeysetPage(String sort, String cursor) throws Exception {
+        String response = mockMvc.perform(get("/products")
+                        .param("size", "2")
+                        .param("sort", sort)
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private static List<String> itemValues(JsonNode page, String field) {
+        List<String> values = new ArrayList<>();
+        page.get("items").forEach(item -> values.add(item.get(field).asText()));
+        return values;
+    }
+
     private static Product newProduct(String name, String description, String price) {
         Product product = new Product();
         product.setName(name);
@@ -296,6 +1138,42 @@ class ProductIntegrationTest {
         category.setDescription(description);
         return category;
     }
+
+    private static AttributeDefinition newAttribute(String name,
+                                                    AttributeDataType dataType,
+                                                    AttributeScope scope,
+                                                    boolean filterable) {
+        AttributeDefinition definition = new AttributeDefinition();
+        definition.setName(name);
+        definition.setDataType(dataType);
+        definition.setScope(scope);
+        definition.setFilterable(filterable);
+        return definition;
+    }
+
+    private static ProductAttributeValue newProductAttr(Product product,
+                                                        AttributeDefinition attribute,
+                                                        String valueString,
+                                                        String valueNumber) {
+        ProductAttributeValue value = new ProductAttributeValue();
+        value.setId(new ProductAttributeValueId(product.getId(), attribute.getId()));
+        value.setProduct(product);
+        value.setAttribute(attribute);
+        value.setValueString(valueString);
+        value.setValueNumber(valueNumber == null ? null : new BigDecimal(valueNumber));
+        return value;
+    }
+
+    private static VariantAttributeValue newVariantAttr(ProductVariant variant,
+                                                        AttributeDefinition attribute,
+                                                        String valueString) {
+        VariantAttributeValue value = new VariantAttributeValue();
+        value.setId(new VariantAttributeValueId(variant.getId(), attribute.getId()));
+        value.setVariant(variant);
+        value.setAttribute(attribute);
+        value.setValueString(valueString);
+        return value;
+    }
 }
 
 
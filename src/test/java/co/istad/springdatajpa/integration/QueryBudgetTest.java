@@ -0,0 +1,271 @@
+package co.istad.springdatajpa.integration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import co.istad.springdatajpa.entity.AttributeDataType;
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.AttributeScope;
+import co.istad.springdatajpa.entity.Category;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductAttributeValue;
+import co.istad.springdatajpa.entity.ProductAttributeValueId;
+import co.istad.springdatajpa.entity.ProductVariant;
+import co.istad.springdatajpa.entity.VariantAttributeValue;
+import co.istad.springdatajpa.entity.VariantAttributeValueId;
+import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
+import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.ProductAttributeValueRepository;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.repository.ProductVariantRepository;
+import co.istad.springdatajpa.repository.VariantAttributeValueRepository;
+import java.math.BigDecimal;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Statement budgets per endpoint. Every list returns a full page of products that each
+ * have a category, a second category, variants and attribute values, so a lazy
+ * association the mappers start touching shows up as extra statements here. Budgets
+ * are the current counts; raise one only together with the change that needs it.
+ * {@code QueryBudgetContainerIT} runs the same budgets on PostgreSQL.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class QueryBudgetTest {
+
+    private static final int PRODUCTS = 25;
+    private static final int PAGE_SIZE = 20;
+
+    @RegisterExtension
+    final SqlStatementRecorder sql = new SqlStatementRecorder();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private AttributeDefinitionRepository attributeDefinitionRepository;
+
+    @Autowired
+    private ProductAttributeValueRepository productAttributeValueRepository;
+
+    @Autowired
+    private VariantAttributeValueRepository variantAttributeValueRepository;
+
+    private Category category;
+    private Product product;
+    private ProductVariant variant;
+    private AttributeDefinition productAttribute;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(newCategory("Budget furniture"));
+        Category secondary = categoryRepository.save(newCategory("Budget offers"));
+        productAttribute = attributeDefinitionRepository.save(
+                newAttribute("budget-material", AttributeScope.PRODUCT));
+        AttributeDefinition variantAttribute = attributeDefinitionRepository.save(
+                newAttribute("budget-color", AttributeScope.VARIANT));
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product saved = new Product();
+            saved.setName("Budget product " + i);
+            saved.setPrice(new BigDecimal("10.00").add(BigDecimal.valueOf(i)));
+            saved.assignCategories(category, Set.of(secondary));
+            saved = productRepository.save(saved);
+            productAttributeValueRepository.save(newProductAttr(saved, productAttribute));
+            for (int v = 0; v < 2; v++) {
+                ProductVariant savedVariant = new ProductVariant();
+                savedVariant.setProduct(saved);
+                savedVariant.setSku("BUDGET-" + i + "-" + v);
+                savedVariant.setPrice(saved.getPrice());
+                savedVariant.setStock(5);
+                savedVariant = productVariantRepository.save(savedVariant);
+                variantAttributeValueRepository.save(newVariantAttr(savedVariant, variantAttribute));
+                variant = savedVariant;
+            }
+            product = saved;
+        }
+    }
+
+    @Test
+    void listProducts() throws Exception {
+        sql.assertAtMost(2, "GET /products", () -> mockMvc.perform(get("/products")
+                        .param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE)));
+    }
+
+    @Test
+    void listProductsByCategory() throws Exception {
+        sql.assertAtMost(2, "GET /products?categoryId=", () -> mockMvc.perform(get("/products")
+                        .param("categoryId", category.getId().toString())
+                        .param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void listProductsKeyset() throws Exception {
+        MvcResult first = mockMvc.perform(get("/products").param("cursor", "").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String next = readTree(first).get("nextCursor").asText();
+
+        sql.assertAtMost(1, "GET /products?cursor=", () -> mockMvc.perform(get("/products")
+                        .param("cursor", "")
+                        .param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(PAGE_SIZE)));
+        sql.assertAtMost(1, "GET /products?cursor=<next>", () -> mockMvc.perform(get("/products")
+                        .param("cursor", next)
+                        .param("size", "5"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getProduct() throws Exception {
+        sql.assertAtMost(2, "GET /products/{id}", () -> mockMvc.perform(get("/products/{id}", product.getId()))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(4, "GET /products/{id}/full", () -> mockMvc.perform(
+                        get("/products/{id}/full", product.getId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void createAndUpdateProduct() throws Exception {
+        String body = "{\"name\":\"Budget desk\",\"price\":99.00,\"categoryId\":\"" + category.getId() + "\"}";
+        sql.assertAtMost(4, "POST /products", () -> mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated()));
+        sql.assertAtMost(3, "PUT /products/{id}", () -> mockMvc.perform(put("/products/{id}", product.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"" + product.getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void variants() throws Exception {
+        sql.assertAtMost(1, "GET /products/{id}/variants", () -> mockMvc.perform(
+                        get("/products/{id}/variants", product.getId()))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(1, "GET /products/{id}/variants?cursor=", () -> mockMvc.perform(
+                        get("/products/{id}/variants", product.getId()).param("cursor", ""))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(2, "POST /products/{id}/variants", () -> mockMvc.perform(
+                        post("/products/{id}/variants", product.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"sku\":\"BUDGET-NEW\",\"price\":12.00,\"stock\":3}"))
+                .andExpect(status().isCreated()));
+        sql.assertAtMost(1, "GET /variants/{id}", () -> mockMvc.perform(get("/variants/{id}", variant.getId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void attributes() throws Exception {
+        AttributeDefinition other = attributeDefinitionRepository.save(
+                newAttribute("budget-finish", AttributeScope.PRODUCT));
+        sql.assertAtMost(2, "GET /products/{id}/attributes", () -> mockMvc.perform(
+                        get("/products/{id}/attributes", product.getId()))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(5, "POST /products/{id}/attributes", () -> mockMvc.perform(
+                        post("/products/{id}/attributes", product.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"attributeId\":\"" + other.getId() + "\",\"valueString\":\"Oak\"}"))
+                .andExpect(status().isCreated()));
+        sql.assertAtMost(2, "GET /variants/{id}/attributes", () -> mockMvc.perform(
+                        get("/variants/{id}/attributes", variant.getId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void categories() throws Exception {
+        sql.assertAtMost(1, "GET /categories", () -> mockMvc.perform(get("/categories"))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(1, "GET /categories?cursor=", () -> mockMvc.perform(get("/categories").param("cursor", ""))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(2, "GET /categories/{id}", () -> mockMvc.perform(get("/categories/{id}", category.getId())
+                        .param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(3, "GET /categories/{id}?products=page", () -> mockMvc.perform(
+                        get("/categories/{id}", category.getId())
+                                .param("products", "page")
+                                .param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk()));
+        sql.assertAtMost(4, "POST /categories", () -> mockMvc.perform(post("/categories")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Budget chairs\",\"parentId\":\"" + category.getId() + "\"}"))
+                .andExpect(status().isCreated()));
+        sql.assertAtMost(2, "PUT /categories/{id}", () -> mockMvc.perform(put("/categories/{id}", category.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"" + category.getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Budget furniture\",\"sortOrder\":1}"))
+                .andExpect(status().isOk()));
+    }
+
+    private JsonNode readTree(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static Category newCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private static AttributeDefinition newAttribute(String name, AttributeScope scope) {
+        AttributeDefinition definition = new AttributeDefinition();
+        definition.setName(name);
+        definition.setDataType(AttributeDataType.STRING);
+        definition.setScope(scope);
+        definition.setFilterable(true);
+        return definition;
+    }
+
+    private static ProductAttributeValue newProductAttr(Product product, AttributeDefinition attribute) {
+        ProductAttributeValue value = new ProductAttributeValue();
+        value.setId(new ProductAttributeValueId(product.getId(), attribute.getId()));
+        value.setProduct(product);
+        value.setAttribute(attribute);
+        value.setValueString("Pine");
+        return value;
+    }
+
+    private static VariantAttributeValue newVariantAttr(ProductVariant variant, AttributeDefinition attribute) {
+        VariantAttributeValue value = new VariantAttributeValue();
+        value.setId(new VariantAttributeValueId(variant.getId(), attribute.getId()));
+        value.setVariant(variant);
+        value.setAttribute(attribute);
+        value.setValueString("White");
+        return value;
+    }
+}
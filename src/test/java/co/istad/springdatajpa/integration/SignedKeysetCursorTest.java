@@ -0,0 +1,93 @@
+package co.istad.springdatajpa.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.util.KeysetCursor;
+import co.istad.springdatajpa.util.KeysetCursorCodec;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(properties = "app.keyset.cursor-secret=test-secret")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class SignedKeysetCursorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private KeysetCursorCodec cursorCodec;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 3; i++) {
+            Product product = new Product();
+            product.setName("Signed " + i);
+            product.setPrice(new BigDecimal(i + ".50"));
+            productRepository.saveAndFlush(product);
+        }
+    }
+
+    @Test
+    void issuedCursors_areSignedTypedAndFollowable() throws Exception {
+        assertThat(cursorCodec.isSigned()).isTrue();
+        String nextCursor = nextCursor("createdAt,desc");
+
+        KeysetCursor.Position position = cursorCodec.decode(nextCursor);
+        assertThat(position.value()).isInstanceOf(Instant.class);
+        mockMvc.perform(get("/products").param("size", "2").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+
+        String priceCursor = nextCursor("price,asc");
+        assertThat(cursorCodec.decode(priceCursor).value()).isEqualTo(new BigDecimal("2.50"));
+        mockMvc.perform(get("/products").param("size", "2").param("cursor", priceCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].price").value(3.50));
+    }
+
+    @Test
+    void unsignedOrAlteredCursors_return400() throws Exception {
+        String nextCursor = nextCursor("createdAt,desc");
+        byte[] altered = Base64.getUrlDecoder().decode(nextCursor);
+        altered[3] ^= 1;
+
+        mockMvc.perform(get("/products").param("size", "2")
+                        .param("cursor", Base64.getUrlEncoder().withoutPadding().encodeToString(altered)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products").param("size", "2")
+                        .param("cursor", KeysetCursor.encode(cursorCodec.decode(nextCursor))))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String nextCursor(String sort) throws Exception {
+        String body = mockMvc.perform(get("/products").param("size", "2").param("cursor", "").param("sort", sort))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(body).get("nextCursor").asText();
+    }
+}
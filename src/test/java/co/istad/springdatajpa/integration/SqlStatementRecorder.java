@@ -0,0 +1,83 @@
+package co.istad.springdatajpa.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import co.istad.springdatajpa.config.StatementCountingDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.SQLException;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records the SQL each call (typically one MockMvc request) sends through the
+ * {@link StatementCountingDataSource}. Register it with {@code @RegisterExtension} on a
+ * {@code @SpringBootTest}. Before each call the persistence context is flushed and cleared
+ * and the second-level cache emptied, so every call starts as cold as a fresh request.
+ * Inside a test transaction, writes the call left pending are flushed and counted against it.
+ */
+class SqlStatementRecorder implements BeforeEachCallback, AfterEachCallback {
+
+    private EntityManager entityManager;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws SQLException {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        assertThat(applicationContext.getBean(DataSource.class).isWrapperFor(StatementCountingDataSource.class))
+                .as("statement recording needs app.metrics.statements.enabled")
+                .isTrue();
+        entityManager = applicationContext.getBean(EntityManager.class);
+        entityManagerFactory = applicationContext.getBean(EntityManagerFactory.class);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        StatementCountingDataSource.stopRecording();
+    }
+
+    List<String> record(Call call) throws Exception {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+        entityManagerFactory.getCache().evictAll();
+        List<String> statements;
+        StatementCountingDataSource.startRecording();
+        try {
+            call.run();
+            if (inTransaction) {
+                entityManager.flush();
+            }
+        } finally {
+            statements = StatementCountingDataSource.stopRecording();
+        }
+        return statements;
+    }
+
+    /**
+     * Fails with every recorded statement listed when {@code call} issues more than
+     * {@code budget} statements.
+     */
+    List<String> assertAtMost(int budget, String endpoint, Call call) throws Exception {
+        List<String> statements = record(call);
+        assertThat(statements)
+                .as(() -> endpoint + " must issue at most " + budget + " statements but issued "
+                        + statements.size() + ":\n  " + String.join("\n  ", statements))
+                .hasSizeLessThanOrEqualTo(budget);
+        return statements;
+    }
+
+    @FunctionalInterface
+    interface Call {
+
+        void run() throws Exception;
+    }
+}
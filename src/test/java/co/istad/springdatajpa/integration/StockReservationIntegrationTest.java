@@ -0,0 +1,180 @@
+package co.istad.springdatajpa.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductVariant;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.repository.ProductVariantRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Not @Transactional: each reservation must commit on its own for the contention test to mean anything.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockReservationIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationIntegrationTest.class);
+
+    private static final int RESERVERS = 300;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @AfterEach
+    void cleanDatabase() {
+        productVariantRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void reserve_underContention_neverOversells() throws Exception {
+        ProductVariant variant = newVariant("HOT-SKU", STOCK);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Long> latenciesMicros = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < RESERVERS; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    long began = System.nanoTime();
+                    int status = mockMvc.perform(post("/variants/{id}/reservations", variant.getId())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"quantity\":1}"))
+                            .andReturn()
+                            .getResponse()
+                            .getStatus();
+                    latenciesMicros.add((System.nanoTime() - began) / 1_000);
+                    return status;
+                }));
+            }
+            start.countDown();
+        }
+
+        int reserved = 0;
+        int refused = 0;
+        for (Future<Integer> status : statuses) {
+            switch (status.get()) {
+                case 200 -> reserved++;
+                case 409 -> refused++;
+                default -> throw new AssertionError("unexpected status " + status.get());
+            }
+        }
+        assertThat(reserved).isEqualTo(STOCK);
+        assertThat(refused).isEqualTo(RESERVERS - STOCK);
+        assertThat(productVariantRepository.findStockById(variant.getId())).contains(0);
+
+        List<Long> sorted = latenciesMicros.stream().sorted().toList();
+        log.info("{} reservers on one SKU: p50={}us p99={}us max={}us",
+                RESERVERS,
+                sorted.get(sorted.size() / 2),
+                sorted.get(sorted.size() * 99 / 100),
+                sorted.get(sorted.size() - 1));
+    }
+
+    @Test
+    void reserve_outOfStock_returns409WithAvailableStock() throws Exception {
+        ProductVariant variant = newVariant("LOW-SKU", 2);
+
+        mockMvc.perform(post("/variants/{id}/reservations", variant.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RESERVED"))
+                .andExpect(jsonPath("$.stock").value(0));
+
+        mockMvc.perform(post("/variants/{id}/reservations", variant.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":1}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("OUT_OF_STOCK"))
+                .andExpect(jsonPath("$.stock").value(0));
+
+        mockMvc.perform(post("/variants/{id}/reservations", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reserveAll_isAllOrNothing() throws Exception {
+        ProductVariant plenty = newVariant("PLENTY-SKU", 10);
+        ProductVariant scarce = newVariant("SCARCE-SKU", 1);
+
+        mockMvc.perform(post("/variants/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"variantId\":\"" + plenty.getId() + "\",\"quantity\":3},"
+                                + "{\"variantId\":\"" + scarce.getId() + "\",\"quantity\":2}]"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.reserved").value(false))
+                .andExpect(jsonPath("$.items.length()").value(2));
+        assertThat(productVariantRepository.findStockById(plenty.getId())).contains(10);
+        assertThat(productVariantRepository.findStockById(scarce.getId())).contains(1);
+
+        mockMvc.perform(post("/variants/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"variantId\":\"" + plenty.getId() + "\",\"quantity\":3},"
+                                + "{\"variantId\":\"" + plenty.getId() + "\",\"quantity\":2},"
+                                + "{\"variantId\":\"" + scarce.getId() + "\",\"quantity\":1}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reserved").value(true));
+        assertThat(productVariantRepository.findStockById(plenty.getId())).contains(5);
+        assertThat(productVariantRepository.findStockById(scarce.getId())).contains(0);
+    }
+
+    @Test
+    void reserveAll_overflowingTotalQuantity_returns400() throws Exception {
+        ProductVariant variant = newVariant("OVERFLOW-SKU", 10);
+
+        mockMvc.perform(post("/variants/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"variantId\":\"" + variant.getId() + "\",\"quantity\":" + Integer.MAX_VALUE + "},"
+                                + "{\"variantId\":\"" + variant.getId() + "\",\"quantity\":1}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(
+                        "Total quantity for variant " + variant.getId() + " is too large"));
+        assertThat(productVariantRepository.findStockById(variant.getId())).contains(10);
+    }
+
+    private ProductVariant newVariant(String sku, int stock) {
+        Product product = new Product();
+        product.setName("Product " + sku);
+        product.setPrice(new BigDecimal("10.00"));
+        productRepository.save(product);
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSku(sku);
+        variant.setPrice(new BigDecimal("10.00"));
+        variant.setStock(stock);
+        return productVariantRepository.save(variant);
+    }
+}
@@ -3,10 +3,12 @@ package co.istad.springdatajpa.mapper;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import co.istad.springdatajpa.dto.response.CategoryResponse;
+import co.istad.springdatajpa.dto.response.ProductSummary;
 import co.istad.springdatajpa.entity.Category;
 import co.istad.springdatajpa.entity.Product;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,30 +23,27 @@ class CategoryMapperTest {
     private CategoryMapper mapper;
 
     @Test
-    void toResponse_mapsProductSummaries() {
+    void toResponse_mapsGivenProductSlice() {
         Category category = new Category();
         category.setId(UUID.randomUUID());
         category.setName("Office");
         category.setDescription("Office supplies");
         category.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"));
         category.setUpdatedAt(Instant.parse("2025-01-02T00:00:00Z"));
+        ProductSummary pen = new ProductSummary(UUID.randomUUID(), "Pen", new BigDecimal("1.25"));
 
-        Product product = new Product();
-        product.setId(UUID.randomUUID());
-        product.setName("Pen");
-        product.setPrice(new BigDecimal("1.25"));
-        category.addProduct(product);
-
-        CategoryResponse response = mapper.toResponse(category);
+        CategoryResponse response = mapper.toResponse(category, List.of(pen), 42L, "cursor");
 
-        assertThat(response.products()).hasSize(1);
-        assertThat(response.products().get(0).id()).isEqualTo(product.getId());
-        assertThat(response.products().get(0).name()).isEqualTo("Pen");
-        assertThat(response.products().get(0).price()).isEqualByComparingTo("1.25");
+        assertThat(response.id()).isEqualTo(category.getId());
+        assertThat(response.name()).isEqualTo("Office");
+        assertThat(response.createdAt()).isEqualTo(category.getCreatedAt());
+        assertThat(response.products()).containsExactly(pen);
+        assertThat(response.productCount()).isEqualTo(42L);
+        assertThat(response.productsNextCursor()).isEqualTo("cursor");
     }
 
     @Test
-    void toResponseWithoutProducts_returnsEmptyList() {
+    void toResponse_neverMapsProductCollection() {
         Category category = new Category();
         category.setId(UUID.randomUUID());
         category.setName("Office");
@@ -55,9 +54,10 @@ class CategoryMapperTest {
         product.setPrice(new BigDecimal("1.25"));
         category.addProduct(product);
 
-        CategoryResponse response = mapper.toResponseWithoutProducts(category);
+        CategoryResponse response = mapper.toResponse(category);
 
         assertThat(response.products()).isNotNull();
         assertThat(response.products()).isEmpty();
+        assertThat(response.productCount()).isNull();
     }
 }
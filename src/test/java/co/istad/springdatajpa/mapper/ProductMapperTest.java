@@ -2,13 +2,21 @@ package co.istad.springdatajpa.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import co.istad.springdatajpa.dto.response.AttributeValueResponse;
 import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.ProductDetailResponse;
 import co.istad.springdatajpa.dto.response.ProductResponse;
 import co.istad.springdatajpa.dto.response.ProductSummary;
+import co.istad.springdatajpa.dto.response.ProductVariantResponse;
+import co.istad.springdatajpa.entity.AttributeDataType;
+import co.istad.springdatajpa.entity.AttributeDefinition;
+import co.istad.springdatajpa.entity.AttributeScope;
 import co.istad.springdatajpa.entity.Category;
 import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductVariant;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
@@ -40,6 +48,42 @@ class ProductMapperTest {
         assertThat(response.effectivePrice()).isEqualByComparingTo("49.99");
     }
 
+    @Test
+    void toDetailResponse_sortsCategoriesAndMapsEffectivePrices() {
+        Category primary = new Category();
+        primary.setId(UUID.randomUUID());
+        primary.setName("Office");
+        Category secondary = new Category();
+        secondary.setId(UUID.randomUUID());
+        secondary.setName("Desks");
+
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setName("Desk");
+        product.setPrice(new BigDecimal("300.00"));
+        product.setCategory(primary);
+        product.getCategories().add(secondary);
+        ProductVariant variant = new ProductVariant();
+        variant.setId(UUID.randomUUID());
+        variant.setSku("DESK-OAK");
+        variant.setPrice(new BigDecimal("320.00"));
+        variant.setStock(3);
+        AttributeValueResponse oak = new AttributeValueResponse(
+                UUID.randomUUID(), AttributeDataType.STRING, AttributeScope.VARIANT, "Oak", null, null);
+
+        ProductDetailResponse.VariantDetail variantDetail = mapper.toVariantDetail(variant, List.of(oak));
+        ProductDetailResponse response = mapper.toDetailResponse(product, List.of(), List.of(variantDetail));
+
+        assertThat(response.categoryId()).isEqualTo(primary.getId());
+        assertThat(response.category()).isEqualTo(new CategorySummary(primary.getId(), "Office"));
+        assertThat(response.categories()).extracting(CategorySummary::name).containsExactly("Desks", "Office");
+        assertThat(response.effectivePrice()).isEqualByComparingTo("300.00");
+        assertThat(response.variants()).containsExactly(variantDetail);
+        assertThat(variantDetail.sku()).isEqualTo("DESK-OAK");
+        assertThat(variantDetail.effectivePrice()).isEqualByComparingTo("320.00");
+        assertThat(variantDetail.attributes()).containsExactly(oak);
+    }
+
     @Test
     void toSummary_mapsProductFields() {
         UUID productId = UUID.randomUUID();
@@ -54,4 +98,37 @@ class ProductMapperTest {
         assertThat(summary.name()).isEqualTo("Pen");
         assertThat(summary.price()).isEqualByComparingTo("1.25");
     }
+
+    @Test
+    void toVariantResponse_mapsProductIdAndEffectivePrice() {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        ProductVariant variant = new ProductVariant();
+        variant.setId(UUID.randomUUID());
+        variant.setProduct(product);
+        variant.setSku("CHAIR-BLK-L");
+        variant.setPrice(new BigDecimal("129.00"));
+        variant.setStock(42);
+
+        ProductVariantResponse response = mapper.toVariantResponse(variant);
+
+        assertThat(response.id()).isEqualTo(variant.getId());
+        assertThat(response.productId()).isEqualTo(product.getId());
+        assertThat(response.sku()).isEqualTo("CHAIR-BLK-L");
+        assertThat(response.effectivePrice()).isEqualByComparingTo("129.00");
+        assertThat(response.stock()).isEqualTo(42);
+    }
+
+    @Test
+    void toAttributeResponse_mapsDefinitionAndTypedValue() {
+        AttributeDefinition definition = new AttributeDefinition();
+        definition.setId(UUID.randomUUID());
+        definition.setDataType(AttributeDataType.NUMBER);
+        definition.setScope(AttributeScope.PRODUCT);
+
+        AttributeValueResponse response = mapper.toAttributeResponse(definition, null, new BigDecimal("2.5"), null);
+
+        assertThat(response).isEqualTo(new AttributeValueResponse(
+                definition.getId(), AttributeDataType.NUMBER, AttributeScope.PRODUCT, null, new BigDecimal("2.5"), null));
+    }
 }
@@ -0,0 +1,84 @@
+package co.istad.springdatajpa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import co.istad.springdatajpa.dto.response.CategorySummary;
+import co.istad.springdatajpa.dto.response.CategoryTreeNode;
+import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.CategoryRepository.TreeRow;
+import co.istad.springdatajpa.service.impl.CategoryTreeIndex;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryTreeIndexTest {
+
+    private static final UUID COMPUTERS = UUID.randomUUID();
+    private static final UUID AUDIO = UUID.randomUUID();
+    private static final UUID LAPTOPS = UUID.randomUUID();
+    private static final UUID DESKTOPS = UUID.randomUUID();
+    private static final UUID GAMING = UUID.randomUUID();
+    private static final UUID LOOP_A = UUID.randomUUID();
+    private static final UUID LOOP_B = UUID.randomUUID();
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private CategoryTreeIndex categoryTreeIndex;
+
+    @Test
+    void refresh_buildsSortedTreeWithDepths() {
+        stubRows();
+
+        categoryTreeIndex.refresh();
+
+        List<CategoryTreeNode> roots = categoryTreeIndex.roots();
+        assertThat(roots).extracting(CategoryTreeNode::name).containsExactly("Audio", "Computers");
+        CategoryTreeNode computers = roots.get(1);
+        assertThat(computers.children()).extracting(CategoryTreeNode::name).containsExactly("Laptops", "Desktops");
+        CategoryTreeNode gaming = computers.children().get(0).children().get(0);
+        assertThat(gaming.id()).isEqualTo(GAMING);
+        assertThat(gaming.depth()).isEqualTo(2);
+    }
+
+    @Test
+    void path_returnsRootFirstAndSkipsUnreachableNodes() {
+        stubRows();
+
+        categoryTreeIndex.refresh();
+
+        assertThat(categoryTreeIndex.path(GAMING).orElseThrow())
+                .extracting(CategorySummary::name)
+                .containsExactly("Computers", "Laptops", "Gaming");
+        assertThat(categoryTreeIndex.path(COMPUTERS).orElseThrow())
+                .extracting(CategorySummary::id)
+                .containsExactly(COMPUTERS);
+        assertThat(categoryTreeIndex.path(LOOP_A)).isEmpty();
+        assertThat(categoryTreeIndex.path(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void readsBeforeFirstRefresh_returnEmptySnapshot() {
+        assertThat(categoryTreeIndex.roots()).isEmpty();
+        assertThat(categoryTreeIndex.path(COMPUTERS)).isEmpty();
+    }
+
+    private void stubRows() {
+        when(categoryRepository.findAllTreeRows()).thenReturn(List.of(
+                new TreeRow(GAMING, LAPTOPS, "Gaming", null),
+                new TreeRow(DESKTOPS, COMPUTERS, "Desktops", null),
+                new TreeRow(LAPTOPS, COMPUTERS, "Laptops", 0),
+                new TreeRow(COMPUTERS, null, "Computers", 2),
+                new TreeRow(AUDIO, null, "Audio", 1),
+                new TreeRow(LOOP_A, LOOP_B, "Loop A", null),
+                new TreeRow(LOOP_B, LOOP_A, "Loop B", null)
+        ));
+    }
+}
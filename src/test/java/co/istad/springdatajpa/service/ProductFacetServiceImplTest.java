@@ -0,0 +1,101 @@
+package co.istad.springdatajpa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.istad.springdatajpa.dto.request.AttributeFilter;
+import co.istad.springdatajpa.dto.response.ProductFacetResponse;
+import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.repository.AttributeDefinitionRepository;
+import co.istad.springdatajpa.repository.ProductRepository;
+import co.istad.springdatajpa.service.impl.ProductFacetServiceImpl;
+import co.istad.springdatajpa.service.impl.ProductFilterCompiler;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetServiceImplTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private AttributeDefinitionRepository attributeDefinitionRepository;
+
+    @Mock
+    private ProductFilterCompiler productFilterCompiler;
+
+    @Test
+    void facets_equivalentFiltersShareCacheEntry() {
+        ProductFacetServiceImpl service = newService(Duration.ofMinutes(1));
+        UUID colorId = UUID.randomUUID();
+        UUID sizeId = UUID.randomUUID();
+        stubEmptyCounts();
+
+        ProductFacetResponse first = service.facets(null, true, List.of(
+                AttributeFilter.parse(colorId + ":in:red|blue"),
+                AttributeFilter.parse(sizeId + ":eq:M")
+        ), null);
+        ProductFacetResponse second = service.facets(null, true, List.of(
+                AttributeFilter.parse(sizeId + ":eq:M"),
+                AttributeFilter.parse(colorId + ":in:blue|red|blue")
+        ), List.of());
+
+        assertThat(second).isSameAs(first);
+        verify(productRepository, times(1)).countPriceBuckets(any(), anyList());
+    }
+
+    @Test
+    void facets_zeroTtlDisablesCache() {
+        ProductFacetServiceImpl service = newService(Duration.ZERO);
+        stubEmptyCounts();
+
+        service.facets(null, true, List.of(), null);
+        service.facets(null, true, List.of(), null);
+
+        verify(productRepository, times(2)).countPriceBuckets(any(), anyList());
+    }
+
+    @Test
+    void facets_includeDescendantsIsPartOfCacheKey() {
+        ProductFacetServiceImpl service = newService(Duration.ofMinutes(1));
+        stubEmptyCounts();
+
+        service.facets(null, true, List.of(), null);
+        service.facets(null, false, List.of(), null);
+
+        verify(productRepository, times(2)).countPriceBuckets(any(), anyList());
+    }
+
+    private ProductFacetServiceImpl newService(Duration cacheTtl) {
+        return new ProductFacetServiceImpl(
+                productRepository,
+                attributeDefinitionRepository,
+                productFilterCompiler,
+                cacheTtl,
+                100
+        );
+    }
+
+    private void stubEmptyCounts() {
+        Specification<Product> specification = Specification.unrestricted();
+        when(productFilterCompiler.compile(anyList())).thenReturn(specification);
+        when(productFilterCompiler.restrictToCategory(isNull(), anyBoolean(), any())).thenReturn(specification);
+        when(attributeDefinitionRepository.findAllByFilterableTrue()).thenReturn(List.of());
+        when(productRepository.countChildCategories(any(), isNull())).thenReturn(List.of());
+        when(productRepository.countPriceBuckets(any(), anyList()))
+                .thenReturn(List.of(0L, 0L, 0L, 0L, 0L, 0L));
+    }
+}
@@ -2,23 +2,36 @@ package co.istad.springdatajpa.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import co.istad.springdatajpa.dto.request.ProductCreateRequest;
 import co.istad.springdatajpa.dto.request.ProductPatchRequest;
+import co.istad.springdatajpa.dto.response.AttributeValueResponse;
+import co.istad.springdatajpa.dto.response.ProductBatchResponse;
 import co.istad.springdatajpa.dto.response.ProductResponse;
 import co.istad.springdatajpa.dto.request.ProductUpdateRequest;
+import co.istad.springdatajpa.entity.AttributeDataType;
+import co.istad.springdatajpa.entity.AttributeDefinition;
 import co.istad.springdatajpa.entity.Category;
 import co.istad.springdatajpa.entity.Product;
+import co.istad.springdatajpa.entity.ProductAttributeValue;
+import co.istad.springdatajpa.exception.PreconditionFailedException;
 import co.istad.springdatajpa.exception.ResourceNotFoundException;
 import co.istad.springdatajpa.mapper.ProductMapper;
 import co.istad.springdatajpa.repository.CategoryRepository;
+import co.istad.springdatajpa.repository.ProductAttributeValueRepository;
 import co.istad.springdatajpa.repository.ProductRepository;
 import co.istad.springdatajpa.service.impl.ProductServiceImpl;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -39,6 +52,9 @@ class ProductServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductAttributeValueRepository productAttributeValueRepository;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -55,7 +71,9 @@ class ProductServiceImplTest {
                 null,
                 null,
                 Instant.parse("2025-01-01T00:00:00Z"),
-                Instant.parse("2025-01-02T00:00:00Z")
+                Instant.parse("2025-01-02T00:00:00Z"),
+                0L,
+                null
         );
         when(productRepository.findById(id)).thenReturn(Optional.of(product));
         when(productMapper.toResponse(product)).thenReturn(response);
@@ -65,6 +83,62 @@ class ProductServiceImplTest {
         assertThat(result).isEqualTo(response);
     }
 
+    @Test
+    void findAllByIds_preservesRequestOrderAndReportsMissing() {
+        Product first = newProduct();
+        Product second = newProduct();
+        UUID missing = UUID.randomUUID();
+        ProductResponse firstResponse = newResponse(first.getId());
+        ProductResponse secondResponse = newResponse(second.getId());
+        when(productRepository.findAllByIdIn(Set.of(second.getId(), missing, first.getId())))
+                .thenReturn(List.of(first, second));
+        when(productMapper.toResponse(first)).thenReturn(firstResponse);
+        when(productMapper.toResponse(second)).thenReturn(secondResponse);
+
+        ProductBatchResponse result = productService.findAllByIds(
+                List.of(second.getId(), missing, first.getId(), second.getId()));
+
+        assertThat(result.items()).containsExactly(secondResponse, firstResponse);
+        assertThat(result.missingIds()).containsExactly(missing);
+    }
+
+    @Test
+    void listProductAttributes_withRows_skipsProductLookup() {
+        UUID productId = UUID.randomUUID();
+        AttributeDefinition definition = new AttributeDefinition();
+        definition.setDataType(AttributeDataType.STRING);
+        ProductAttributeValue value = new ProductAttributeValue();
+        value.setAttribute(definition);
+        value.setValueString("Oak");
+        when(productAttributeValueRepository.findAllByProductId(productId)).thenReturn(List.of(value));
+        when(productMapper.toAttributeResponse(definition, "Oak", null, null)).thenReturn(
+                new AttributeValueResponse(null, AttributeDataType.STRING, null, "Oak", null, null));
+
+        List<AttributeValueResponse> result = productService.listProductAttributes(productId);
+
+        assertThat(result).extracting(AttributeValueResponse::valueString).containsExactly("Oak");
+        verify(productRepository, never()).existsById(any());
+    }
+
+    @Test
+    void listProductAttributes_emptyForMissingProduct_throws() {
+        UUID productId = UUID.randomUUID();
+        when(productAttributeValueRepository.findAllByProductId(productId)).thenReturn(List.of());
+        when(productRepository.existsById(productId)).thenReturn(false);
+
+        assertThatThrownBy(() -> productService.listProductAttributes(productId))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void listProductAttributes_emptyForExistingProduct_returnsEmpty() {
+        UUID productId = UUID.randomUUID();
+        when(productAttributeValueRepository.findAllByProductId(productId)).thenReturn(List.of());
+        when(productRepository.existsById(productId)).thenReturn(true);
+
+        assertThat(productService.listProductAttributes(productId)).isEmpty();
+    }
+
     @Test
     void findById_notFound_throws() {
         UUID id = UUID.randomUUID();
@@ -79,7 +153,7 @@ class ProductServiceImplTest {
         UUID id = UUID.randomUUID();
         when(productRepository.findById(id)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> productService.update(id, new ProductUpdateRequest("A", "B", BigDecimal.ONE, null, null)))
+        assertThatThrownBy(() -> productService.update(id, new ProductUpdateRequest("A", "B", BigDecimal.ONE, null, null), null))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
@@ -88,7 +162,7 @@ class ProductServiceImplTest {
         UUID id = UUID.randomUUID();
         when(productRepository.findById(id)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> productService.delete(id))
+        assertThatThrownBy(() -> productService.delete(id, null))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
@@ -98,17 +172,29 @@ class ProductServiceImplTest {
         Product product = new Product();
         when(productRepository.findById(id)).thenReturn(Optional.of(product));
 
-        productService.delete(id);
+        productService.delete(id, null);
 
         verify(productRepository).delete(product);
     }
 
+    @Test
+    void delete_staleVersion_throwsPreconditionFailed() {
+        UUID id = UUID.randomUUID();
+        Product product = new Product();
+        product.setVersion(3L);
+        when(productRepository.findById(id)).thenReturn(Optional.of(product));
+
+        assertThatThrownBy(() -> productService.delete(id, 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(productRepository, never()).delete(product);
+    }
+
     @Test
     void patch_notFound_throws() {
         UUID id = UUID.randomUUID();
         when(productRepository.findById(id)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> productService.patch(id, new ProductPatchRequest("A", null, null)))
+        assertThatThrownBy(() -> productService.patch(id, new ProductPatchRequest("A", null, null), null))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
@@ -126,7 +212,9 @@ class ProductServiceImplTest {
                 null,
                 null,
                 Instant.parse("2025-01-01T00:00:00Z"),
-                Instant.parse("2025-01-02T00:00:00Z")
+                Instant.parse("2025-01-02T00:00:00Z"),
+                0L,
+                null
         );
         when(productMapper.toEntity(request)).thenReturn(product);
         when(productRepository.save(product)).thenReturn(saved);
@@ -143,9 +231,10 @@ class ProductServiceImplTest {
         ProductCreateRequest request = new ProductCreateRequest("Name", "Desc", new BigDecimal("2.50"), categoryId, null);
         Product product = new Product();
         Category category = new Category();
+        category.setId(categoryId);
 
         when(productMapper.toEntity(request)).thenReturn(product);
-        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
+        when(categoryRepository.findAllById(Set.of(categoryId))).thenReturn(List.of(category));
         when(productRepository.save(product)).thenAnswer(invocation -> invocation.getArgument(0));
         when(productMapper.toResponse(product)).thenReturn(new ProductResponse(
                 UUID.randomUUID(),
@@ -156,7 +245,9 @@ class ProductServiceImplTest {
                 categoryId,
                 null,
                 Instant.parse("2025-01-01T00:00:00Z"),
-                Instant.parse("2025-01-02T00:00:00Z")
+                Instant.parse("2025-01-02T00:00:00Z"),
+                0L,
+                null
         ));
 
         productService.create(request);
@@ -165,5 +256,97 @@ class ProductServiceImplTest {
         verify(productRepository).save(captor.capture());
         assertThat(captor.getValue().getCategory()).isEqualTo(category);
     }
+
+    @Test
+    void create_withCategoryIds_resolvesInSingleQueryAndKeepsPrimary() {
+        Category primary = newCategory();
+        Category second = newCategory();
+        Category third = newCategory();
+        ProductCreateRequest request = new ProductCreateRequest(
+                "Name", "Desc", new BigDecimal("2.50"), primary.getId(),
+                new LinkedHashSet<>(List.of(second.getId(), third.getId())));
+        Product product = new Product();
+
+        when(productMapper.toEntity(request)).thenReturn(product);
+        when(categoryRepository.findAllById(anyIterable())).thenReturn(List.of(primary, second, third));
+        when(productRepository.save(product)).thenAnswer(invocation -> invocation.getArgument(0));
+
+        productService.create(request);
+
+        verify(categoryRepository).findAllById(Set.of(primary.getId(), second.getId(), third.getId()));
+        verify(categoryRepository, never()).findById(any());
+        assertThat(product.getCategory()).isEqualTo(primary);
+        assertThat(product.getCategories()).containsExactlyInAnyOrder(primary, second, third);
+    }
+
+    @Test
+    void create_withUnknownCategoryIds_reportsAllMissing() {
+        Category known = newCategory();
+        UUID missingOne = UUID.randomUUID();
+        UUID missingTwo = UUID.randomUUID();
+        ProductCreateRequest request = new ProductCreateRequest(
+                "Name", "Desc", new BigDecimal("2.50"), null,
+                new LinkedHashSet<>(List.of(known.getId(), missingOne, missingTwo)));
+
+        when(productMapper.toEntity(request)).thenReturn(new Product());
+        when(categoryRepository.findAllById(anyIterable())).thenReturn(List.of(known));
+
+        assertThatThrownBy(() -> productService.create(request))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining(missingOne.toString())
+                .hasMessageContaining(missingTwo.toString());
+    }
+
+    @Test
+    void update_withUnchangedCategoryIds_keepsExistingAssociations() {
+        UUID id = UUID.randomUUID();
+        Category first = newCategory();
+        Category second = newCategory();
+        Category dropped = newCategory();
+        Product product = new Product();
+        product.addCategory(first);
+        product.addCategory(second);
+        product.addCategory(dropped);
+        ProductUpdateRequest request = new ProductUpdateRequest(
+                "Name", "Desc", BigDecimal.ONE, null,
+                new LinkedHashSet<>(List.of(first.getId(), second.getId())));
+
+        when(productRepository.findById(id)).thenReturn(Optional.of(product));
+        when(categoryRepository.findAllById(anyIterable())).thenReturn(List.of(first, second));
+
+        productService.update(id, request, null);
+
+        assertThat(product.getCategories()).containsExactly(first, second);
+        assertThat(first.getProducts()).containsExactly(product);
+        assertThat(dropped.getProducts()).isEmpty();
+    }
+
+    private Category newCategory() {
+        Category category = new Category();
+        category.setId(UUID.randomUUID());
+        return category;
+    }
+
+    private Product newProduct() {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        return product;
+    }
+
+    private ProductResponse newResponse(UUID id) {
+        return new ProductResponse(
+                id,
+                "Name",
+                "Desc",
+                BigDecimal.ONE,
+                BigDecimal.ONE,
+                null,
+                null,
+                Instant.parse("2025-01-01T00:00:00Z"),
+                Instant.parse("2025-01-02T00:00:00Z"),
+                0L,
+                null
+        );
+    }
 }
 
@@ -0,0 +1,158 @@
+package co.istad.springdatajpa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.istad.springdatajpa.service.impl.RowCountEstimator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class RowCountEstimatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private DatabaseMetaData metaData;
+
+    @Mock
+    private Savepoint savepoint;
+
+    @Test
+    void estimateTable_postgres_usesReltuples() throws Exception {
+        RowCountEstimator estimator = newEstimator(Duration.ofMinutes(1));
+        stubDatabase("PostgreSQL");
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class), eq("products"))).thenReturn(8_000_000L);
+
+        long estimate = estimator.estimateTable("products", () -> {
+            throw new AssertionError("exact count must not run");
+        });
+
+        assertThat(estimate).isEqualTo(8_000_000L);
+    }
+
+    @Test
+    void estimateTable_postgresWithoutStatistics_fallsBackToExactCount() throws Exception {
+        RowCountEstimator estimator = newEstimator(Duration.ofMinutes(1));
+        stubDatabase("PostgreSQL");
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class), eq("products"))).thenReturn(-1L);
+
+        assertThat(estimator.estimateTable("products", () -> 42L)).isEqualTo(42L);
+    }
+
+    @Test
+    void estimateQuery_postgres_readsPlanRows() throws Exception {
+        RowCountEstimator estimator = newEstimator(Duration.ofMinutes(1));
+        stubDatabase("PostgreSQL");
+        UUID categoryId = UUID.randomUUID();
+        when(jdbcTemplate.queryForObject(any(String.class), eq(String.class), eq(categoryId)))
+                .thenReturn("[{\"Plan\": {\"Node Type\": \"Index Scan\", \"Plan Rows\": 1234.0}}]");
+
+        long estimate = estimator.estimateQuery(categoryId, "select 1", new Object[]{categoryId}, () -> {
+            throw new AssertionError("exact count must not run");
+        });
+
+        assertThat(estimate).isEqualTo(1234L);
+    }
+
+    @Test
+    void estimateTable_insideTransaction_releasesSavepointOnCallerConnection() throws Exception {
+        RowCountEstimator estimator = newEstimator(Duration.ofMinutes(1));
+        stubDatabase("PostgreSQL");
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class), eq("products"))).thenReturn(500L);
+
+        long estimate = inTransaction(() -> estimator.estimateTable("products", () -> {
+            throw new AssertionError("exact count must not run");
+        }));
+
+        assertThat(estimate).isEqualTo(500L);
+        verify(connection).releaseSavepoint(savepoint);
+        verify(connection, never()).rollback(savepoint);
+    }
+
+    @Test
+    void estimateQuery_failureInsideTransaction_rollsBackToSavepoint() throws Exception {
+        RowCountEstimator estimator = newEstimator(Duration.ofMinutes(1));
+        stubDatabase("PostgreSQL");
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        UUID categoryId = UUID.randomUUID();
+        when(jdbcTemplate.queryForObject(any(String.class), eq(String.class), eq(categoryId)))
+                .thenThrow(new DataAccessResourceFailureException("explain failed"));
+
+        long estimate = inTransaction(() ->
+                estimator.estimateQuery(categoryId, "select 1", new Object[]{categoryId}, () -> 7L));
+
+        assertThat(estimate).isEqualTo(7L);
+        verify(connection).rollback(savepoint);
+        verify(connection, never()).releaseSavepoint(savepoint);
+    }
+
+    @Test
+    void estimateTable_otherDatabase_cachesExactCount() throws Exception {
+        RowCountEstimator estimator = newEstimator(Duration.ofMinutes(1));
+        stubDatabase("H2");
+        AtomicInteger counts = new AtomicInteger();
+
+        long first = estimator.estimateTable("products", () -> 10L + counts.incrementAndGet());
+        long second = estimator.estimateTable("products", () -> 10L + counts.incrementAndGet());
+
+        assertThat(first).isEqualTo(11L);
+        assertThat(second).isEqualTo(11L);
+        assertThat(counts).hasValue(1);
+    }
+
+    @Test
+    void cachedCount_zeroTtlAlwaysCounts() {
+        RowCountEstimator estimator = newEstimator(Duration.ZERO);
+        AtomicInteger counts = new AtomicInteger();
+
+        estimator.cachedCount("key", counts::incrementAndGet);
+        estimator.cachedCount("key", counts::incrementAndGet);
+
+        assertThat(counts).hasValue(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubDatabase(String productName) throws Exception {
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn(productName);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    private long inTransaction(LongSupplier work) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            return work.getAsLong();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private RowCountEstimator newEstimator(Duration cacheTtl) {
+        return new RowCountEstimator(jdbcTemplate, new ObjectMapper(), cacheTtl, 100);
+    }
+}
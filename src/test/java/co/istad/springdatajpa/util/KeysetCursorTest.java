@@ -4,7 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import co.istad.springdatajpa.exception.BadRequestException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 
@@ -16,10 +20,120 @@ class KeysetCursorTest {
         UUID id = UUID.randomUUID();
 
         String cursor = KeysetCursor.encode(createdAt, id);
-        KeysetCursor.Decoded decoded = KeysetCursor.decode(cursor);
+        KeysetCursor.Position decoded = KeysetCursor.decode(cursor);
 
-        assertThat(decoded.createdAt()).isEqualTo(createdAt);
+        assertThat(decoded.property()).isEqualTo("createdAt");
+        assertThat(decoded.ascending()).isFalse();
+        assertThat(decoded.value()).isEqualTo(createdAt);
         assertThat(decoded.id()).isEqualTo(id);
+        assertThat(decoded.backward()).isFalse();
+    }
+
+    @Test
+    void encode_createdAtCursor_isCompactBinary() {
+        String cursor = KeysetCursor.encode(Instant.parse("2025-01-01T00:00:00.123456Z"), UUID.randomUUID());
+
+        // format, flags, property, tag, micros and id: 28 bytes.
+        assertThat(cursor).hasSize(38);
+        assertThat(Base64.getUrlDecoder().decode(cursor)[0]).isEqualTo(KeysetCursorCodec.FORMAT);
+    }
+
+    @Test
+    void encodeDecode_typedValues_roundTrip() {
+        UUID id = UUID.randomUUID();
+        List<KeysetCursor.Position> positions = List.of(
+                new KeysetCursor.Position("price", true, new BigDecimal("-12.50"), id, false),
+                new KeysetCursor.Position("price", false, new BigDecimal("123456789012345678901234.5"), id, true),
+                new KeysetCursor.Position("sortOrder", true, 7, id, false),
+                new KeysetCursor.Position("stock", false, 9_000_000_000L, id, true),
+                new KeysetCursor.Position("updatedAt", true, Instant.parse("1969-12-31T23:59:59.999999Z"), id, false),
+                new KeysetCursor.Position("name", true, "Café ☕", id, false)
+        );
+
+        for (KeysetCursor.Position position : positions) {
+            KeysetCursor.Position decoded = KeysetCursor.decode(KeysetCursor.encode(position));
+            if (position.value() instanceof BigDecimal large && large.scale() == 1) {
+                // Too wide for a long: travels as its plain string and is parsed by the executor.
+                assertThat(decoded.value()).isEqualTo(large.toPlainString());
+            } else {
+                assertThat(decoded).isEqualTo(position);
+            }
+        }
+    }
+
+    @Test
+    void decode_textV1Cursor_stillReadable() {
+        UUID id = UUID.randomUUID();
+        String text = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("v1|name|asc|prev|" + id + "|=a|b").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeysetCursor.decode(text)).isEqualTo(new KeysetCursor.Position("name", true, "a|b", id, true));
+    }
+
+    @Test
+    void signedCodec_roundTripsAndRejectsForgedCursors() {
+        KeysetCursorCodec codec = new KeysetCursorCodec("s3cret".getBytes(StandardCharsets.UTF_8), true);
+        KeysetCursor.Position position = new KeysetCursor.Position(
+                "createdAt", false, Instant.parse("2025-01-01T00:00:00Z"), UUID.randomUUID(), false);
+        String cursor = codec.encode(position);
+
+        assertThat(codec.decode(cursor)).isEqualTo(position);
+
+        byte[] forged = Base64.getUrlDecoder().decode(cursor);
+        forged[forged.length - 17] ^= 1;
+        String forgedCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(forged);
+        assertThatThrownBy(() -> codec.decode(forgedCursor))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalid cursor signature");
+        assertThatThrownBy(() -> codec.decode(KeysetCursor.encode(position)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalid cursor signature");
+        assertThatThrownBy(() -> new KeysetCursorCodec("other".getBytes(StandardCharsets.UTF_8), true).decode(cursor))
+                .isInstanceOf(BadRequestException.class);
+        String textCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("v1|createdAt|desc|next|" + position.id() + "|=2025-01-01T00:00:00Z").getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> codec.decode(textCursor))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("invalid cursor signature");
+    }
+
+    @Test
+    void codecWithoutTextCursors_rejectsTextCursor() {
+        KeysetCursorCodec codec = new KeysetCursorCodec(null, false);
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2025-01-01T00:00:00Z|" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> codec.decode(legacy))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void decode_truncatedBinaryCursor_throwsBadRequest() {
+        String cursor = KeysetCursor.encode(Instant.parse("2025-01-01T00:00:00Z"), UUID.randomUUID());
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor.substring(0, 20)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void encodeDecode_sortKeyWithDelimiterAndNull_roundTrip() {
+        UUID id = UUID.randomUUID();
+        KeysetCursor.Position named = new KeysetCursor.Position("name", true, "a|b", id, true);
+        KeysetCursor.Position unset = new KeysetCursor.Position("sortOrder", false, null, id, false);
+
+        assertThat(KeysetCursor.decode(KeysetCursor.encode(named))).isEqualTo(named);
+        assertThat(KeysetCursor.decode(KeysetCursor.encode(unset))).isEqualTo(unset);
+    }
+
+    @Test
+    void decode_legacyCreatedAtCursor_readsAsCreatedAtDescending() {
+        UUID id = UUID.randomUUID();
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2025-01-01T00:00:00Z|" + id).getBytes(StandardCharsets.UTF_8));
+
+        KeysetCursor.Position decoded = KeysetCursor.decode(legacy);
+
+        assertThat(decoded).isEqualTo(new KeysetCursor.Position("createdAt", false, "2025-01-01T00:00:00Z", id, false));
     }
 
     @Test
@@ -27,4 +141,13 @@ class KeysetCursorTest {
         assertThatThrownBy(() -> KeysetCursor.decode("not-base64"))
                 .isInstanceOf(BadRequestException.class);
     }
+
+    @Test
+    void decode_unparseableTimestamp_throwsBadRequest() {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("yesterday|" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor))
+                .isInstanceOf(BadRequestException.class);
+    }
 }